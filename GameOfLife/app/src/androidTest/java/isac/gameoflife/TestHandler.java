@@ -12,9 +12,6 @@ import android.support.test.runner.AndroidJUnit4;
 import android.view.View;
 import android.view.ViewGroup;
 
-import com.rabbitmq.client.AMQP;
-import com.rabbitmq.client.Envelope;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.After;
@@ -481,7 +478,7 @@ public class TestHandler {
         }
 
         @Override
-        public void handleMessage(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, JSONObject json) {
+        public void handleMessage(String queue, JSONObject json) {
         }
     }
 }
@@ -0,0 +1,289 @@
+package isac.gameoflife;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Surface where a dedicated thread draws the generations published in a SnapshotExchange. The
+ * thread draws the last snapshot at the refresh rate of the display, the snapshots published
+ * between two frames are dropped; neither the UI thread nor the calculation wait for the drawing.
+ * Only the part of the grid in the viewport is drawn: when the cells are smaller than a pixel,
+ * a pixel shows a block of cells, so a frame costs as much as the pixels of the screen.
+ */
+public class GridSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    //time waited when there is no new snapshot, about a frame at 60 Hz
+    private final static long FRAME_NANOS=16000000L;
+    private RenderThread thread;
+    private boolean surfaceReady;
+    private SnapshotExchange snapshots;
+    private Viewport viewport;
+
+    public GridSurfaceView(Context context) {
+        super(context);
+        thread=null;
+        surfaceReady=false;
+        snapshots=null;
+        viewport=null;
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * Draws the snapshots of a new grid, it has to be invoked by the UI thread
+     * @param snapshots
+     * @param viewport part of the grid shown
+     */
+    public void setGrid(SnapshotExchange snapshots,Viewport viewport){
+        stopRendering();
+
+        this.snapshots=snapshots;
+        this.viewport=viewport;
+
+        startRendering();
+    }
+
+    /**
+     * Shows another part of the grid, it has to be invoked by the UI thread
+     * @param viewport
+     */
+    public void setViewport(Viewport viewport){
+        this.viewport=viewport;
+
+        if(thread!=null){
+            thread.setViewport(viewport);
+        }
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        surfaceReady=true;
+        startRendering();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        //the last snapshot is drawn again on the new surface
+        stopRendering();
+        startRendering();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        surfaceReady=false;
+        stopRendering();
+    }
+
+    /**
+     * Starts the render thread if the surface and the grid are ready
+     */
+    private void startRendering(){
+        if(surfaceReady && snapshots!=null && viewport!=null && thread==null){
+            thread=new RenderThread(getHolder(),snapshots,viewport);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the render thread and waits for it, the surface can't be used after surfaceDestroyed
+     */
+    private void stopRendering(){
+        if(thread!=null){
+            thread.quit();
+
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+
+            thread=null;
+        }
+    }
+
+    /**
+     * Thread that draws the snapshots on the surface
+     */
+    private static class RenderThread extends Thread {
+
+        //the lines of the grid are drawn only when the cells are at least this number of pixels
+        private final static float MIN_LINE_CELL_SIZE=8.0f;
+        private SurfaceHolder holder;
+        private SnapshotExchange snapshots;
+        private volatile Viewport viewport;
+        private volatile boolean running;
+        private Bitmap bitmap;
+        private int[] pixels;
+        private Paint bitmapPaint,linePaint;
+        private Rect blocksRect;
+        private RectF screenRect;
+        private float[] gridLines;
+
+        private RenderThread(SurfaceHolder holder,SnapshotExchange snapshots,Viewport viewport){
+            this.holder=holder;
+            this.snapshots=snapshots;
+            this.viewport=viewport;
+            running=true;
+
+            //a block is at least a pixel, so the blocks on the screen are at most its pixels and a partial block per side
+            int width=(int)Math.ceil(viewport.getWidth())+2,height=(int)Math.ceil(viewport.getHeight())+2;
+
+            bitmap=Bitmap.createBitmap(width,height,Bitmap.Config.ARGB_8888);
+            pixels=new int[width*height];
+            bitmapPaint=new Paint();
+            bitmapPaint.setFilterBitmap(false);
+            bitmapPaint.setAntiAlias(false);
+            linePaint=new Paint();
+            linePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+            linePaint.setColor(Color.WHITE);
+            blocksRect=new Rect();
+            screenRect=new RectF();
+            gridLines=new float[4*((int)(width/MIN_LINE_CELL_SIZE)+(int)(height/MIN_LINE_CELL_SIZE)+6)];
+        }
+
+        private void setViewport(Viewport viewport){
+            this.viewport=viewport;
+            LockSupport.unpark(this);
+        }
+
+        private void quit(){
+            running=false;
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run(){
+            //the first frame is drawn even without a new snapshot, with the last one consumed
+            SnapshotExchange.Snapshot current=snapshots.getConsumed();
+            Viewport drawn=null;
+
+            while(running){
+                SnapshotExchange.Snapshot snapshot=snapshots.consume();
+                Viewport tmp=viewport;
+
+                if(snapshot!=null){
+                    current=snapshot;
+                }else if(tmp==drawn){
+                    LockSupport.parkNanos(this,FRAME_NANOS);
+                    continue;
+                }
+
+                //the canvas is given back at the refresh rate of the display
+                Canvas canvas=holder.lockCanvas();
+
+                if(canvas==null){
+                    //the surface is not ready, the frame is drawn later
+                    drawn=null;
+                    LockSupport.parkNanos(this,FRAME_NANOS);
+                    continue;
+                }
+
+                try {
+                    draw(canvas,current,tmp);
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+
+                drawn=tmp;
+            }
+
+            bitmap.recycle();
+        }
+
+        /**
+         * Draws the blocks of the snapshot in the viewport
+         * @param canvas
+         * @param snapshot
+         * @param viewport
+         */
+        private void draw(Canvas canvas,SnapshotExchange.Snapshot snapshot,Viewport viewport){
+            int level=viewport.getLevel();
+            float cellSize=viewport.getCellSize(),blockSize=cellSize*(1<<level);
+            //the column 1 is drawn from the column position 0
+            int firstBlockColumn=Math.max(0,(int)Math.floor(viewport.getLeft()+1)>>level);
+            int firstBlockRow=Math.max(0,(int)Math.floor(viewport.getTop()+1)>>level);
+            int lastBlockColumn=Math.min(viewport.getColumn()>>>level,(int)Math.floor(viewport.toColumns(viewport.getWidth())+1)>>level);
+            int lastBlockRow=Math.min(viewport.getRow()>>>level,(int)Math.floor(viewport.toRows(viewport.getHeight())+1)>>level);
+            int blockColumns=Math.min(bitmap.getWidth(),lastBlockColumn-firstBlockColumn+1);
+            int blockRows=Math.min(bitmap.getHeight(),lastBlockRow-firstBlockRow+1);
+            float gridLeft=-viewport.getLeft()*cellSize,gridTop=-viewport.getTop()*cellSize;
+
+            canvas.drawColor(Color.BLACK);
+
+            if(blockColumns<=0 || blockRows<=0){
+                return;
+            }
+
+            snapshot.getPixels(level,firstBlockRow,firstBlockColumn,blockRows,blockColumns,pixels,Color.WHITE,Color.BLACK);
+            bitmap.setPixels(pixels,0,blockColumns,0,0,blockColumns,blockRows);
+            blocksRect.set(0,0,blockColumns,blockRows);
+            screenRect.set(gridLeft+((firstBlockColumn<<level)-1)*cellSize,gridTop+((firstBlockRow<<level)-1)*cellSize,
+                    gridLeft+((firstBlockColumn<<level)-1)*cellSize+blockColumns*blockSize,
+                    gridTop+((firstBlockRow<<level)-1)*cellSize+blockRows*blockSize);
+
+            //the blocks on the borders can go beyond the grid
+            canvas.save();
+            canvas.clipRect(Math.max(0,gridLeft),Math.max(0,gridTop),
+                    Math.min(viewport.getWidth(),gridLeft+viewport.getColumn()*cellSize),
+                    Math.min(viewport.getHeight(),gridTop+viewport.getRow()*cellSize));
+            canvas.drawBitmap(bitmap,blocksRect,screenRect,bitmapPaint);
+            canvas.restore();
+
+            if(cellSize>=MIN_LINE_CELL_SIZE){
+                drawLines(canvas,viewport,firstBlockRow,firstBlockColumn,blockRows,blockColumns);
+            }
+        }
+
+        /**
+         * Draws the lines around the cells on the screen, the level of detail is 0
+         * @param canvas
+         * @param viewport
+         * @param firstRow
+         * @param firstColumn
+         * @param rows
+         * @param columns
+         */
+        private void drawLines(Canvas canvas,Viewport viewport,int firstRow,int firstColumn,int rows,int columns){
+            //the row 0 and the column 0 are outside the grid
+            if(firstRow==0){
+                firstRow=1;
+                rows--;
+            }
+
+            if(firstColumn==0){
+                firstColumn=1;
+                columns--;
+            }
+
+            float cellSize=viewport.getCellSize();
+            float left=(firstColumn-1-viewport.getLeft())*cellSize,top=(firstRow-1-viewport.getTop())*cellSize;
+            float right=left+columns*cellSize,bottom=top+rows*cellSize;
+            int k=0;
+
+            for(int j=0;j<=columns && k+4<=gridLines.length;j++){
+                gridLines[k++]=left+j*cellSize;
+                gridLines[k++]=top;
+                gridLines[k++]=left+j*cellSize;
+                gridLines[k++]=bottom;
+            }
+
+            for(int i=0;i<=rows && k+4<=gridLines.length;i++){
+                gridLines[k++]=left;
+                gridLines[k++]=top+i*cellSize;
+                gridLines[k++]=right;
+                gridLines[k++]=top+i*cellSize;
+            }
+
+            canvas.drawLines(gridLines,0,k,linePaint);
+        }
+    }
+}
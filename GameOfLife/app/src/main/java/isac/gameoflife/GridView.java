@@ -1,27 +1,41 @@
 package isac.gameoflife;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.os.AsyncTask;
-import android.support.v4.util.Pair;
+import android.os.Build;
 import android.support.v4.view.MotionEventCompat;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 import android.widget.Toast;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 
-public class GridView extends View {
+public class GridView extends View implements GameView {
 
     private final static int TIME_DOUBLE_TAP=180;
     private final static float DESIRED_DP_VALUE=80.0f;
+    //grids smaller than this number of cells are calculated on a single core
+    private final static int PARALLEL_THRESHOLD=128*128;
+    private final static int PARALLEL_GRAIN=2;
+    private final static String CHECKPOINT_FILE="checkpoint.gol";
+    //with the render thread the grid has this number of times the cells that fit the screen on each side
+    private final static int WORLD_SCALE=256;
     private float SIZE;
     private Handler handler;
     private float width;
@@ -32,21 +46,41 @@ public class GridView extends View {
     private int startY;
     private int numberOfTaps;
     private Paint whitePaint = new Paint();
+    //the cells are drawn as a bitmap with a pixel for every cell, scaled without filtering
+    private Paint bitmapPaint = new Paint();
+    private Bitmap cellsBitmap;
+    private int[] pixels;
+    private Rect gridRect,clipRect;
+    private float[] gridLines;
     private String ipAddress;
     private MainActivity activity;
     private AtomicBoolean started=new AtomicBoolean(false);
     private Long lastTapTimeMs,touchDownMs;
-    //First pair is timestamp and direction, second is x and y coordinates
-    private Pair<Pair<Long,PinchInfo.Direction>,Pair<Integer,Integer>> infoSwipe;
+    private SwipeInfo infoSwipe;
     private ReentrantLock lockInfoSwipe,lockHandler;
     private Thread thread;
     private CalculateGeneration calculateGeneration;
+    private Rule rule=Rule.CONWAY;
+    private int haloDepth=1;
+    //generations the device can calculate ahead of its slowest neighbour, 0 to go in lockstep
+    private int staleness=0;
+    private File checkpointFile;
+    private GridSurfaceView surfaceView;
+    //part of the grid on the screen, only with the render thread
+    private Viewport viewport;
+    private ScaleGestureDetector scaleDetector;
+    private float focusX,focusY;
+    //true from the beginning of a pinch to the release of the last finger
+    private boolean scaling;
 
     public GridView(final Context context) {
         super(context);
         activity=(MainActivity)context;
         whitePaint.setStyle(Paint.Style.FILL_AND_STROKE);
         whitePaint.setColor(Color.WHITE);
+        bitmapPaint.setFilterBitmap(false);
+        bitmapPaint.setAntiAlias(false);
+        clipRect=new Rect();
         ipAddress=Utils.getIpAddress();
         numberOfTaps=0;
         lastTapTimeMs=0L;
@@ -55,52 +89,62 @@ public class GridView extends View {
         SIZE=DESIRED_DP_VALUE * getResources().getDisplayMetrics().density;
         lockInfoSwipe=new ReentrantLock();
         lockHandler=new ReentrantLock();
+        checkpointFile=new File(context.getFilesDir(),CHECKPOINT_FILE);
+        viewport=null;
+        scaling=false;
+        scaleDetector=new ScaleGestureDetector(context,new ScaleGestureDetector.SimpleOnScaleGestureListener(){
+
+            @Override
+            public boolean onScaleBegin(ScaleGestureDetector detector){
+                if(viewport==null){
+                    return false;
+                }
+
+                scaling=true;
+                focusX=detector.getFocusX();
+                focusY=detector.getFocusY();
+
+                return true;
+            }
+
+            @Override
+            public boolean onScale(ScaleGestureDetector detector){
+                //the grid follows the fingers while it is zoomed
+                viewport=viewport.zoom(detector.getScaleFactor(),detector.getFocusX(),detector.getFocusY())
+                        .pan(detector.getFocusX()-focusX,detector.getFocusY()-focusY);
+                focusX=detector.getFocusX();
+                focusY=detector.getFocusY();
+                surfaceView.setViewport(viewport);
+
+                return true;
+            }
+        });
     }
 
-    /**
-     *
-     * @return the exact physical pixels per inch of the screen in the X dimension
-     */
+    @Override
     public float getXDpi() {return getResources().getDisplayMetrics().xdpi; }
 
-    /**
-     *
-     * @return the exact physical pixels per inch of the screen in the Y dimension
-     */
+    @Override
     public float getYDpi() {return getResources().getDisplayMetrics().ydpi; }
 
-    /**
-     *
-     * @return  infos about the last swipe performed
-     */
-    public Pair<Pair<Long,PinchInfo.Direction>,Pair<Integer,Integer>> getInfoSwipe(){
+    @Override
+    public SwipeInfo getInfoSwipe(){
         lockInfoSwipe.lock();
 
-        Pair<Pair<Long,PinchInfo.Direction>,Pair<Integer,Integer>> tmp;
-
-        if(infoSwipe!=null) {
-            tmp=new Pair<>(new Pair<>(infoSwipe.first.first,infoSwipe.first.second), new Pair<>(infoSwipe.second.first,infoSwipe.second.second));
-        }else{
-            tmp=null;
-        }
-
+        //the infos can't change, they are replaced by the next swipe
+        SwipeInfo tmp=infoSwipe;
 
         lockInfoSwipe.unlock();
 
         return tmp;
     }
 
-    /**
-     *
-     * @return if the game is running
-     */
+    @Override
     public boolean isStarted(){
         return started.get();
     }
 
-    /**
-     * Starts the game
-     */
+    @Override
     public void start(){
         if(started.compareAndSet(false,true)){
 
@@ -124,66 +168,107 @@ public class GridView extends View {
 
             thread.start();
 
-            activity.runOnUiThread(new Runnable() {
-                public void run() {
-                    Toast.makeText(activity, "Start", Toast.LENGTH_SHORT).show();
-                }
-            });
+            showMessage("Start");
         }
     }
 
-    /**
-     * Pauses the game
-     */
+    @Override
     public void pause(){
         if(started.compareAndSet(true,false)){
-            activity.runOnUiThread(new Runnable() {
-                public void run() {
-                    Toast.makeText(activity, "Pause", Toast.LENGTH_SHORT).show();
-                }
-            });
+            showMessage("Pause");
         }
     }
 
+    /**
+     * Draws the cells on the surface with its render thread instead of the onDraw of this view,
+     * it has to be invoked before the layout
+     * @param surfaceView the surface under this view
+     */
+    public void setSurfaceView(GridSurfaceView surfaceView){
+        this.surfaceView=surfaceView;
+    }
+
+    @Override
+    public void postInvalidate(){
+        if(surfaceView!=null){
+            calculateGeneration.publishSnapshot();
+        }else{
+            super.postInvalidate();
+        }
+    }
+
+    @Override
+    public void invalidateCells(int firstRow,int firstColumn,int lastRow,int lastColumn){
+        if(surfaceView!=null){
+            //the render thread draws the whole generation
+            calculateGeneration.publishSnapshot();
+            return;
+        }
+
+        //the lines around the cells are redrawn too
+        postInvalidate((int)((firstColumn-1)*SIZE),(int)((firstRow-1)*SIZE),
+                (int)Math.ceil(lastColumn*SIZE)+1,(int)Math.ceil(lastRow*SIZE)+1);
+    }
+
+    @Override
+    public void showMessage(final String message){
+        activity.runOnUiThread(new Runnable() {
+            public void run() {
+                Toast.makeText(activity, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
 
     @Override
     protected void onDraw(Canvas canvas) {
-        canvas.drawColor(Color.BLACK);
-        int count=0;
+        if(surfaceView!=null){
+            //the view is transparent, the surface under it shows the cells
+            return;
+        }
 
-        //draws the grid
+        canvas.drawColor(Color.BLACK);
 
-        while(count<=column){
-            float coordinate=count*SIZE;
-            canvas.drawLine(coordinate,0,coordinate,row*SIZE,whitePaint);
-            count++;
+        if(cellsBitmap==null || row==0 || column==0){
+            return;
         }
 
+        //only the rows of the invalidated regions are copied
+        canvas.getClipBounds(clipRect);
 
-        count=0;
+        int firstRow=Math.max(1,(int)(clipRect.top/SIZE)+1);
+        int lastRow=Math.min(row,(int)Math.ceil(clipRect.bottom/SIZE));
 
-        while(count<=row){
-            float coordinate=count*SIZE;
-            canvas.drawLine(0,coordinate,column*SIZE,coordinate,whitePaint);
-            count++;
-        }
+        if(firstRow<=lastRow){
+            //the generation can't be replaced while it is copied
+            calculateGeneration.lockCells();
+            calculateGeneration.getPixels(pixels,firstRow,lastRow,Color.WHITE,Color.BLACK);
+            calculateGeneration.unlockCells();
 
-        boolean [][] cellChecked=calculateGeneration.getCells();
-        //sets the alive cells
-        for (int i = 0; i < row; i++) {
-            for (int j = 0; j < column; j++) {
-                if (cellChecked[i+1][j+1]) {
-                    canvas.drawRect(j * SIZE, i * SIZE,(j + 1) * SIZE, (i + 1) * SIZE,whitePaint);
-                }
-            }
+            cellsBitmap.setPixels(pixels,(firstRow-1)*column,column,0,firstRow-1,column,lastRow-firstRow+1);
         }
 
+        canvas.drawBitmap(cellsBitmap,null,gridRect,bitmapPaint);
+
+        //draws the grid
+        canvas.drawLines(gridLines,whitePaint);
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         int action = MotionEventCompat.getActionMasked(event);
 
+        //two fingers zoom and pan the grid, one finger sets the cells and swipes
+        scaleDetector.onTouchEvent(event);
+
+        if(scaling || event.getPointerCount()>1){
+            if(action==MotionEvent.ACTION_UP || action==MotionEvent.ACTION_CANCEL){
+                scaling=false;
+            }
+
+            return true;
+        }
+
         switch(action) {
             //the finger of the user is on the screen
             case (MotionEvent.ACTION_DOWN) :
@@ -232,14 +317,55 @@ public class GridView extends View {
             height = getHeight();
             column =(int) (width /SIZE) ;
             row = (int)(height /SIZE);
+
+            if(surfaceView!=null){
+                //the screen shows a part of the grid, the neighbours see the whole grid as a larger screen
+                column*=WORLD_SCALE;
+                row*=WORLD_SCALE;
+            }
+
             //get the width and the height of the grid in inches
             width = column*Utils.pixelsToInches(SIZE,getResources().getDisplayMetrics().xdpi);
             height = row*Utils.pixelsToInches(SIZE,getResources().getDisplayMetrics().ydpi);
 
             lockHandler.lock();
 
+            //the cells of the previous grid, or of the last game if this is the first one
+            Checkpoint checkpoint=calculateGeneration!=null?calculateGeneration.getCheckpoint():loadCheckpoint();
+
             calculateGeneration=new CalculateGeneration(row,column,this);
-            handler=new Handler(this,calculateGeneration,activity,width,height,Utils.pixelsToInches(SIZE,getXDpi()));
+
+            if(surfaceView!=null){
+                SnapshotExchange snapshots=new SnapshotExchange(row,column);
+
+                viewport=Viewport.fit(row,column,getWidth(),getHeight(),SIZE);
+                calculateGeneration.setSnapshotExchange(snapshots);
+                surfaceView.setGrid(snapshots,viewport);
+            }else{
+                createRenderer();
+            }
+
+            calculateGeneration.setRule(rule);
+            calculateGeneration.setHaloDepth(haloDepth);
+            calculateGeneration.setStaleness(staleness);
+
+            //the fork/join pool is available from Lollipop
+            if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.LOLLIPOP){
+                calculateGeneration.setParallel(true,PARALLEL_THRESHOLD,PARALLEL_GRAIN);
+            }
+
+            if(checkpoint!=null){
+                calculateGeneration.restore(checkpoint);
+                rule=checkpoint.getRule();
+            }
+
+            if(surfaceView!=null){
+                //the first frame of the surface
+                calculateGeneration.publishSnapshot();
+            }
+
+            handler=new Handler(this,calculateGeneration,ipAddress,new RabbitMQ(Utils.getServerAddress(),"[user]","[user]"),
+                    width,height,Utils.pixelsToInches(SIZE,getXDpi()));
 
             lockHandler.unlock();
 
@@ -260,10 +386,7 @@ public class GridView extends View {
 
     }
 
-    /**
-     *
-     * @return the handler
-     */
+    @Override
     public Handler getGameHandler(){
 
         lockHandler.lock();
@@ -281,6 +404,129 @@ public class GridView extends View {
         return tmp;
     }
 
+    /**
+     * Saves the cells of the grid, they are restored when the grid is created again
+     */
+    public void saveCheckpoint(){
+        CalculateGeneration tmp=getCalculateGeneration();
+
+        if(tmp!=null){
+            try {
+                tmp.getCheckpoint().save(checkpointFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Adds the cells of a pattern file, RLE or plaintext, to the grid while the file is read; the cells
+     * beyond the borders in contact with the neighbours are sent to them. The rule of the pattern, if
+     * there is one, becomes the rule of the game. It reads the file, so it has to be invoked outside
+     * the UI thread.
+     * @param file
+     * @param centre true to centre the pattern in the grid, false to put it in the upper left corner
+     * @throws IOException if the file can't be read or it is not a pattern
+     */
+    public void importPattern(File file,boolean centre) throws IOException {
+        Handler tmp=getGameHandler();
+
+        if(tmp==null){
+            return;
+        }
+
+        if(started.get()){
+            showMessage("Pause the game to import a pattern");
+            return;
+        }
+
+        Reader reader=new InputStreamReader(new FileInputStream(file),"UTF-8");
+
+        try {
+            PatternReader pattern=new PatternReader(reader);
+            int rowOffset=0,columnOffset=0;
+
+            if(centre){
+                int patternRow=pattern.getHeight(),patternColumn=pattern.getWidth();
+
+                if(patternRow<0){
+                    //the plaintext files don't say their size, they are read twice
+                    PatternReader.Bounds bounds=measurePattern(file);
+                    patternRow=bounds.getHeight();
+                    patternColumn=bounds.getWidth();
+                }
+
+                rowOffset=(row-patternRow)/2;
+                columnOffset=(column-patternColumn)/2;
+            }
+
+            if(pattern.getRule()!=null){
+                setRule(pattern.getRule());
+            }
+
+            tmp.importPattern(pattern,rowOffset,columnOffset);
+        } finally {
+            reader.close();
+        }
+
+        postInvalidate();
+    }
+
+    /**
+     * Changes the depth of the ghost cells exchanged with the neighbours, the neighbours receive it
+     * when the game starts
+     * @param haloDepth
+     */
+    public void setHaloDepth(int haloDepth){
+        lockHandler.lock();
+
+        this.haloDepth=haloDepth;
+
+        if(calculateGeneration!=null){
+            calculateGeneration.setHaloDepth(haloDepth);
+        }
+
+        lockHandler.unlock();
+    }
+
+    /**
+     * Changes the generations the device can calculate ahead of its slowest neighbour, the neighbours
+     * receive it when the game starts
+     * @param staleness 0 to go in lockstep, less than ConnectedDeviceInfo.INBOX_HIGH_WATERMARK
+     */
+    public void setStaleness(int staleness){
+        //checked before the next games take it
+        if(staleness<0 || staleness>=ConnectedDeviceInfo.INBOX_HIGH_WATERMARK){
+            throw new IllegalArgumentException("Invalid staleness: "+staleness);
+        }
+
+        lockHandler.lock();
+
+        this.staleness=staleness;
+
+        if(calculateGeneration!=null){
+            calculateGeneration.setStaleness(staleness);
+        }
+
+        lockHandler.unlock();
+    }
+
+    /**
+     * Changes the rule of the game, the neighbours receive it when the game starts
+     * @param rule
+     */
+    public void setRule(Rule rule){
+        lockHandler.lock();
+
+        this.rule=rule;
+
+        if(calculateGeneration!=null){
+            calculateGeneration.setRule(rule);
+        }
+
+        lockHandler.unlock();
+    }
+
 
     /**
      * Send the message of swipe to all device that are running the application
@@ -292,7 +538,7 @@ public class GridView extends View {
     private void sendBroadcastMessage(Long timeStamp,PinchInfo.Direction direction,int x,int y){
         lockInfoSwipe.lock();
 
-        infoSwipe=new Pair<>(new Pair<>(timeStamp,direction),new Pair<>(x,y));
+        infoSwipe=new SwipeInfo(timeStamp,direction,x,y);
 
         lockInfoSwipe.unlock();
 
@@ -300,23 +546,93 @@ public class GridView extends View {
         handler.sendBroadcastMessage(new PinchInfo(ipAddress, direction,x,y,timeStamp, width, height,getXDpi(),getYDpi()).toJSON());
     }
 
+    /**
+     *
+     * @return the checkpoint saved by saveCheckpoint, null if there isn't one
+     */
+    private Checkpoint loadCheckpoint(){
+        if(checkpointFile.exists()){
+            try {
+                return Checkpoint.load(checkpointFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates the bitmap of the cells and the lines of the grid, they are reused by every frame
+     */
+    private void createRenderer(){
+        if(cellsBitmap==null || cellsBitmap.getWidth()!=column || cellsBitmap.getHeight()!=row){
+            if(cellsBitmap!=null){
+                cellsBitmap.recycle();
+            }
+
+            cellsBitmap=Bitmap.createBitmap(Math.max(1,column),Math.max(1,row),Bitmap.Config.ARGB_8888);
+            pixels=new int[Math.max(1,column)*Math.max(1,row)];
+        }
+
+        gridRect=new Rect(0,0,(int)(column*SIZE),(int)(row*SIZE));
+        gridLines=new float[4*(row+column+2)];
+
+        int k=0;
+
+        for(int j=0;j<=column;j++){
+            gridLines[k++]=j*SIZE;
+            gridLines[k++]=0;
+            gridLines[k++]=j*SIZE;
+            gridLines[k++]=row*SIZE;
+        }
+
+        for(int i=0;i<=row;i++){
+            gridLines[k++]=0;
+            gridLines[k++]=i*SIZE;
+            gridLines[k++]=column*SIZE;
+            gridLines[k++]=i*SIZE;
+        }
+    }
+
+    /**
+     *
+     * @param file
+     * @return the size of the pattern in the file
+     * @throws IOException
+     */
+    private PatternReader.Bounds measurePattern(File file) throws IOException {
+        PatternReader.Bounds bounds=new PatternReader.Bounds();
+        Reader reader=new InputStreamReader(new FileInputStream(file),"UTF-8");
+
+        try {
+            new PatternReader(reader).read(bounds);
+        } finally {
+            reader.close();
+        }
+
+        return bounds;
+    }
+
     /**
      * Set the state of the cell
      * @param x X coordinate where the user has pressed
      * @param y Y coordinate where the user has pressed
      */
     private void setCell(float x,float y){
-        int column = (int) (x / SIZE);
-        int row = (int) (y / SIZE);
+        int column = (int) (x / SIZE)+1;
+        int row = (int) (y / SIZE)+1;
 
-        if(column<this.column && row<this.row) {
-            column+=1;
-            row+=1;
+        if(viewport!=null){
+            column=viewport.getColumn(x);
+            row=viewport.getRow(y);
+        }
 
+        if(column>=1 && row>=1 && column<=this.column && row<=this.row) {
             calculateGeneration.setCell(row,column);
 
-            //force the redraw of the grid
-            invalidate();
+            //force the redraw of the cell
+            invalidateCells(row,column,row,column);
         }
     }
 
@@ -328,6 +644,13 @@ public class GridView extends View {
     private void evaluateSwipe(int stopX,int stopY){
         long timeStamp = System.currentTimeMillis();
         PinchInfo.Direction direction=null;
+        //the neighbours receive the point of the grid, as if the whole grid was on the screen
+        int x=stopX,y=stopY;
+
+        if(viewport!=null){
+            x=(int)(Math.max(0,Math.min(column,viewport.toColumns(stopX)))*SIZE);
+            y=(int)(Math.max(0,Math.min(row,viewport.toRows(stopY)))*SIZE);
+        }
 
         if (Math.abs(startX - stopX) >=10 && Math.abs(startY - stopY) <= 80){
             //swipe on X axis
@@ -337,7 +660,7 @@ public class GridView extends View {
                 direction=PinchInfo.Direction.LEFT;
             }
 
-            sendBroadcastMessage(timeStamp,direction,stopX,stopY);
+            sendBroadcastMessage(timeStamp,direction,x,y);
 
         } else if (Math.abs(startX - stopX) <=80 && Math.abs(startY - stopY) >= 10){
             //swipe on Y axis
@@ -347,7 +670,7 @@ public class GridView extends View {
                 direction=PinchInfo.Direction.UP;
             }
 
-            sendBroadcastMessage(timeStamp,direction,stopX,stopY);
+            sendBroadcastMessage(timeStamp,direction,x,y);
         }
     }
 
@@ -376,6 +699,12 @@ public class GridView extends View {
                     try {
                         message.put("type","start");
                         message.put(PinchInfo.ADDRESS,ipAddress);
+                        //the neighbours play with the same rule
+                        message.put("rule",calculateGeneration.getRule().toString());
+                        message.put("halo",calculateGeneration.getHaloDepth());
+                        //the neighbours count the generations from this device
+                        message.put("staleness",calculateGeneration.getStaleness());
+                        message.put("generation",calculateGeneration.getGeneration());
                     } catch (JSONException e) {
                         e.printStackTrace();
                     }
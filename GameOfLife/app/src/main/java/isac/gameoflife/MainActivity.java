@@ -7,12 +7,17 @@ import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 import android.widget.Toast;
 
 public class MainActivity extends AppCompatActivity {
 
+    //the cells are drawn by a render thread on a surface under the grid view
+    private final static boolean RENDER_THREAD=true;
     private GridView gridView;
+    private View contentView;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,6 +38,9 @@ public class MainActivity extends AppCompatActivity {
     protected void onStop() {
         super.onStop();
 
+        //the grid is created again when the activity restarts
+        gridView.saveCheckpoint();
+
         Handler handler=gridView.getGameHandler();
 
         if(handler!=null){
@@ -40,7 +48,7 @@ public class MainActivity extends AppCompatActivity {
             handler.closeConnection();
         }
 
-        ((ViewGroup)gridView.getParent()).removeView(gridView);
+        ((ViewGroup)contentView.getParent()).removeView(contentView);
     }
 
     /**
@@ -49,7 +57,20 @@ public class MainActivity extends AppCompatActivity {
     private void initialize(){
 
         gridView=new GridView(this);
-        setContentView(gridView);
+
+        if(RENDER_THREAD){
+            FrameLayout layout=new FrameLayout(this);
+            GridSurfaceView surfaceView=new GridSurfaceView(this);
+
+            gridView.setSurfaceView(surfaceView);
+            layout.addView(surfaceView);
+            layout.addView(gridView);
+            contentView=layout;
+        }else{
+            contentView=gridView;
+        }
+
+        setContentView(contentView);
 
         SensorManager sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
         Sensor sensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
@@ -0,0 +1,96 @@
+package isac.gameoflife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Extraction of the cells sent to a neighbour, for every generation. The neighbour has the same
+ * size and it is on the right, aligned to the grid, so the whole column is sent.
+ * The cells are sent as a list in a JSON message or as bits in a binary frame.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value=1,jvmArgsAppend="-Xmx6g")
+public class BorderBenchmark {
+
+    @Param({"64","1024","4096","16384"})
+    public int size;
+
+    @Param({"1","3"})
+    public int haloDepth;
+
+    private ConnectedDeviceInfo device;
+    private byte[] address,frame;
+
+    @Setup
+    public void setup(){
+        CalculateGeneration calculateGeneration=new CalculateGeneration(size,size,null);
+        Random random=new Random(size);
+
+        calculateGeneration.setHaloDepth(haloDepth);
+        calculateGeneration.updateHaloDepth();
+
+        for(int i=1;i<=size;i++){
+            for(int j=1;j<=size;j++){
+                if(Worlds.isAlive(Worlds.Density.SOUP,i,j,random)){
+                    calculateGeneration.setCell(i,j);
+                }
+            }
+        }
+
+        /*
+            cells of one inch and 2 pixels per inch: both the swipes end in the middle of a cell
+            at half of the height, so the indices go from 1 to size
+        */
+        int y=size+1;
+
+        device=new ConnectedDeviceInfo(1,PinchInfo.Direction.LEFT,PinchInfo.Direction.RIGHT,
+                0,y,size,size,size,size,2*size,y,"sender","receiver",calculateGeneration,2,2,2,2);
+        device.calculateInfo();
+
+        address="192.168.1.1".getBytes();
+        frame=frame();
+    }
+
+    /**
+     *
+     * @return the cells sent to the neighbour
+     */
+    @Benchmark
+    public List<Boolean> cellsValues(){
+        return device.getCellsValues();
+    }
+
+    /**
+     *
+     * @return the frame of the cells sent to the neighbour
+     */
+    @Benchmark
+    public byte[] frame(){
+        int length=device.getCells();
+
+        return CellsFrame.encode(address,0,device.getCellsBits(),length);
+    }
+
+    /**
+     *
+     * @return the cells read from the frame received by the neighbour
+     */
+    @Benchmark
+    public CellsFrame decodeFrame(){
+        return CellsFrame.decode(frame);
+    }
+}
@@ -0,0 +1,60 @@
+package isac.gameoflife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Generations per second of every engine, on grids from the size of a phone to 16384x16384 cells.
+ * Every iteration starts again from the same grid, so the soups and the gliders are measured while
+ * they are evolving.
+ * The hashlife engine on the largest soups needs a lot of time and memory: a subset of the
+ * parameters can be chosen with -p, for example -p engine=PACKED.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+//the array engine needs 2 bytes for every cell
+@Fork(value=1,jvmArgsAppend="-Xmx6g")
+public class GenerationBenchmark {
+
+    @Param({"64","1024","4096","16384"})
+    public int size;
+
+    @Param({"SOUP","EMPTY","GLIDERS"})
+    public Worlds.Density density;
+
+    @Param({"ARRAY","PACKED","HASHLIFE","SPARSE"})
+    public CalculateGeneration.Engine engine;
+
+    private GenerationEngine generationEngine;
+
+    @Setup(Level.Iteration)
+    public void setup(){
+        generationEngine=Worlds.createEngine(engine,size,size);
+        Worlds.fill(generationEngine,size,size,density,size);
+    }
+
+    /**
+     * A generation of the engine alone, without the locks and the work that CalculateGeneration does
+     * around it: StepBenchmark measures the whole step
+     * @return the number of tiles that were skipped
+     */
+    @Benchmark
+    public int generation(){
+        generationEngine.calculateNextGen();
+        generationEngine.swap();
+
+        return generationEngine.getSkippedTiles();
+    }
+}
@@ -0,0 +1,71 @@
+package isac.gameoflife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Generations per second of CalculateGeneration without neighbours, as the loop of the game calculates
+ * them: the locks, the period detection and the reset of the ghost cells are measured with the engine.
+ * The difference with GenerationBenchmark is the cost of CalculateGeneration around the engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value=1,jvmArgsAppend="-Xmx6g")
+public class StepBenchmark {
+
+    @Param({"64","1024","4096","16384"})
+    public int size;
+
+    @Param({"SOUP","EMPTY","GLIDERS"})
+    public Worlds.Density density;
+
+    @Param({"ARRAY","PACKED","HASHLIFE","SPARSE"})
+    public CalculateGeneration.Engine engine;
+
+    //only the packed engine looks for the periods
+    @Param({"false","true"})
+    public boolean periodDetection;
+
+    private CalculateGeneration calculateGeneration;
+
+    @Setup(Level.Iteration)
+    public void setup(){
+        Random random=new Random(size);
+
+        calculateGeneration=new CalculateGeneration(size,size,null,engine);
+        calculateGeneration.setPeriodDetection(periodDetection);
+
+        for(int i=1;i<=size;i++){
+            for(int j=1;j<=size;j++){
+                if(Worlds.isAlive(density,i,j,random)){
+                    calculateGeneration.setCell(i,j);
+                }
+            }
+        }
+    }
+
+    /**
+     * A generation, like the loop of CalculateGeneration without neighbours
+     * @return the period of the cells
+     */
+    @Benchmark
+    public int step(){
+        calculateGeneration.calculateNextGen();
+        calculateGeneration.resetGhostCells();
+
+        return calculateGeneration.getPeriod();
+    }
+}
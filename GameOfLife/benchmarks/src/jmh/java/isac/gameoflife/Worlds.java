@@ -0,0 +1,90 @@
+package isac.gameoflife;
+
+import java.util.Random;
+
+
+/**
+ * Grids used by the benchmarks
+ */
+class Worlds {
+
+    /**
+     * Cells of a grid
+     */
+    enum Density {
+        //a third of the cells alive at random
+        SOUP,
+        EMPTY,
+        //a glider every 8x8 block, they collide and leave the grid
+        GLIDERS
+    }
+
+    //cells of a glider going down to the right, in a 3x3 block
+    private final static int[][] GLIDER={{0,1},{1,2},{2,0},{2,1},{2,2}};
+
+    private Worlds(){
+    }
+
+    /**
+     *
+     * @param engine
+     * @param row
+     * @param column
+     * @return a new engine, the array engine uses its default kernel
+     */
+    static GenerationEngine createEngine(CalculateGeneration.Engine engine,int row,int column){
+        switch(engine){
+            case ARRAY:return new ArrayEngine(row,column);
+            case HASHLIFE:return new HashLifeEngine(row,column);
+            case SPARSE:return new SparseEngine(row,column);
+            default:return new PackedEngine(row,column);
+        }
+    }
+
+    /**
+     *
+     * @param density
+     * @param row row of the grid, from 1
+     * @param column column of the grid, from 1
+     * @param random the same seed gives the same grid
+     * @return true if the cell is alive at the beginning
+     */
+    static boolean isAlive(Density density,int row,int column,Random random){
+        switch(density){
+            case SOUP:
+                return random.nextInt(3)==0;
+            case GLIDERS:
+                int r=(row-1)%8,c=(column-1)%8;
+
+                for(int[] cell : GLIDER){
+                    if(cell[0]==r && cell[1]==c){
+                        return true;
+                    }
+                }
+
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Sets the cells of a new engine, the ghost cells stay dead
+     * @param engine
+     * @param row
+     * @param column
+     * @param density
+     * @param seed
+     */
+    static void fill(GenerationEngine engine,int row,int column,Density density,long seed){
+        Random random=new Random(seed);
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                if(isAlive(density,i,j,random)){
+                    engine.setCell(i,j,true);
+                }
+            }
+        }
+    }
+}
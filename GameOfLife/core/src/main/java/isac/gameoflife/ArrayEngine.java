@@ -0,0 +1,333 @@
+package isac.gameoflife;
+
+import java.util.HashMap;
+
+
+/**
+ * Engine that keeps a boolean for every cell. The next generation is calculated either counting the
+ * neighbours of each cell one by one or looking up blocks of cells in a precomputed table.
+ */
+public class ArrayEngine extends TiledEngine {
+
+    /**
+     * Way of calculating the next state of the cells
+     */
+    public enum Kernel {
+        //counts the neighbours of every cell
+        LOOP,
+        //finds the next 2x2 block of cells in a table, indexed by the 4x4 block around it
+        LOOKUP_TABLE
+    }
+
+    private final static int TILE_SIZE=16;
+    //tables of the rules already used, they are shared by all the engines
+    private final static HashMap<Rule,Tables> TABLES=new HashMap<>();
+    private boolean[][] cells,next;
+    private Kernel kernel;
+    private Rule rule;
+    private Tables tables;
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     */
+    public ArrayEngine(int row,int column){
+        super(row,column,TILE_SIZE,TILE_SIZE);
+        cells=new boolean[row+2][column+2];
+        next=new boolean[row+2][column+2];
+        kernel=Kernel.LOOKUP_TABLE;
+        rule=Rule.CONWAY;
+        tables=tablesOf(rule);
+    }
+
+    /**
+     * The rule can't be a Generations rule
+     * @param rule
+     */
+    @Override
+    public void setRule(Rule rule){
+        if(rule.getStates()>2){
+            throw new IllegalArgumentException("Generations rules are not supported");
+        }
+
+        this.rule=rule;
+        tables=tablesOf(rule);
+        markAllTiles();
+    }
+
+    /**
+     * Changes the way of calculating the next generations, the result does not change
+     * @param kernel
+     */
+    public void setKernel(Kernel kernel){
+        this.kernel=kernel;
+    }
+
+    /**
+     *
+     * @return the way of calculating the next generations
+     */
+    public Kernel getKernel(){
+        return kernel;
+    }
+
+    @Override
+    public boolean getCell(int row,int column){
+        return cells[row][column];
+    }
+
+    @Override
+    public boolean getNextCell(int row,int column){
+        return next[row][column];
+    }
+
+    @Override
+    public void setCell(int row,int column,boolean value){
+        if(cells[row][column]!=value){
+            cells[row][column]=value;
+            markCell(row,column);
+        }
+    }
+
+    @Override
+    public boolean[][] getCells(){
+        return cells;
+    }
+
+    @Override
+    public void resetGhostCells(){
+        for(int i=0;i<column+2;i++){
+            setCell(0,i,false);
+            setCell(row+1,i,false);
+        }
+
+        for(int i=0;i<row+2;i++){
+            setCell(i,0,false);
+            setCell(i,column+1,false);
+        }
+    }
+
+    @Override
+    protected boolean calculateTile(int firstRow,int lastRow,int firstColumn,int lastColumn){
+        if(kernel==Kernel.LOOKUP_TABLE){
+            return calculateTileWithTable(firstRow,lastRow,firstColumn,lastColumn);
+        }
+
+        boolean changed=false;
+
+        for(int i=firstRow;i<=lastRow;i++){
+            for(int j=firstColumn;j<=lastColumn;j++){
+                changed|=setNext(i,j,rule.isAlive(cells[i][j],neighboursAlive(i,j)));
+            }
+        }
+
+        return changed;
+    }
+
+    @Override
+    protected void swapBuffers(){
+        boolean[][] tmp=cells;
+        cells=next;
+        next=tmp;
+    }
+
+    @Override
+    protected void clearPreviousGhostCells(){
+        for(int i=0;i<column+2;i++){
+            clearPreviousGhostCell(0,i);
+            clearPreviousGhostCell(row+1,i);
+        }
+
+        for(int i=0;i<row+2;i++){
+            clearPreviousGhostCell(i,0);
+            clearPreviousGhostCell(i,column+1);
+        }
+    }
+
+    /**
+     * Counts how many neighbors are alive (game of life logic)
+     * @param i Row of the matrix
+     * @param j Column of the matrix
+     * @return the number of live neighbors, the cell itself excluded
+     */
+    private int neighboursAlive(int i,int j){
+        int neighbours=0;
+
+        for(int row_index=i-1;row_index<=i+1;row_index++){
+            for(int column_index=j-1;column_index<=j+1;column_index++){
+                if(cells[row_index][column_index] && (row_index!=i || column_index!=j)){
+                    neighbours++;
+                }
+            }
+        }
+
+        return neighbours;
+    }
+
+    /**
+     * Calculates the tile two rows and two columns at a time, the last row and column are calculated
+     * cell by cell if the tile has an odd number of them
+     * @param firstRow
+     * @param lastRow
+     * @param firstColumn
+     * @param lastColumn
+     * @return true if at least one cell of the tile has changed, false otherwise
+     */
+    private boolean calculateTileWithTable(int firstRow,int lastRow,int firstColumn,int lastColumn){
+        byte[] blocks=tables.blocks;
+        boolean changed=false;
+        int i=firstRow;
+
+        for(;i<lastRow;i+=2){
+            boolean[] up=cells[i-1],middle=cells[i],down=cells[i+1],below=cells[i+2];
+            int j=firstColumn;
+            //the columns on the left of the block are already in the index, every step adds the two on the right
+            int index=column(up,middle,down,below,j-1)|(column(up,middle,down,below,j)<<4);
+
+            for(;j<lastColumn;j+=2){
+                index|=(column(up,middle,down,below,j+1)<<8)|(column(up,middle,down,below,j+2)<<12);
+                int block=blocks[index];
+
+                changed|=setNext(i,j,(block&1)!=0);
+                changed|=setNext(i+1,j,(block&2)!=0);
+                changed|=setNext(i,j+1,(block&4)!=0);
+                changed|=setNext(i+1,j+1,(block&8)!=0);
+
+                index>>>=8;
+            }
+
+            if(j==lastColumn){
+                changed|=calculateCell(i,j);
+                changed|=calculateCell(i+1,j);
+            }
+        }
+
+        if(i==lastRow){
+            for(int j=firstColumn;j<=lastColumn;j++){
+                changed|=calculateCell(i,j);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Calculates a single cell with the table of the 3x3 blocks
+     * @param i Row of the matrix
+     * @param j Column of the matrix
+     * @return true if the cell has changed, false otherwise
+     */
+    private boolean calculateCell(int i,int j){
+        int index=0;
+
+        for(int c=0;c<3;c++){
+            for(int r=0;r<3;r++){
+                if(cells[i-1+r][j-1+c]){
+                    index|=1<<(c*3+r);
+                }
+            }
+        }
+
+        return setNext(i,j,tables.cells[index]);
+    }
+
+    /**
+     * Writes the cell in the back buffer
+     * @param i Row of the matrix
+     * @param j Column of the matrix
+     * @param value
+     * @return true if the cell has changed, false otherwise
+     */
+    private boolean setNext(int i,int j,boolean value){
+        next[i][j]=value;
+        return value!=cells[i][j];
+    }
+
+    /**
+     *
+     * @param up
+     * @param middle
+     * @param down
+     * @param below
+     * @param j
+     * @return the four cells of the column as the bits of a nibble, the upper cell is the lowest bit
+     */
+    private static int column(boolean[] up,boolean[] middle,boolean[] down,boolean[] below,int j){
+        return (up[j]?1:0)|(middle[j]?2:0)|(down[j]?4:0)|(below[j]?8:0);
+    }
+
+    /**
+     * The tables are built the first time a rule is used
+     * @param rule
+     * @return the tables of the rule
+     */
+    private static synchronized Tables tablesOf(Rule rule){
+        Tables tmp=TABLES.get(rule);
+
+        if(tmp==null){
+            tmp=new Tables(rule);
+            TABLES.put(rule,tmp);
+        }
+
+        return tmp;
+    }
+
+    /**
+     * Clears a ghost cell of the back buffer
+     * @param row
+     * @param column
+     */
+    private void clearPreviousGhostCell(int row,int column){
+        if(next[row][column]){
+            next[row][column]=false;
+            markCell(row,column);
+        }
+    }
+
+    /**
+     * Tables of a rule with the next state of blocks of cells
+     */
+    private static class Tables {
+
+        //next state of the 2x2 block at the center of every 4x4 block
+        private final byte[] blocks;
+        //next state of the cell at the center of every 3x3 block, for the rows and columns left out of the 2x2 blocks
+        private final boolean[] cells;
+
+        private Tables(Rule rule){
+            blocks=new byte[1<<16];
+            cells=new boolean[1<<9];
+
+            //the bit of the cell in column c and row r of the 4x4 block is c*4+r
+            for(int index=0;index<blocks.length;index++){
+                int block=0;
+
+                for(int r=1;r<=2;r++){
+                    for(int c=1;c<=2;c++){
+                        int neighbours=0;
+
+                        for(int i=r-1;i<=r+1;i++){
+                            for(int j=c-1;j<=c+1;j++){
+                                if((i!=r || j!=c) && ((index>>>(j*4+i))&1)!=0){
+                                    neighbours++;
+                                }
+                            }
+                        }
+
+                        if(rule.isAlive(((index>>>(c*4+r))&1)!=0,neighbours)){
+                            block|=1<<((c-1)*2+r-1);
+                        }
+                    }
+                }
+
+                blocks[index]=(byte)block;
+            }
+
+            //the bit of the cell in column c and row r of the 3x3 block is c*3+r
+            for(int index=0;index<cells.length;index++){
+                cells[index]=rule.isAlive((index&(1<<4))!=0,Integer.bitCount(index&~(1<<4)));
+            }
+        }
+    }
+}
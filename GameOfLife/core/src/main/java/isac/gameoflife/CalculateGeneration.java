@@ -0,0 +1,1244 @@
+package isac.gameoflife;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+public class CalculateGeneration {
+
+    private final static int MAX_PERIOD=8;
+    //with more regions the whole view is shown again
+    private final static int MAX_REGIONS=32;
+
+    /**
+     * Representation of the cells used to calculate the generations
+     */
+    public enum Engine {
+        ARRAY,PACKED,HASHLIFE,SPARSE
+    }
+
+    private GenerationEngine engine;
+    private Engine engineType;
+    private int row,column;
+    private GameView gameView;
+    private Handler handler;
+    private ReentrantLock lockCells;
+    //rule requested and rule of the engine: the engine changes it before calculating the next generation
+    private volatile Rule rule;
+    private Rule engineRule;
+    private boolean parallel;
+    private int parallelThreshold,grain;
+    private ArrayEngine.Kernel kernel;
+    //depth of the ghost cells exchanged with the neighbours, the depth requested is used from the next game
+    private int haloDepth;
+    private volatile int requestedHaloDepth;
+    //generations the device can calculate ahead of its slowest neighbour, 0 to go in lockstep
+    private volatile int staleness;
+    //parts of the halo received from the neighbours in the last exchange
+    private List<Band> bands;
+    private PeriodDetector periodDetector;
+    //true to replay the cycles of the packed engine, the other engines don't look for them
+    private volatile boolean periodDetection;
+    //number of the current generation, it changes with the cells
+    private long generation;
+    //file of the periodic checkpoints, null if they are disabled
+    private volatile File checkpointFile;
+    private volatile int checkpointPeriod;
+    private AtomicBoolean checkpointSaving;
+    //true while the border of the next generation is sent, before the rest of the generation is calculated
+    private boolean sendingNextBorder;
+    //true if the engine knows the regions changed by the last generation
+    private boolean regionsKnown;
+    private int[] regions;
+    //exchange of the snapshots with the render thread, null if the view is invalidated
+    private volatile SnapshotExchange snapshots;
+    //number of engines created, the indices of the cells change with the engine
+    private int layout;
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @param gameView
+     */
+    public CalculateGeneration(int row,int column,GameView gameView){
+        this(row,column,gameView,Engine.PACKED);
+    }
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @param gameView
+     * @param engine representation of the cells
+     */
+    public CalculateGeneration(int row,int column,GameView gameView,Engine engine){
+        this.row=row;
+        this.column=column;
+        this.gameView=gameView;
+        handler=null;
+        lockCells=new ReentrantLock();
+        rule=Rule.CONWAY;
+        engineRule=Rule.CONWAY;
+        parallel=false;
+        kernel=null;
+        haloDepth=1;
+        requestedHaloDepth=1;
+        staleness=0;
+        bands=new ArrayList<>();
+        periodDetector=new PeriodDetector(MAX_PERIOD);
+        periodDetection=false;
+        generation=0;
+        checkpointFile=null;
+        checkpointSaving=new AtomicBoolean(false);
+        sendingNextBorder=false;
+        regionsKnown=false;
+        regions=new int[4*MAX_REGIONS];
+        snapshots=null;
+        layout=0;
+        engineType=engine;
+        this.engine=createEngine(engineRule);
+    }
+
+    /**
+     * Set the state of the cell (dead or alive)
+     * @param row
+     * @param column
+     */
+    public void setCell(int row,int column){
+        lockCells.lock();
+        int offset=haloDepth-1;
+        engine.setCell(row+offset,column+offset,!engine.getCell(row+offset,column+offset));
+        lockCells.unlock();
+    }
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @return true if the cell is alive, false otherwise
+     */
+    public boolean getCell(int row,int column){
+        int offset=haloDepth-1;
+        return engine.getCell(row+offset,column+offset);
+    }
+
+    /**
+     * The indices of getCellIndex are valid while the layout doesn't change: it changes with the
+     * engine, when the depth of the halo or the kind of rule change.
+     * @return number of the layout of the cells
+     */
+    public int getLayout(){
+        return layout;
+    }
+
+    /**
+     * Index of a cell for the tables of gatherCells and scatterCells
+     * @param row from 1-getHaloDepth() to getRow()+getHaloDepth(), the rows outside the grid are the halo
+     * @param column from 1-getHaloDepth() to getColumn()+getHaloDepth()
+     * @return the index of the cell, valid while getLayout() doesn't change
+     */
+    public int getCellIndex(int row,int column){
+        int offset=haloDepth-1;
+
+        return (row+offset)*getStride()+column+offset;
+    }
+
+    /**
+     * Writes the cells of the table as bits, reading the generation sent to the neighbours: the next
+     * one while its border is sent by the pipelined step, the current one otherwise. It has to be
+     * invoked by the thread that calculates the generations.
+     * @param table for every bit the index of the cell from getCellIndex, -1 for a dead cell
+     * @param length number of cells
+     * @param bits the cells, 64 in every word
+     */
+    public void gatherCells(int[] table,int length,long[] bits){
+        if(engine instanceof PackedEngine){
+            ((PackedEngine)engine).gather(table,length,bits,sendingNextBorder);
+            return;
+        }
+
+        int stride=getStride();
+
+        for(int w=0,k=0;k<length;w++){
+            long word=0;
+
+            for(int b=0;b<64 && k<length;b++,k++){
+                int index=table[k];
+
+                if(index>=0 && (sendingNextBorder?((TiledEngine)engine).getNextCell(index/stride,index%stride)
+                        :engine.getCell(index/stride,index%stride))){
+                    word|=1L<<b;
+                }
+            }
+
+            bits[w]=word;
+        }
+    }
+
+    /**
+     * Sets the cells of the table to the bits
+     * @param table for every bit the index of the cell from getCellIndex
+     * @param length number of cells
+     * @param bits the cells, 64 in every word
+     */
+    private void scatterCells(int[] table,int length,long[] bits){
+        if(engine instanceof PackedEngine){
+            ((PackedEngine)engine).scatter(table,length,bits);
+            return;
+        }
+
+        int stride=getStride();
+
+        for(int k=0;k<length;k++){
+            engine.setCell(table[k]/stride,table[k]%stride,((bits[k>>>6]>>>(k&63))&1L)!=0);
+        }
+    }
+
+    /**
+     * It has to be invoked by the thread that calculates the generations
+     * @return number of the generation read by gatherCells
+     */
+    long getSentGeneration(){
+        return sendingNextBorder?generation+1:generation;
+    }
+
+    /**
+     * Changes the number of the current generation, so that the devices of the game count the
+     * generations in the same way. It must not be invoked while the generations are calculated.
+     * @param generation
+     * @return true if the number changed, false if it was already that one
+     */
+    boolean setGeneration(long generation){
+        lockCells.lock();
+
+        boolean changed=this.generation!=generation;
+
+        this.generation=generation;
+
+        lockCells.unlock();
+
+        return changed;
+    }
+
+    /**
+     * The matrix is the current generation: if it is read outside the thread that calculates the
+     * generations, it has to be read between lockCells and unlockCells.
+     * The matrix includes the halo, so the cell (i,j) is at (i+getOffset(),j+getOffset()).
+     * @return the matrix of cells
+     */
+    public boolean[][] getCells(){
+        return engine.getCells();
+    }
+
+    /**
+     * Prevents the current generation from being replaced by the next one until unlockCells is invoked
+     */
+    public void lockCells(){
+        lockCells.lock();
+    }
+
+    /**
+     * Allows the current generation to be replaced by the next one
+     */
+    public void unlockCells(){
+        lockCells.unlock();
+    }
+
+    /**
+     * Enables the calculation of the generations on all the cores, if the engine supports it.
+     * On Android it requires API level 21.
+     * @param parallel true to calculate in parallel, false otherwise
+     * @param parallelThreshold minimum number of cells of the grid to calculate it in parallel
+     * @param grain maximum number of rows of tiles calculated by a single task
+     */
+    public void setParallel(boolean parallel,int parallelThreshold,int grain){
+        lockCells.lock();
+        this.parallel=parallel;
+        this.parallelThreshold=parallelThreshold;
+        this.grain=grain;
+        configure(engine);
+        lockCells.unlock();
+    }
+
+    /**
+     * Changes the way of calculating the next generations, if the engine is ARRAY
+     * @param kernel
+     */
+    public void setKernel(ArrayEngine.Kernel kernel){
+        lockCells.lock();
+        this.kernel=kernel;
+        configure(engine);
+        lockCells.unlock();
+    }
+
+    /**
+     * Changes the rule of the game. The engine uses it from the next generation: a Generations rule
+     * replaces the engine with a GenerationsEngine, keeping the live cells.
+     * @param rule
+     */
+    public void setRule(Rule rule){
+        this.rule=rule;
+    }
+
+    /**
+     *
+     * @return the rule of the game
+     */
+    public Rule getRule(){
+        return rule;
+    }
+
+    /**
+     * Changes the depth of the ghost cells exchanged with the neighbours: the device receives k rows
+     * of cells from every neighbour and calculates k generations before the next exchange.
+     * The depth is used from the next game, every device of the game has to use the same one.
+     * @param haloDepth
+     */
+    public void setHaloDepth(int haloDepth){
+        if(haloDepth<1){
+            throw new IllegalArgumentException("Invalid halo depth: "+haloDepth);
+        }
+
+        requestedHaloDepth=haloDepth;
+    }
+
+    /**
+     *
+     * @return the depth of the ghost cells requested for the next game
+     */
+    public int getHaloDepth(){
+        return requestedHaloDepth;
+    }
+
+    /**
+     * Changes the generations the device can calculate ahead of its slowest neighbour: while the cells
+     * of a neighbour are missing, the last ones received are used again if they are older of no more
+     * than staleness generations. With 0 the devices go in lockstep and the generations are exact,
+     * otherwise the cells along the borders can differ. Every device of the game has to use the same one.
+     * The device can't be so far ahead that its strips fill the inbox of a neighbour before it is stopped.
+     * @param staleness from 0 to ConnectedDeviceInfo.INBOX_HIGH_WATERMARK-1
+     */
+    public void setStaleness(int staleness){
+        if(staleness<0 || staleness>=ConnectedDeviceInfo.INBOX_HIGH_WATERMARK){
+            throw new IllegalArgumentException("Invalid staleness: "+staleness);
+        }
+
+        this.staleness=staleness;
+    }
+
+    /**
+     *
+     * @return the generations the device can calculate ahead of its slowest neighbour
+     */
+    public int getStaleness(){
+        return staleness;
+    }
+
+    /**
+     * The rows of a halo of k cells are longer of k cells on both the sides, so that the corners of
+     * the grid are right for k generations; with a halo of one cell only the cells in front of the
+     * neighbour are exchanged.
+     * @return number of cells exchanged on both the sides of every row of the halo
+     */
+    public int getHaloExtension(){
+        return haloDepth==1?0:haloDepth;
+    }
+
+    /**
+     * The engine has the cells of the halo around the grid, except the ones of the ghost cells
+     * @return difference between the indices of a cell in the engine and in the grid
+     */
+    public int getOffset(){
+        return haloDepth-1;
+    }
+
+    /**
+     * Looks for the cells that repeat themselves, to copy their next generation instead of calculating it.
+     * It costs a copy of the cells for every generation, so it is disabled by default; it works only with
+     * the packed engine and the rules with two states.
+     * @param periodDetection
+     */
+    public void setPeriodDetection(boolean periodDetection){
+        this.periodDetection=periodDetection;
+    }
+
+    /**
+     *
+     * @return the period of the cells in the last generation, ghost cells included: 1 for a still life,
+     * 0 if they did not repeat in the last generations, if the detection is disabled or if the
+     * engine can't use it
+     */
+    public int getPeriod(){
+        return periodDetector.getPeriod();
+    }
+
+    /**
+     *
+     * @return number of the current generation
+     */
+    public long getGeneration(){
+        lockCells.lock();
+        long tmp=generation;
+        lockCells.unlock();
+
+        return tmp;
+    }
+
+    /**
+     * Writes the cells of the grid as pixels, without the halo. If it is invoked outside the thread
+     * that calculates the generations, it has to be invoked between lockCells and unlockCells.
+     * Only the pixels of the rows from firstRow to lastRow are written.
+     * @param pixels a pixel for every cell, row by row, at least getRow()*getColumn()
+     * @param firstRow from 1
+     * @param lastRow up to getRow()
+     * @param alive color of the alive cells
+     * @param dead color of the dead cells
+     */
+    public void getPixels(int[] pixels,int firstRow,int lastRow,int alive,int dead){
+        int offset=haloDepth-1;
+
+        if(engine instanceof PackedEngine){
+            ((PackedEngine)engine).getPixels(offset,firstRow,lastRow,column,pixels,alive,dead);
+        }else{
+            for(int i=firstRow,k=(firstRow-1)*column;i<=lastRow;i++){
+                for(int j=1;j<=column;j++,k++){
+                    pixels[k]=engine.getCell(i+offset,j+offset)?alive:dead;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a checkpoint of the current generation. Only the cells are copied while the generation
+     * can't change: with the packed engine they are copied a word at a time.
+     * @return the checkpoint, with the neighbours of the handler of the view
+     */
+    public Checkpoint getCheckpoint(){
+        List<Checkpoint.Neighbour> neighbours=new ArrayList<>();
+        Handler tmp=gameView!=null?gameView.getGameHandler():null;
+
+        if(tmp!=null){
+            neighbours=tmp.getNeighbours();
+        }
+
+        long[] cells=new long[row*Checkpoint.getWordsPerRow(column)];
+
+        lockCells.lock();
+
+        copyCells(cells);
+
+        Checkpoint checkpoint=new Checkpoint(row,column,generation,rule,neighbours,cells);
+
+        lockCells.unlock();
+
+        return checkpoint;
+    }
+
+    /**
+     * Publishes the current generation to the renderer of the exchange, if there is one. The cells
+     * are copied a word at a time with the packed engine.
+     */
+    public void publishSnapshot(){
+        SnapshotExchange tmp=snapshots;
+
+        if(tmp!=null){
+            SnapshotExchange.Snapshot snapshot=tmp.beginPublish();
+
+            lockCells.lock();
+            copyCells(snapshot.getCells());
+            long current=generation;
+            lockCells.unlock();
+
+            tmp.publish(current);
+        }
+    }
+
+    /**
+     * Sets the exchange where every generation is published, instead of invalidating the view
+     * @param snapshots null to invalidate the view
+     */
+    public void setSnapshotExchange(SnapshotExchange snapshots){
+        this.snapshots=snapshots;
+    }
+
+    /**
+     * Replaces the cells, the generation and the rule with the ones of the checkpoint; it has to be
+     * invoked while the game is not running. If the checkpoint has another size, only the cells
+     * of both the grids are restored. The neighbours are not connected again.
+     * @param checkpoint
+     */
+    public void restore(Checkpoint checkpoint){
+        setRule(checkpoint.getRule());
+
+        lockCells.lock();
+
+        int offset=haloDepth-1;
+
+        if(engine instanceof PackedEngine && checkpoint.getRow()==row && checkpoint.getColumn()==column){
+            ((PackedEngine)engine).setGrid(offset,checkpoint);
+        }else{
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    boolean value=i<=checkpoint.getRow() && j<=checkpoint.getColumn() && checkpoint.getCell(i,j);
+
+                    if(engine.getCell(i+offset,j+offset)!=value){
+                        engine.setCell(i+offset,j+offset,value);
+                    }
+                }
+            }
+        }
+
+        generation=checkpoint.getGeneration();
+
+        lockCells.unlock();
+    }
+
+    /**
+     * Adds the alive cells of the pattern to the grid, while the file is read; it has to be invoked
+     * while the game is not running. To centre the pattern, the offsets are
+     * (getRow()-height)/2 and (getColumn()-width)/2.
+     * @param pattern
+     * @param rowOffset the first row of the pattern is the row rowOffset+1 of the grid
+     * @param columnOffset the first column of the pattern is the column columnOffset+1 of the grid
+     * @param outside receives the runs outside the grid, in the coordinates of the grid; it can be null
+     * @throws IOException if the pattern can't be read
+     */
+    public void importPattern(PatternReader pattern,final int rowOffset,final int columnOffset,final PatternReader.Target outside) throws IOException {
+        lockCells.lock();
+
+        try{
+            pattern.read(new PatternReader.Target() {
+                @Override
+                public void setRun(int patternRow,int patternColumn,int length){
+                    int i=patternRow+rowOffset+1,first=patternColumn+columnOffset+1,last=first+length-1;
+
+                    if(outside!=null){
+                        if(i<1 || i>row){
+                            outside.setRun(i,first,length);
+                            return;
+                        }
+
+                        //the parts on the left and on the right of the grid
+                        if(first<1){
+                            outside.setRun(i,first,Math.min(last,0)-first+1);
+                        }
+
+                        if(last>column){
+                            outside.setRun(i,Math.max(first,column+1),last-Math.max(first,column+1)+1);
+                        }
+                    }
+
+                    setAlive(i,first,length);
+                }
+            });
+        }finally{
+            lockCells.unlock();
+        }
+    }
+
+    /**
+     * Sets alive the cells of a row, the cells outside the grid are ignored
+     * @param row
+     * @param column first column of the cells
+     * @param length number of cells
+     */
+    void setAlive(int row,int column,int length){
+        int first=Math.max(column,1),last=Math.min(column+length-1,this.column);
+        int offset=haloDepth-1;
+
+        if(row<1 || row>this.row || first>last){
+            return;
+        }
+
+        lockCells.lock();
+
+        if(engine instanceof PackedEngine){
+            ((PackedEngine)engine).setRun(row+offset,first+offset,last-first+1);
+        }else{
+            for(int j=first;j<=last;j++){
+                engine.setCell(row+offset,j+offset,true);
+            }
+        }
+
+        lockCells.unlock();
+    }
+
+    /**
+     * Saves a checkpoint every given number of generations. The cells are copied by the thread that
+     * calculates the generations and the file is written by another thread; if the previous
+     * checkpoint is still being written, the checkpoint is skipped.
+     * @param file file of the checkpoints, null to disable them
+     * @param period number of generations between two checkpoints
+     */
+    public void setCheckpoint(File file,int period){
+        if(file!=null){
+            if(period<1){
+                throw new IllegalArgumentException("Invalid period: "+period);
+            }
+
+            //the period is written first, so the thread that reads the file reads a valid period
+            checkpointPeriod=period;
+        }
+
+        checkpointFile=file;
+    }
+
+    /**
+     * Writes the regions of the grid changed by the last generation, in the coordinates of the grid.
+     * It has to be invoked by the thread that calculates the generations.
+     * @param regions first row, first column, last row and last column of every region
+     * @return number of regions, -1 if they are not known or they don't fit in the array
+     */
+    public int getChangedRegions(int[] regions){
+        if(!regionsKnown){
+            return -1;
+        }
+
+        int offset=haloDepth-1;
+        int count=((TiledEngine)engine).getChangedRegions(regions);
+
+        //the regions of the engine include the halo
+        for(int k=0,tmp=count;k<tmp;k++){
+            int firstRow=Math.max(1,regions[4*k]-offset),firstColumn=Math.max(1,regions[4*k+1]-offset);
+            int lastRow=Math.min(row,regions[4*k+2]-offset),lastColumn=Math.min(column,regions[4*k+3]-offset);
+
+            if(firstRow>lastRow || firstColumn>lastColumn){
+                count--;
+                continue;
+            }
+
+            int index=4*(k-(tmp-count));
+
+            regions[index]=firstRow;
+            regions[index+1]=firstColumn;
+            regions[index+2]=lastRow;
+            regions[index+3]=lastColumn;
+        }
+
+        return count;
+    }
+
+    /**
+     *
+     * @return number of tiles that were skipped in the last generation, because nothing changed around them
+     */
+    public int getSkippedTiles(){
+        return engine.getSkippedTiles();
+    }
+
+    /**
+     *
+     * @return number of rows, ghost cells excluded
+     */
+    public int getRow(){
+        return row;
+    }
+
+    /**
+     *
+     * @return number of columns, ghost cells excluded
+     */
+    public int getColumn(){
+        return column;
+    }
+
+
+    /**
+     * Sets the outer border cells, where 2 devices are in contact.
+     * The direction of the swipe is essential: you need to recognise what portion of screen
+     * corresponds to one specific neighbour.
+     * The cells are the rows of the halo, starting from the nearest to the grid: each row goes from
+     * firstIndex-getHaloExtension() to lastIndex+getHaloExtension().
+     * @param firstIndex
+     * @param lastIndex
+     * @param cellsToSet
+     * @param direction the direction of the CURRENT device swipe
+     * @param otherCellsBefore number of cells of the neighbour before firstIndex
+     * @param otherCellsAfter number of cells of the neighbour after lastIndex
+     */
+    public void setPairedCells(int firstIndex, int lastIndex, List<Boolean> cellsToSet, PinchInfo.Direction direction,
+                               int otherCellsBefore, int otherCellsAfter){
+        long[] cells=new long[(cellsToSet.size()+63)>>>6];
+
+        for(int k=0;k<cellsToSet.size();k++){
+            if(cellsToSet.get(k)){
+                cells[k>>>6]|=1L<<(k&63);
+            }
+        }
+
+        setPairedCells(firstIndex,lastIndex,new CellsFrame(null,generation,cells,cellsToSet.size()),direction,
+                otherCellsBefore,otherCellsAfter);
+    }
+
+    /**
+     * Sets the outer border cells received in a frame, like the list of setPairedCells
+     * @param firstIndex
+     * @param lastIndex
+     * @param cellsToSet
+     * @param direction the direction of the CURRENT device swipe
+     * @param otherCellsBefore number of cells of the neighbour before firstIndex
+     * @param otherCellsAfter number of cells of the neighbour after lastIndex
+     */
+    public void setPairedCells(int firstIndex, int lastIndex, CellsFrame cellsToSet, PinchInfo.Direction direction,
+                               int otherCellsBefore, int otherCellsAfter){
+        setPairedCells(getPairedTable(firstIndex,lastIndex,direction),cellsToSet,firstIndex,lastIndex,direction,
+                otherCellsBefore,otherCellsAfter);
+    }
+
+    /**
+     * Table of the cells set by setPairedCells, in the order of the cells received
+     * @param firstIndex
+     * @param lastIndex
+     * @param direction the direction of the CURRENT device swipe
+     * @return the index of every cell of the halo, valid while getLayout() doesn't change
+     */
+    public int[] getPairedTable(int firstIndex, int lastIndex, PinchInfo.Direction direction){
+        int depth=haloDepth,extension=getHaloExtension();
+        int length=lastIndex-firstIndex+1+2*extension;
+        int[] table=new int[depth*length];
+
+        for(int d=1,k=0;d<=depth;d++){
+            for(int i=firstIndex-extension,j=0; j<length; i++,j++,k++){
+                switch(direction){
+                    case RIGHT:table[k]=getCellIndex(i,column+d);break;
+                    case LEFT:table[k]=getCellIndex(i,1-d);break;
+                    case UP:table[k]=getCellIndex(1-d,i);break;
+                    case DOWN:table[k]=getCellIndex(row+d,i);break;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Sets the outer border cells received in a frame, through the table of getPairedTable
+     * @param table the table of getPairedTable, with the layout of the engine
+     * @param cellsToSet
+     * @param firstIndex
+     * @param lastIndex
+     * @param direction the direction of the CURRENT device swipe
+     * @param otherCellsBefore number of cells of the neighbour before firstIndex
+     * @param otherCellsAfter number of cells of the neighbour after lastIndex
+     * @throws IllegalStateException if the neighbour sent the cells of a halo of another depth
+     */
+    public void setPairedCells(int[] table, CellsFrame cellsToSet, int firstIndex, int lastIndex, PinchInfo.Direction direction,
+                               int otherCellsBefore, int otherCellsAfter){
+        int extension=getHaloExtension();
+
+        if(cellsToSet.getLength()!=table.length){
+            throw new IllegalStateException("Unexpected number of ghost cells: "+cellsToSet.getLength()+" instead of "+table.length);
+        }
+
+        scatterCells(table,table.length,cellsToSet.getCells());
+
+        bands.add(new Band(firstIndex,lastIndex,direction,Math.min(extension,otherCellsBefore),Math.min(extension,otherCellsAfter)));
+    }
+
+    /**
+     * Jumps ahead of the given number of generations. With the HashLife engine the generations are
+     * calculated all together, treating the cells around the grid as an open plane and discarding the
+     * cells that leave it at the end; the other engines calculate them one by one.
+     * @param generations
+     */
+    public void advance(long generations){
+        updateRule();
+
+        if(engine instanceof HashLifeEngine){
+            ((HashLifeEngine)engine).advance(generations);
+
+            lockCells.lock();
+            engine.swap();
+            generation+=generations;
+            regionsKnown=false;
+            lockCells.unlock();
+
+            resetGhostCells();
+        }else{
+            for(long i=0;i<generations;i++){
+                calculateNextGen();
+                resetGhostCells();
+            }
+        }
+    }
+
+    /**
+     * Calculates the generations until receiving a stop command. Here resides the logic of the application.
+     */
+    public void calculate(){
+        if(handler==null){
+            handler=gameView.getGameHandler();
+        }
+
+        updateHaloDepth();
+
+        if(handler.isConnected()){
+            /*
+                stopGame can return true in three different cases:
+
+                1) the device is not connected to anyone anymore
+                2) the device has received the stop command from a neighbour
+                3) the user has double tapped to stop the computation
+
+                When the game starts again, if the device is still connected to someone, it has to start again from the point it has stopped,
+                this to avoid that when the game restarts, the device would send again the cells to the ones it has already sent them to.
+            */
+
+            while(!handler.stopGame()){
+
+                //send the cells to the other devices
+                handler.sendCellsToOthers();
+
+                //waits until receiving all the cells or the device is not connected with another one anymore, or the game was stopped
+                handler.awaitGeneration();
+
+                if(handler.goOn()){
+                    /*If the device entered this condition, it means that it has all the cells for calculating the next generation;
+                    if this condition holds, then it is necessary to reset all the flags about the devices whom the device has sent the cells to
+                    to false, before sending the cells again.
+                    */
+
+                    handler.resetCellSent(); //All flags to false.
+
+                    //sets the received cells, the generations are not calculated with wrong ghost cells
+                    if(handler.setCells()){
+                        //with k rows of ghost cells the next k generations can be calculated without the neighbours
+                        for(int i=0;i<haloDepth;i++){
+                            //the border of the last one is sent before calculating the rest of the grid
+                            calculateNextGen(i==haloDepth-1);
+
+                            //a still life is already on the screen
+                            if(getPeriod()!=1){
+                                showGeneration();
+                            }
+
+                            if(i<haloDepth-1 && gameView.isStarted()){
+                                delay(500);
+                            }
+                        }
+                    }else{
+                        //the depth doesn't change during a game, the right cells would never arrive
+                        gameView.showMessage("A neighbour is using another depth of the halo");
+                        gameView.pause();
+                    }
+
+                    //If the pause was not performed, the device continues with the computation.
+                    if(gameView.isStarted()){
+
+                        delay(500);
+                    }else{
+                        //The pause was performed, so the device forwards the pause message to the neighbours.
+                        JSONObject message=new JSONObject();
+                        try {
+                            message.put("type","pause");
+                            message.put(PinchInfo.ADDRESS,handler.getIpAddress());
+                        } catch (JSONException e) {
+                            e.printStackTrace();
+                        }
+
+                        //sends pause message
+                        //the variable returned by stopgame is set to true, so the device exits from while.
+                        handler.sendCommand(message,null);
+                    }
+                }
+
+                //reset of ghost cells.
+                resetGhostCells();
+            }
+
+            gameView.pause();
+        }else{ //case when the device is not connected to anyone else.
+            while(gameView.isStarted()){
+                calculateNextGen();
+
+                if(getPeriod()!=1){
+                    showGeneration();
+                }
+
+                delay(500);
+            }
+        }
+    }
+
+    /**
+     * Copies the cells of the grid in the format of the checkpoints, the lock has to be held
+     * @param cells
+     */
+    private void copyCells(long[] cells){
+        int offset=haloDepth-1;
+
+        if(engine instanceof PackedEngine){
+            ((PackedEngine)engine).getGrid(offset,row,column,cells);
+        }else{
+            Arrays.fill(cells,0L);
+
+            for(int i=1,k=0;i<=row;i++,k+=Checkpoint.getWordsPerRow(column)){
+                for(int j=1;j<=column;j++){
+                    if(engine.getCell(i+offset,j+offset)){
+                        cells[k+(j>>>6)]|=1L<<(j&63);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows the regions changed by the last generation, or the whole grid if they are not known.
+     * With an exchange the generation is published to the renderer.
+     */
+    private void showGeneration(){
+        if(snapshots!=null){
+            publishSnapshot();
+            return;
+        }
+
+        int count=getChangedRegions(regions);
+
+        if(count<0){
+            gameView.postInvalidate();
+        }else{
+            for(int k=0;k<count;k++){
+                gameView.invalidateCells(regions[4*k],regions[4*k+1],regions[4*k+2],regions[4*k+3]);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param rule
+     * @return a new engine for the rule with the settings of this object, large enough for the halo
+     */
+    private GenerationEngine createEngine(Rule rule){
+        int engineRow=row+2*(haloDepth-1),engineColumn=column+2*(haloDepth-1);
+        GenerationEngine tmp;
+
+        if(rule.getStates()>2){
+            tmp=new GenerationsEngine(engineRow,engineColumn);
+        }else{
+            switch(engineType){
+                case ARRAY:tmp=new ArrayEngine(engineRow,engineColumn);break;
+                case HASHLIFE:tmp=new HashLifeEngine(engineRow,engineColumn);break;
+                case SPARSE:tmp=new SparseEngine(engineRow,engineColumn);break;
+                default:tmp=new PackedEngine(engineRow,engineColumn);break;
+            }
+        }
+
+        configure(tmp);
+        tmp.setRule(rule);
+        layout++;
+
+        return tmp;
+    }
+
+    /**
+     *
+     * @return distance between the indices of two rows of the engine
+     */
+    private int getStride(){
+        if(engine instanceof PackedEngine){
+            return ((PackedEngine)engine).getRowBits();
+        }
+
+        return column+2*haloDepth;
+    }
+
+    /**
+     * Applies the settings of this object to the engine
+     * @param engine
+     */
+    private void configure(GenerationEngine engine){
+        if(engine instanceof TiledEngine){
+            ((TiledEngine)engine).setParallel(parallel,parallelThreshold,grain);
+        }
+
+        if(engine instanceof ArrayEngine && kernel!=null){
+            ((ArrayEngine)engine).setKernel(kernel);
+        }
+    }
+
+    /**
+     * Gives the rule requested with setRule to the engine, replacing the engine if it does not support it
+     */
+    private void updateRule(){
+        Rule tmp=rule;
+
+        if(!tmp.equals(engineRule)){
+            //the cells can't change while they are copied
+            lockCells.lock();
+
+            if((tmp.getStates()>2)!=(engine instanceof GenerationsEngine)){
+                GenerationEngine newEngine=createEngine(tmp);
+                int offset=haloDepth-1;
+
+                //the ghost cells are copied too, they may have already been received
+                for(int i=0;i<row+2*offset+2;i++){
+                    for(int j=0;j<column+2*offset+2;j++){
+                        if(engine.getCell(i,j)){
+                            newEngine.setCell(i,j,true);
+                        }
+                    }
+                }
+
+                engine=newEngine;
+            }else{
+                engine.setRule(tmp);
+            }
+
+            //the same cells have another next generation
+            periodDetector.clear();
+            engineRule=tmp;
+            lockCells.unlock();
+        }
+    }
+
+    /**
+     * Replaces the engine if the depth of the halo has changed. It is invoked when the game starts,
+     * so the ghost cells are not copied.
+     */
+    void updateHaloDepth(){
+        int tmp=requestedHaloDepth;
+
+        if(tmp!=haloDepth){
+            lockCells.lock();
+
+            int oldOffset=haloDepth-1;
+            GenerationEngine oldEngine=engine;
+
+            haloDepth=tmp;
+            bands.clear();
+            periodDetector.clear();
+            engine=createEngine(engineRule);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    if(oldEngine.getCell(i+oldOffset,j+oldOffset)){
+                        engine.setCell(i+haloDepth-1,j+haloDepth-1,true);
+                    }
+                }
+            }
+
+            lockCells.unlock();
+        }
+    }
+
+    /**
+     * Kills the cells of the halo that were not received from a neighbour, like the ghost cells of
+     * a device with a halo of one cell. The ghost cells around the engine are cleared by the engine.
+     */
+    private void clearHalo(){
+        int offset=haloDepth-1;
+
+        if(offset==0){
+            return;
+        }
+
+        for(int i=1;i<=row+2*offset;i++){
+            boolean inside=i>offset && i<=row+offset;
+
+            for(int j=1;j<=column+2*offset;j++){
+                //the cells of the grid are skipped
+                if(inside && j==offset+1){
+                    j=column+offset;
+                    continue;
+                }
+
+                if(engine.getCell(i,j) && !isPaired(i-offset,j-offset)){
+                    engine.setCell(i,j,false);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param row row of the grid, outside the grid
+     * @param column column of the grid, outside the grid
+     * @return true if the cell belongs to the halo received from a neighbour
+     */
+    private boolean isPaired(int row,int column){
+        for(Band band : bands){
+            if(band.contains(row,column)){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reset the state of the cells sent by the neighbors
+     */
+    void resetGhostCells(){
+        bands.clear();
+        engine.resetGhostCells();
+        clearHalo();
+    }
+
+    /**
+     * Calculate the next generation of cells
+     */
+    void calculateNextGen(){
+        calculateNextGen(false);
+    }
+
+    /**
+     * Calculate the next generation of cells. With the pipelined step the tiles near the edges are
+     * calculated first and their cells are sent to the neighbours at once, then the interior is
+     * calculated while the cells travel: the neighbours wait only for the border.
+     * @param sendBorder true to send the border of the next generation with the pipelined step,
+     *                   if the engine calculates the tiles separately
+     */
+    private void calculateNextGen(boolean sendBorder){
+        updateRule();
+
+        //the dying cells of the rules with more states are not in the words of the engine
+        boolean detect=periodDetection && engine instanceof PackedEngine && engineRule.getStates()==2;
+        boolean replay=false;
+
+        if(detect){
+            lockCells.lock();
+            replay=periodDetector.setInput(((PackedEngine)engine).getWords());
+            lockCells.unlock();
+        }
+
+        if(replay){
+            //the generation was already calculated in the cycle
+            lockCells.lock();
+            ((PackedEngine)engine).setWords(periodDetector.getReplay());
+            clearHalo();
+            generation++;
+            regionsKnown=false;
+            lockCells.unlock();
+        }else{
+            //the next generation is calculated in the back buffer, only the swap has to wait for the readers
+            if(sendBorder && engine instanceof TiledEngine){
+                //the neighbours read the rows of the halo from the border of the grid
+                int depth=2*haloDepth-1;
+
+                ((TiledEngine)engine).calculateBorder(depth);
+
+                sendingNextBorder=true;
+                handler.sendCellsToOthers();
+                sendingNextBorder=false;
+
+                ((TiledEngine)engine).calculateInterior(depth);
+            }else{
+                engine.calculateNextGen();
+            }
+
+            lockCells.lock();
+            engine.swap();
+            clearHalo();
+            generation++;
+            regionsKnown=engine instanceof TiledEngine;
+            lockCells.unlock();
+        }
+
+        if(detect){
+            lockCells.lock();
+            periodDetector.setOutput(((PackedEngine)engine).getWords());
+            lockCells.unlock();
+        }else{
+            periodDetector.clear();
+        }
+
+        File file=checkpointFile;
+
+        if(file!=null && generation%checkpointPeriod==0){
+            saveCheckpoint(file);
+        }
+    }
+
+    /**
+     * Copies the cells and writes them in the file with another thread, unless the previous
+     * checkpoint is still being written
+     * @param file
+     */
+    private void saveCheckpoint(final File file){
+        if(checkpointSaving.compareAndSet(false,true)){
+            final Checkpoint checkpoint=getCheckpoint();
+
+            new Thread(){
+                @Override
+                public void run(){
+                    try {
+                        checkpoint.save(file);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    } finally {
+                        checkpointSaving.set(false);
+                    }
+                }
+            }.start();
+        }
+    }
+
+
+    private void delay(long millis){
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Part of the halo received from a neighbour
+     */
+    private class Band {
+
+        private int firstIndex,lastIndex;
+        private PinchInfo.Direction direction;
+        private int before,after;
+
+        /**
+         *
+         * @param firstIndex index of the first ghost cell received
+         * @param lastIndex index of the last ghost cell received
+         * @param direction the direction of the CURRENT device swipe
+         * @param before cells received before firstIndex
+         * @param after cells received after lastIndex
+         */
+        private Band(int firstIndex,int lastIndex,PinchInfo.Direction direction,int before,int after){
+            this.firstIndex=firstIndex;
+            this.lastIndex=lastIndex;
+            this.direction=direction;
+            this.before=before;
+            this.after=after;
+        }
+
+        /**
+         * The ghost cells are only the ones received; the rows are longer where the neighbour has
+         * more cells, so that the cells at the corners of the grid are calculated right. The cells
+         * outside the neighbour are its ghost cells, which are dead.
+         * @param row row of the grid
+         * @param column column of the grid
+         * @return true if the cell is in this part of the halo
+         */
+        private boolean contains(int row,int column){
+            int depth,index;
+
+            switch(direction){
+                case RIGHT:depth=column-CalculateGeneration.this.column;index=row;break;
+                case LEFT:depth=1-column;index=row;break;
+                case UP:depth=1-row;index=column;break;
+                default:depth=row-CalculateGeneration.this.row;index=column;break;
+            }
+
+            if(depth<1 || depth>haloDepth){
+                return false;
+            }
+
+            return index>=firstIndex-before && index<=lastIndex+after;
+        }
+    }
+}
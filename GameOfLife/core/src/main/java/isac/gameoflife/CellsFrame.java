@@ -0,0 +1,222 @@
+package isac.gameoflife;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+
+/**
+ * Ghost cells sent to a neighbour in a binary frame, instead of a JSON list of booleans.
+ *
+ * The frame starts with the header, big-endian:
+ * marker (byte 0, a JSON message starts with '{'), version (byte), type (byte), timestamp of the
+ * message (long), address of the sender (byte length and UTF-8 bytes), number of the generation
+ * (long) and number of cells (int). The cells follow as words of 64 cells: the cell k is the bit
+ * k%64 of the word k/64.
+ *
+ * The devices announce the version they read in the pinch message; a device that doesn't
+ * announce it receives the cells as JSON.
+ */
+public class CellsFrame {
+
+    //version of the frames written and read by this device
+    public final static int VERSION=1;
+    private final static byte MARKER=0;
+    private final static byte TYPE_CELLS=1;
+    private final static Charset UTF8=Charset.forName("UTF-8");
+
+    private String sender;
+    private long generation;
+    private long[] cells;
+    private int length;
+
+    /**
+     *
+     * @param sender address of the device that sent the cells
+     * @param generation number of the generation of the cells
+     * @param cells the cells, 64 in every word
+     * @param length number of cells
+     */
+    public CellsFrame(String sender,long generation,long[] cells,int length){
+        this.sender=sender;
+        this.generation=generation;
+        this.cells=cells;
+        this.length=length;
+    }
+
+    /**
+     * Writes the frame of the cells
+     * @param sender address of the sender, UTF-8 bytes
+     * @param generation number of the generation of the cells
+     * @param cells the cells, 64 in every word
+     * @param length number of cells
+     * @return the frame
+     */
+    public static byte[] encode(byte[] sender,long generation,long[] cells,int length){
+        int words=(length+63)>>>6;
+        byte[] frame=new byte[3+8+1+sender.length+8+4+8*words];
+        ByteBuffer buffer=ByteBuffer.wrap(frame);
+
+        buffer.put(MARKER);
+        buffer.put((byte)VERSION);
+        buffer.put(TYPE_CELLS);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.put((byte)sender.length);
+        buffer.put(sender);
+        buffer.putLong(generation);
+        buffer.putInt(length);
+
+        for(int w=0;w<words;w++){
+            buffer.putLong(cells[w]);
+        }
+
+        return frame;
+    }
+
+    /**
+     * Reads the frame of the cells
+     * @param frame
+     * @return the cells of the frame
+     * @throws IllegalArgumentException if the frame is not a frame of cells of a known version
+     */
+    public static CellsFrame decode(byte[] frame){
+        try {
+            ByteBuffer buffer=checkHeader(frame);
+
+            buffer.getLong();
+
+            byte[] sender=new byte[buffer.get()&0xFF];
+
+            buffer.get(sender);
+
+            long generation=buffer.getLong();
+            int length=buffer.getInt();
+
+            if(length<0 || buffer.remaining()!=8*((length+63)>>>6)){
+                throw new IllegalArgumentException("Unexpected number of cells: "+length);
+            }
+
+            long[] cells=new long[(length+63)>>>6];
+
+            buffer.asLongBuffer().get(cells);
+
+            return new CellsFrame(new String(sender,UTF8),generation,cells,length);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame",e);
+        }
+    }
+
+    /**
+     *
+     * @param body a message received
+     * @return true if the message is a frame, false if it is a JSON message
+     */
+    public static boolean isFrame(byte[] body){
+        return body.length>0 && body[0]==MARKER;
+    }
+
+    /**
+     *
+     * @param frame
+     * @return the time when the frame was written
+     * @throws IllegalArgumentException if the frame is not a frame of cells of a known version
+     */
+    public static long getTimestamp(byte[] frame){
+        if(frame.length<11){
+            throw new IllegalArgumentException("Truncated frame");
+        }
+
+        return checkHeader(frame).getLong();
+    }
+
+    /**
+     * Reads the cells sent as JSON by a device that doesn't write the frames
+     * @param sender address of the device that sent the cells
+     * @param generation number of the generation of the cells
+     * @param cells list of the cells: "[true, false, ...]"
+     * @return the cells of the list
+     */
+    public static CellsFrame parseList(String sender,long generation,String cells){
+        //every value is at least 4 characters and a comma
+        long[] bits=new long[(cells.length()/5+64)>>>6];
+        int count=0;
+
+        //every value has a single 't' or 'f', its first letter
+        for(int i=0;i<cells.length();i++){
+            char c=cells.charAt(i);
+
+            if(c=='t'){
+                bits[count>>>6]|=1L<<(count&63);
+                count++;
+            }else if(c=='f'){
+                count++;
+            }
+        }
+
+        return new CellsFrame(sender,generation,bits,count);
+    }
+
+    /**
+     *
+     * @return address of the device that sent the cells
+     */
+    public String getSender(){
+        return sender;
+    }
+
+    /**
+     *
+     * @return number of the generation of the cells
+     */
+    public long getGeneration(){
+        return generation;
+    }
+
+    /**
+     *
+     * @return the cells, 64 in every word
+     */
+    public long[] getCells(){
+        return cells;
+    }
+
+    /**
+     *
+     * @return number of cells
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     *
+     * @param k index of the cell, from 0
+     * @return true if the cell is alive, false otherwise
+     */
+    public boolean getCell(int k){
+        return ((cells[k>>>6]>>>(k&63))&1L)!=0;
+    }
+
+    /**
+     *
+     * @param frame
+     * @return the buffer of the frame after marker, version and type
+     * @throws IllegalArgumentException if the frame is not a frame of cells of a known version
+     */
+    private static ByteBuffer checkHeader(byte[] frame){
+        if(frame.length<3 || frame[0]!=MARKER){
+            throw new IllegalArgumentException("Not a frame");
+        }
+
+        //the versions are compatible up to VERSION, the next ones are read by newer devices
+        if(frame[1]<1 || frame[1]>VERSION || frame[2]!=TYPE_CELLS){
+            throw new IllegalArgumentException("Unknown frame: version "+frame[1]+", type "+frame[2]);
+        }
+
+        ByteBuffer buffer=ByteBuffer.wrap(frame);
+
+        buffer.position(3);
+
+        return buffer;
+    }
+}
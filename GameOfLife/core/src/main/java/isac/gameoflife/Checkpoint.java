@@ -0,0 +1,333 @@
+package isac.gameoflife;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * State of the game saved in a binary file: the cells of the grid, the number of the generation,
+ * the rule and the neighbours. The file is written and read through a memory mapping: the cells
+ * are words of 64 cells, row by row, and a loaded checkpoint reads them directly from the file.
+ *
+ * The file starts with the header, big-endian:
+ * magic, version, rows, columns (int), generation (long), rule (short length and UTF-8 bytes),
+ * number of neighbours (int) and for every neighbour its address (short length and UTF-8 bytes),
+ * the direction of the swipe (byte), the first and the last index of the border (int).
+ * The cells start at the first multiple of 8 after the header; every row has (columns+2+63)/64
+ * words and the cell of column j is the bit j, so the bits of the columns 0 and columns+1 are 0.
+ */
+public class Checkpoint {
+
+    //"GOL1"
+    private final static int MAGIC=0x474F4C31;
+    private final static int VERSION=1;
+    private final static Charset UTF8=Charset.forName("UTF-8");
+
+    private int row,column;
+    private long generation;
+    private Rule rule;
+    private List<Neighbour> neighbours;
+    private LongBuffer cells;
+
+    /**
+     *
+     * @param row number of rows of the grid
+     * @param column number of columns of the grid
+     * @param generation number of the generation
+     * @param rule
+     * @param neighbours
+     * @param cells the rows of the grid in the format of the file, they are not copied
+     */
+    public Checkpoint(int row,int column,long generation,Rule rule,List<Neighbour> neighbours,long[] cells){
+        this(row,column,generation,rule,neighbours,LongBuffer.wrap(cells));
+    }
+
+    private Checkpoint(int row,int column,long generation,Rule rule,List<Neighbour> neighbours,LongBuffer cells){
+        if(cells.remaining()!=row*getWordsPerRow(column)){
+            throw new IllegalArgumentException("Unexpected number of words: "+cells.remaining());
+        }
+
+        this.row=row;
+        this.column=column;
+        this.generation=generation;
+        this.rule=rule;
+        this.neighbours=Collections.unmodifiableList(new ArrayList<>(neighbours));
+        this.cells=cells;
+    }
+
+    /**
+     * Maps the file, the cells are read from the file when they are needed
+     * @param file
+     * @return the checkpoint saved in the file
+     * @throws IOException if the file can't be read or it is not a checkpoint
+     */
+    public static Checkpoint load(File file) throws IOException {
+        RandomAccessFile randomAccessFile=new RandomAccessFile(file,"r");
+
+        try{
+            FileChannel channel=randomAccessFile.getChannel();
+            //the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+
+            if(buffer.remaining()<8 || buffer.getInt()!=MAGIC){
+                throw new IOException("Not a checkpoint: "+file);
+            }
+
+            int version=buffer.getInt();
+
+            if(version!=VERSION){
+                throw new IOException("Unsupported checkpoint version: "+version);
+            }
+
+            int row=buffer.getInt();
+            int column=buffer.getInt();
+            long generation=buffer.getLong();
+            Rule rule=Rule.parse(getString(buffer));
+            int size=buffer.getInt();
+            List<Neighbour> neighbours=new ArrayList<>();
+
+            for(int i=0;i<size;i++){
+                String address=getString(buffer);
+                PinchInfo.Direction direction=PinchInfo.Direction.values()[buffer.get()];
+                int firstIndex=buffer.getInt();
+                int lastIndex=buffer.getInt();
+
+                neighbours.add(new Neighbour(address,direction,firstIndex,lastIndex));
+            }
+
+            buffer.position(align(buffer.position()));
+
+            return new Checkpoint(row,column,generation,rule,neighbours,buffer.slice().asLongBuffer());
+        }catch(RuntimeException e){
+            //a truncated file, a wrong rule or a wrong direction
+            throw new IOException("Corrupted checkpoint: "+file,e);
+        }finally{
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Writes the checkpoint in the file, replacing it. The checkpoint is written in another file
+     * that is renamed at the end, so a crash can't leave half a checkpoint and the checkpoints
+     * loaded from the old file can still read it.
+     * @param file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        byte[] ruleBytes=rule.toString().getBytes(UTF8);
+        List<byte[]> addresses=new ArrayList<>();
+        int header=4+4+4+4+8+2+ruleBytes.length+4;
+
+        for(Neighbour neighbour : neighbours){
+            byte[] tmp=neighbour.getAddress().getBytes(UTF8);
+            addresses.add(tmp);
+            header+=2+tmp.length+1+4+4;
+        }
+
+        long size=align(header)+8L*cells.capacity();
+        File tmpFile=new File(file.getPath()+".tmp");
+        RandomAccessFile randomAccessFile=new RandomAccessFile(tmpFile,"rw");
+
+        try{
+            randomAccessFile.setLength(size);
+
+            FileChannel channel=randomAccessFile.getChannel();
+            MappedByteBuffer buffer=channel.map(FileChannel.MapMode.READ_WRITE,0,size);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(row);
+            buffer.putInt(column);
+            buffer.putLong(generation);
+            putBytes(buffer,ruleBytes);
+            buffer.putInt(neighbours.size());
+
+            for(int i=0;i<neighbours.size();i++){
+                Neighbour neighbour=neighbours.get(i);
+
+                putBytes(buffer,addresses.get(i));
+                buffer.put((byte)neighbour.getDirection().ordinal());
+                buffer.putInt(neighbour.getFirstIndex());
+                buffer.putInt(neighbour.getLastIndex());
+            }
+
+            buffer.position(align(header));
+
+            LongBuffer tmp=cells.duplicate();
+            tmp.clear();
+            buffer.asLongBuffer().put(tmp);
+            buffer.force();
+        }finally{
+            randomAccessFile.close();
+        }
+
+        if(!tmpFile.renameTo(file)){
+            throw new IOException("Can't replace the checkpoint: "+file);
+        }
+    }
+
+    /**
+     *
+     * @return number of rows of the grid
+     */
+    public int getRow(){
+        return row;
+    }
+
+    /**
+     *
+     * @return number of columns of the grid
+     */
+    public int getColumn(){
+        return column;
+    }
+
+    /**
+     *
+     * @return number of the generation
+     */
+    public long getGeneration(){
+        return generation;
+    }
+
+    /**
+     *
+     * @return the rule of the game
+     */
+    public Rule getRule(){
+        return rule;
+    }
+
+    /**
+     *
+     * @return the neighbours of the device when the checkpoint was taken
+     */
+    public List<Neighbour> getNeighbours(){
+        return neighbours;
+    }
+
+    /**
+     *
+     * @param row from 1 to the number of rows
+     * @param column from 1 to the number of columns
+     * @return true if the cell is alive, false otherwise
+     */
+    public boolean getCell(int row,int column){
+        return ((cells.get((row-1)*getWordsPerRow(this.column)+(column>>>6))>>>(column&63))&1L)!=0;
+    }
+
+    /**
+     *
+     * @param row from 1 to the number of rows
+     * @param index from 0 to getWordsPerRow
+     * @return the word of the row, the bit j is the cell of the column 64*index+j
+     */
+    public long getWord(int row,int index){
+        return cells.get((row-1)*getWordsPerRow(column)+index);
+    }
+
+    /**
+     *
+     * @param column number of columns of the grid
+     * @return the number of words of a row
+     */
+    public static int getWordsPerRow(int column){
+        return (column+2+63)>>>6;
+    }
+
+    /**
+     *
+     * @param position
+     * @return the first multiple of 8 from the position
+     */
+    private static int align(int position){
+        return (position+7)&~7;
+    }
+
+    /**
+     *
+     * @param buffer
+     * @return the string of UTF-8 bytes after their length
+     */
+    private static String getString(ByteBuffer buffer){
+        byte[] bytes=new byte[buffer.getShort()];
+        buffer.get(bytes);
+
+        return new String(bytes,UTF8);
+    }
+
+    /**
+     * Writes the length of the bytes and the bytes
+     * @param buffer
+     * @param bytes
+     */
+    private static void putBytes(ByteBuffer buffer,byte[] bytes){
+        buffer.putShort((short)bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Neighbour of the device, along a border
+     */
+    public static class Neighbour {
+
+        private String address;
+        private PinchInfo.Direction direction;
+        private int firstIndex,lastIndex;
+
+        /**
+         *
+         * @param address IP address of the neighbour
+         * @param direction the direction of the swipe of this device
+         * @param firstIndex index of the first cell of the border
+         * @param lastIndex index of the last cell of the border
+         */
+        public Neighbour(String address,PinchInfo.Direction direction,int firstIndex,int lastIndex){
+            this.address=address;
+            this.direction=direction;
+            this.firstIndex=firstIndex;
+            this.lastIndex=lastIndex;
+        }
+
+        /**
+         *
+         * @return IP address of the neighbour
+         */
+        public String getAddress(){
+            return address;
+        }
+
+        /**
+         *
+         * @return the direction of the swipe of this device
+         */
+        public PinchInfo.Direction getDirection(){
+            return direction;
+        }
+
+        /**
+         *
+         * @return index of the first cell of the border
+         */
+        public int getFirstIndex(){
+            return firstIndex;
+        }
+
+        /**
+         *
+         * @return index of the last cell of the border
+         */
+        public int getLastIndex(){
+            return lastIndex;
+        }
+    }
+}
@@ -0,0 +1,694 @@
+package isac.gameoflife;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+public class ConnectedDeviceInfo {
+
+    //strips kept for a neighbour, and the watermarks that stop it and let it go on
+    public final static int INBOX_CAPACITY=16;
+    public final static int INBOX_HIGH_WATERMARK=12;
+    public final static int INBOX_LOW_WATERMARK=4;
+
+    private boolean reverseList;
+    private String nameQueueSender,nameQueueReceiver;
+    private int orientation;
+    private float myWidth, myHeight, width, height,myXCoord,myYCoord,xCoord,yCoord;
+    private PinchInfo.Direction myDir,dir;
+    private float cellSize;
+    private int indexFirstCell, indexLastCell;
+    //cells of the other device beyond the first and the last index, along the border
+    private int otherCellsBefore, otherCellsAfter;
+    private List<Boolean> cellsToSend;
+    private CalculateGeneration calculateGeneration;
+    //strips received and not used yet
+    private GenerationInbox generations;
+    //last strip set in the halo, used again while the other device is behind of no more than the staleness
+    private CellsFrame lastGeneration;
+    private boolean sent;
+    //stopSent: this device asked the other one to stop sending the strips; throttled: the other device asked it
+    private boolean stopSent,throttled;
+    //version of the frames of cells read by the other device, 0 if it reads only JSON
+    private int frameVersion;
+    private long[] cellsBits;
+    //cells sent and received, in the order of the strips: built by calculateInfo and again when the layout changes
+    private int[] gatherTable,scatterTable;
+    private int tablesLayout;
+
+    public ConnectedDeviceInfo(float cellSize, PinchInfo.Direction dir, PinchInfo.Direction myDir,
+                               int xCoord, int yCoord, float width, float height, float myWidth, float myHeight,
+                               int myXCoord, int myYCoord, String nameQueueSender, String nameQueueReceiver,CalculateGeneration calculateGeneration,
+                               float xdpi,float ydpi,float myXdpi,float myYdpi){
+
+        this.calculateGeneration = calculateGeneration;
+        //pixels to inches
+        this.xCoord=xCoord/xdpi;
+        this.yCoord=yCoord/ydpi;
+        this.myYCoord = myYCoord/myYdpi;
+        this.myXCoord = myXCoord/myXdpi;
+        this.width = width;
+        this.height = height;
+        this.nameQueueReceiver=nameQueueReceiver;
+        this.nameQueueSender=nameQueueSender;
+        this.cellSize = cellSize;
+        this.cellsToSend = new ArrayList<>();
+        this.reverseList = false;
+        this.myWidth = myWidth;
+        this.myHeight = myHeight;
+        this.myDir = myDir;
+        this.dir = dir;
+        generations=new GenerationInbox(INBOX_CAPACITY,INBOX_HIGH_WATERMARK,INBOX_LOW_WATERMARK);
+        lastGeneration=null;
+        sent=false;
+        stopSent=false;
+        throttled=false;
+        frameVersion=0;
+        cellsBits=new long[1];
+        gatherTable=null;
+        scatterTable=null;
+        tablesLayout=-1;
+    }
+
+    public String getNameQueueSender() {
+        return nameQueueSender;
+    }
+
+    public String getNameQueueReceiver() {
+        return nameQueueReceiver;
+    }
+
+    public PinchInfo.Direction getMyDirection(){
+        return this.myDir;
+    }
+
+    public void calculateInfo(){
+        setRelativeOrientation();
+        calculateIndices();
+        evaluateReverseList();
+        buildTables();
+    }
+    /**
+     * Sets the relative orientation of the devices.
+     * The orientation is calculated considering the current device as in the middle of the origin
+     * with its center (0,0). We have then 16 cases, 4 for each border(4).
+     */
+    private void setRelativeOrientation(){
+
+
+        if(myDir.equals(PinchInfo.Direction.RIGHT)){
+            if(dir.equals(PinchInfo.Direction.LEFT)){
+                this.orientation = 0;
+            } else if(dir.equals(PinchInfo.Direction.RIGHT)){
+                this.orientation = 180;
+            } else if(dir.equals(PinchInfo.Direction.DOWN)){
+                this.orientation = 90;
+            } else if(dir.equals(PinchInfo.Direction.UP)){
+                this.orientation = 270;
+            }
+        } else if(myDir.equals(PinchInfo.Direction.LEFT)){
+            if(dir.equals(PinchInfo.Direction.LEFT)){
+                this.orientation = 180;
+            } else if(dir.equals(PinchInfo.Direction.RIGHT)){
+                this.orientation = 0;
+            } else if(dir.equals(PinchInfo.Direction.DOWN)){
+                this.orientation = 270;
+            } else if(dir.equals(PinchInfo.Direction.UP)){
+                this.orientation = 90;
+            }
+        } else if (myDir.equals(PinchInfo.Direction.UP)){
+            if(dir.equals(PinchInfo.Direction.LEFT)){
+                this.orientation = 270;
+            } else if(dir.equals(PinchInfo.Direction.RIGHT)){
+                this.orientation = 90;
+            } else if(dir.equals(PinchInfo.Direction.DOWN)){
+                this.orientation = 0;
+            } else if(dir.equals(PinchInfo.Direction.UP)){
+                this.orientation = 180;
+            }
+        } else if(myDir.equals(PinchInfo.Direction.DOWN)){
+            if(dir.equals(PinchInfo.Direction.LEFT)){
+                this.orientation = 90;
+            } else if(dir.equals(PinchInfo.Direction.RIGHT)){
+                this.orientation = 270;
+            } else if(dir.equals(PinchInfo.Direction.DOWN)){
+                this.orientation = 180;
+            } else if(dir.equals(PinchInfo.Direction.UP)){
+                this.orientation = 0;
+            }
+        }
+
+    }
+
+    /**
+     * Calculates the first and last index of the cells that will have to be sent to the other device,
+     * and how many cells the other device has beyond them.
+     */
+    private void calculateIndices(){
+
+        int min;
+        if(myDir.equals(PinchInfo.Direction.RIGHT) || myDir.equals(PinchInfo.Direction.LEFT)){
+            if(orientation == 0){
+                min = Math.min((int)(myYCoord/this.cellSize), (int)(yCoord/this.cellSize));
+                this.indexFirstCell = (int)(myYCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)(yCoord/this.cellSize) - min;
+                min = Math.min((int)((myHeight-myYCoord)/this.cellSize)+1, (int)((height - yCoord)/this.cellSize)+1);
+                this.indexLastCell = (int)(myYCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)((height - yCoord)/this.cellSize)+1 - min;
+            } else if (orientation == 90){
+                min = Math.min((int)(myYCoord/this.cellSize), (int)((xCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myYCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((xCoord)/this.cellSize) - min;
+                min = Math.min((int)((myHeight-myYCoord)/this.cellSize)+1, (int)((width-xCoord)/this.cellSize)+1);
+                this.indexLastCell = (int)(myYCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)((width-xCoord)/this.cellSize)+1 - min;
+            } else if (orientation == 180){
+                min = Math.min((int)(myYCoord/this.cellSize),(int)((height-yCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myYCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((height-yCoord)/this.cellSize) - min;
+                min = Math.min((int)((myHeight-myYCoord)/this.cellSize)+1, (int)(yCoord/this.cellSize)+1);
+                this.indexLastCell = (int)(myYCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)(yCoord/this.cellSize)+1 - min;
+            } else if (orientation == 270){
+                min = Math.min((int)(myYCoord/this.cellSize),(int)((width-xCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myYCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((width-xCoord)/this.cellSize) - min;
+                min = Math.min((int)((myHeight-myYCoord)/this.cellSize)+1,(int)(xCoord/this.cellSize)+1);
+                this.indexLastCell = (int)(myYCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)(xCoord/this.cellSize)+1 - min;
+            }
+        } else if (myDir.equals(PinchInfo.Direction.UP) || myDir.equals(PinchInfo.Direction.DOWN)){
+            if(orientation == 0){
+                min = Math.min((int)(myXCoord/this.cellSize), (int)(xCoord/this.cellSize));
+                this.indexFirstCell = (int)(myXCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)(xCoord/this.cellSize) - min;
+                min = Math.min((int)((myWidth-myXCoord)/this.cellSize)+1,(int)((width-xCoord)/this.cellSize)+1);
+                this.indexLastCell = (int)(myXCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)((width-xCoord)/this.cellSize)+1 - min;
+            } else if (orientation == 90){
+                min = Math.min((int)(myXCoord/this.cellSize),(int)((height-yCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myXCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((height-yCoord)/this.cellSize) - min;
+                min = Math.min((int)((myWidth-myXCoord)/this.cellSize)+1,(int)((yCoord)/this.cellSize)+1);
+                this.indexLastCell = (int)(myXCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)((yCoord)/this.cellSize)+1 - min;
+            } else if (orientation == 180){
+                min = Math.min((int)(myXCoord/this.cellSize), (int)((width-xCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myXCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((width-xCoord)/this.cellSize) - min;
+                min = Math.min((int)((myWidth-myXCoord)/this.cellSize)+1,(int)(xCoord/this.cellSize)+1);
+                this.indexLastCell = (int)(myXCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)(xCoord/this.cellSize)+1 - min;
+            } else if (orientation == 270){
+                min = Math.min((int)(myXCoord/this.cellSize), (int)((yCoord)/this.cellSize));
+                this.indexFirstCell = (int)(myXCoord/this.cellSize)+1-min;
+                this.otherCellsBefore = (int)((yCoord)/this.cellSize) - min;
+                min = Math.min((int) ((myWidth-myXCoord)/this.cellSize)+1,(int)((height-yCoord)/this.cellSize)+1);
+                this.indexLastCell = (int)(myXCoord/this.cellSize) + min;
+                this.otherCellsAfter = (int)((height-yCoord)/this.cellSize)+1 - min;
+            }
+        }
+    }
+
+    /**
+     * Checks if the list of cells to be sent has to ve reversed in order to correspond to the indices of the other device.
+     */
+    private void evaluateReverseList(){
+
+        if(myDir.equals(PinchInfo.Direction.RIGHT) || myDir.equals(PinchInfo.Direction.LEFT)){
+
+            if(orientation == 0){
+                this.reverseList = false;
+            } else if (orientation == 90){
+                this.reverseList = false;
+            } else if (orientation == 180){
+                this.reverseList = true;
+            } else if (orientation == 270){
+                this.reverseList = true;
+            }
+        } else if (myDir.equals(PinchInfo.Direction.UP) || myDir.equals(PinchInfo.Direction.DOWN)){
+
+            if(orientation == 0){
+                this.reverseList = false;
+            } else if (orientation == 90){
+                this.reverseList = true;
+            } else if (orientation == 180){
+                this.reverseList = true;
+            } else if (orientation == 270){
+                this.reverseList = false;
+            }
+        }
+    }
+
+
+    /**
+     *
+     * @return the index of the first cell
+     */
+    public int getIndexFirstCell(){
+        return this.indexFirstCell;
+    }
+
+    /**
+     *
+     * @return the index of the last cell
+     */
+    public int getIndexLastCell(){
+        return this.indexLastCell;
+    }
+
+    /**
+     *
+     * @return the number of cells of the other device before the first index, along the border
+     */
+    public int getOtherCellsBefore(){
+        return this.otherCellsBefore;
+    }
+
+    /**
+     *
+     * @return the number of cells of the other device after the last index, along the border
+     */
+    public int getOtherCellsAfter(){
+        return this.otherCellsAfter;
+    }
+
+    /**
+     * It has to be invoked by the thread that calculates the generations, so that the cells
+     * belong to the same generation.
+     * With a halo deeper than one cell, the list has a row of cells for every level of the halo,
+     * starting from the border, and every row is longer of depth cells on both the sides; the
+     * cells outside the grid are dead.
+     * @return the list of values of the cells to be sent
+     */
+    public List<Boolean> getCellsValues(){
+        int length=getCells();
+
+        cellsToSend.clear();
+        for(int k=0;k<length;k++){
+            cellsToSend.add(((cellsBits[k>>>6]>>>(k&63))&1L)!=0);
+        }
+
+        return cellsToSend;
+    }
+
+    /**
+     * Writes the cells to be sent, in the order of getCellsValues, 64 in every word. It has to be
+     * invoked by the thread that calculates the generations.
+     * @return number of cells written, they can be read with getCellsBits until the next call
+     */
+    public int getCells(){
+        updateTables();
+
+        int length=gatherTable.length;
+
+        if(cellsBits.length<(length+63)>>>6){
+            cellsBits=new long[(length+63)>>>6];
+        }
+
+        calculateGeneration.gatherCells(gatherTable,length,cellsBits);
+
+        return length;
+    }
+
+    /**
+     * Sets the ghost cells received from the other device. It has to be invoked by the thread that
+     * calculates the generations.
+     * @param cells
+     * @throws IllegalStateException if the cells are of a halo of another depth
+     */
+    public void setPairedCells(CellsFrame cells){
+        updateTables();
+
+        calculateGeneration.setPairedCells(scatterTable,cells,indexFirstCell,indexLastCell,myDir,
+                otherCellsBefore,otherCellsAfter);
+    }
+
+    /**
+     *
+     * @return the cells written by the last call of getCells
+     */
+    public long[] getCellsBits(){
+        return cellsBits;
+    }
+
+    /**
+     *
+     * @param frameVersion version of the frames of cells read by the other device, 0 if it reads only JSON
+     */
+    public void setFrameVersion(int frameVersion){
+        this.frameVersion=frameVersion;
+    }
+
+    /**
+     *
+     * @return version of the frames of cells read by the other device, 0 if it reads only JSON
+     */
+    public int getFrameVersion(){
+        return frameVersion;
+    }
+
+    /**
+     * Builds the tables of the cells sent and received, with the orientation and the order of the
+     * other device already resolved
+     */
+    private void buildTables(){
+        int rows = this.calculateGeneration.getRow();
+        int columns = this.calculateGeneration.getColumn();
+        int depth = this.calculateGeneration.getOffset()+1;
+        int extension = this.calculateGeneration.getHaloExtension();
+        int length = this.indexLastCell-this.indexFirstCell+1+2*extension;
+
+        tablesLayout=calculateGeneration.getLayout();
+        gatherTable=new int[depth*length];
+
+        for(int d = 1,start = 0; d<=depth; d++,start+=length){
+            for(int i = this.indexFirstCell-extension,j = 0; j<length; i++,j++){
+                int row=0,column=0;
+
+                switch(myDir){
+                    case RIGHT:
+                        row=i;
+                        column=columns-d+1;
+                        break;
+                    case LEFT:
+                        row=i;
+                        column=d;
+                        break;
+                    case UP:
+                        row=d;
+                        column=i;
+                        break;
+                    case DOWN:
+                        row=rows-d+1;
+                        column=i;
+                        break;
+                }
+
+                //the rows are reversed when the other device numbers the border the other way
+                gatherTable[start+(reverseList?length-1-j:j)]=row<1 || row>rows || column<1 || column>columns?
+                        -1:calculateGeneration.getCellIndex(row,column);
+            }
+        }
+
+        scatterTable=calculateGeneration.getPairedTable(indexFirstCell,indexLastCell,myDir);
+    }
+
+    /**
+     * Builds the tables again if the layout of the cells has changed since they were built
+     */
+    private void updateTables(){
+        if(tablesLayout!=calculateGeneration.getLayout()){
+            buildTables();
+        }
+    }
+
+    /**
+     * Adds the part of a run of alive cells of a pattern that falls on the other device, beyond the
+     * border in contact with it. The parts are written in the runs as depth, offset and length: the
+     * depth from the border of the other device, starting from 1, and the offset from its first index.
+     * The runs go across the border when the border is vertical, along it otherwise.
+     * @param row row of the run, in the coordinates of this grid
+     * @param column first column of the run, in the coordinates of this grid
+     * @param length number of cells
+     * @param runs
+     */
+    public void addPatternRun(int row,int column,int length,StringBuilder runs){
+        int rows=this.calculateGeneration.getRow();
+        int columns=this.calculateGeneration.getColumn();
+        //the cells of the other device along the border
+        int min=this.indexFirstCell-this.otherCellsBefore, max=this.indexLastCell+this.otherCellsAfter;
+        int first,last;
+
+        switch(myDir){
+            case RIGHT:
+            case LEFT:
+                if(row<min || row>max){
+                    return;
+                }
+
+                if(myDir==PinchInfo.Direction.RIGHT){
+                    first=Math.max(column,columns+1)-columns;
+                    last=column+length-1-columns;
+                }else{
+                    first=1-Math.min(column+length-1,0);
+                    last=1-column;
+                }
+
+                if(first<=last){
+                    appendRun(runs,first,getPatternOffset(row,row),last-first+1);
+                }
+                break;
+            case UP:
+            case DOWN:
+                int depth=myDir==PinchInfo.Direction.UP?1-row:row-rows;
+
+                first=Math.max(column,min);
+                last=Math.min(column+length-1,max);
+
+                if(depth>=1 && first<=last){
+                    appendRun(runs,depth,getPatternOffset(first,last),last-first+1);
+                }
+                break;
+        }
+    }
+
+    /**
+     *
+     * @return true if the runs of the patterns sent to the other device go across the border, false if they go along it
+     */
+    public boolean isPatternAcross(){
+        return myDir==PinchInfo.Direction.RIGHT || myDir==PinchInfo.Direction.LEFT;
+    }
+
+    /**
+     * Sets alive the cells of a pattern sent by the other device, the cells outside the grid are ignored
+     * @param runs depth, offset and length of every run, written by addPatternRun
+     * @param across true if the runs go across the border, false if they go along it
+     */
+    public void setPatternRuns(String runs,boolean across){
+        int rows=this.calculateGeneration.getRow();
+        int columns=this.calculateGeneration.getColumn();
+        int[] values=new int[3];
+        int index=0;
+
+        while((index=parseRun(runs,index,values))>=0){
+            int depth=values[0],along=this.indexFirstCell+values[1],length=values[2];
+
+            if(across){
+                switch(myDir){
+                    case RIGHT:calculateGeneration.setAlive(along,columns-depth-length+2,length);break;
+                    case LEFT:calculateGeneration.setAlive(along,depth,length);break;
+                    case UP:
+                        for(int k=0;k<length && depth+k<=rows;k++){
+                            calculateGeneration.setAlive(depth+k,along,1);
+                        }
+                        break;
+                    case DOWN:
+                        for(int k=0;k<length && depth+k<=rows;k++){
+                            calculateGeneration.setAlive(rows-depth-k+1,along,1);
+                        }
+                        break;
+                }
+            }else{
+                switch(myDir){
+                    case RIGHT:
+                        for(int k=0;k<length;k++){
+                            calculateGeneration.setAlive(along+k,columns-depth+1,1);
+                        }
+                        break;
+                    case LEFT:
+                        for(int k=0;k<length;k++){
+                            calculateGeneration.setAlive(along+k,depth,1);
+                        }
+                        break;
+                    case UP:calculateGeneration.setAlive(depth,along,length);break;
+                    case DOWN:calculateGeneration.setAlive(rows-depth+1,along,length);break;
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param first first index of the cells along the border
+     * @param last last index of the cells along the border
+     * @return the offset of the cells from the first index of the other device
+     */
+    private int getPatternOffset(int first,int last){
+        return reverseList?this.indexLastCell-last:first-this.indexFirstCell;
+    }
+
+    /**
+     *
+     * @param runs
+     * @param depth
+     * @param offset
+     * @param length
+     */
+    private static void appendRun(StringBuilder runs,int depth,int offset,int length){
+        if(runs.length()!=0){
+            runs.append(' ');
+        }
+
+        runs.append(depth).append(' ').append(offset).append(' ').append(length);
+    }
+
+    /**
+     * Reads the three numbers of a run, without splitting the string
+     * @param runs
+     * @param index index of the first character of the run
+     * @param values the depth, the offset and the length of the run
+     * @return the index after the run, -1 if there are no more runs
+     */
+    private static int parseRun(String runs,int index,int[] values){
+        for(int k=0;k<3;k++){
+            while(index<runs.length() && runs.charAt(index)==' '){
+                index++;
+            }
+
+            if(index==runs.length()){
+                return -1;
+            }
+
+            boolean negative=runs.charAt(index)=='-';
+            int value=0;
+
+            if(negative){
+                index++;
+            }
+
+            while(index<runs.length() && runs.charAt(index)!=' '){
+                value=value*10+Character.digit(runs.charAt(index),10);
+                index++;
+            }
+
+            values[k]=negative?-value:value;
+        }
+
+        return index;
+    }
+
+    /**
+     * Adds the cells of the new generation received.
+     * */
+    public void addGeneration(CellsFrame generation){
+        generations.offer(generation);
+    }
+
+    /**
+     *
+     * @return the cells of the oldest generation received, null if there are none.
+     */
+    public CellsFrame getNextGeneration(){
+        return generations.poll();
+    }
+
+    /**
+     *
+     * @param generation number of the generation, as written by the other device
+     * @return the cells of that generation, null if they were not received or were already used
+     */
+    public CellsFrame getGeneration(long generation){
+        return generations.get(generation);
+    }
+
+    /**
+     * Checks if the cells of the other device are enough to calculate the generation: the cells of that
+     * generation, or older ones of no more than staleness generations. The cells without a generation,
+     * sent as JSON by the old devices, are always used in order.
+     * @param generation number of the generation to calculate
+     * @param staleness generations the cells can be older than the generation, 0 to use only the cells of that generation
+     * @return true if the generation can be calculated, false if the cells have to be waited
+     */
+    public boolean isGenerationReady(long generation,int staleness){
+        CellsFrame strip=generations.latest(generation);
+
+        if(strip!=null){
+            return strip.getGeneration()<0 || strip.getGeneration()>=generation-staleness;
+        }
+
+        //nothing new: the last cells are used again
+        return lastGeneration!=null && lastGeneration.getGeneration()>=0 && lastGeneration.getGeneration()>=generation-staleness;
+    }
+
+    /**
+     * Removes the cells received up to the generation, it has to be invoked after isGenerationReady
+     * @param generation number of the generation to calculate
+     * @return the newest cells up to the generation, the last ones used if nothing new was received
+     */
+    public CellsFrame takeGeneration(long generation){
+        CellsFrame strip=generations.take(generation);
+
+        if(strip!=null){
+            lastGeneration=strip;
+        }
+
+        return lastGeneration;
+    }
+
+    /**
+     * This method is used to check whether the device has at least one generation saved from its neighbour.
+     * @return number of generations received and not used yet.
+     */
+    public int getNumberOfGenerations(){
+        return generations.size();
+    }
+
+    /**
+     *
+     * @return the generations received and not used yet
+     */
+    public GenerationInbox getInbox(){
+        return generations;
+    }
+
+    /**
+     *
+     * @param value true if this device asked the other one to stop sending the cells, false if it let it go on
+     */
+    public void stopSent(boolean value){
+        stopSent=value;
+    }
+
+    /**
+     *
+     * @return true if this device asked the other one to stop sending the cells
+     */
+    public boolean stopSent(){
+        return stopSent;
+    }
+
+    /**
+     *
+     * @param value true if the other device asked to stop sending the cells, false if it can receive them again
+     */
+    public void setThrottled(boolean value){
+        throttled=value;
+    }
+
+    /**
+     *
+     * @return true if the other device asked to stop sending the cells
+     */
+    public boolean isThrottled(){
+        return throttled;
+    }
+
+    /**
+     *
+     * @param value true if the correspondent cells has been sent; false otherwise.
+     */
+    public void cellsSent(boolean value){
+        sent=value;
+    }
+
+    /**
+     *
+     * @return true if the cells has been sent to that device, false otherwise.
+     */
+    public boolean cellsSent(){
+        return sent;
+    }
+}
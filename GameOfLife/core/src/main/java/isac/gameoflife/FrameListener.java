@@ -0,0 +1,14 @@
+package isac.gameoflife;
+
+
+public interface FrameListener {
+
+    /**
+     *
+     * Callback to handle the incoming binary frames from the transport, the other messages
+     * are JSON and go to the MessageListener
+     *
+     * @param frame incoming frame
+     */
+    void handleFrame(byte[] frame);
+}
@@ -0,0 +1,69 @@
+package isac.gameoflife;
+
+
+/**
+ * View of the game seen by the core: the grid on the screen on Android, but also a headless
+ * worker on a server.
+ */
+public interface GameView {
+
+    /**
+     *
+     * @return the handler of the messages exchanged with the other devices
+     */
+    Handler getGameHandler();
+
+    /**
+     *
+     * @return infos about the last swipe performed, null if there isn't one
+     */
+    SwipeInfo getInfoSwipe();
+
+    /**
+     *
+     * @return the exact physical pixels per inch of the screen in the X dimension
+     */
+    float getXDpi();
+
+    /**
+     *
+     * @return the exact physical pixels per inch of the screen in the Y dimension
+     */
+    float getYDpi();
+
+    /**
+     *
+     * @return if the game is running
+     */
+    boolean isStarted();
+
+    /**
+     * Starts the game
+     */
+    void start();
+
+    /**
+     * Pauses the game
+     */
+    void pause();
+
+    /**
+     * Shows the cells of the current generation, it can be invoked by any thread
+     */
+    void postInvalidate();
+
+    /**
+     * Shows the cells of a region of the current generation, it can be invoked by any thread
+     * @param firstRow
+     * @param firstColumn
+     * @param lastRow
+     * @param lastColumn
+     */
+    void invalidateCells(int firstRow,int firstColumn,int lastRow,int lastColumn);
+
+    /**
+     * Notifies the user, it can be invoked by any thread
+     * @param message
+     */
+    void showMessage(String message);
+}
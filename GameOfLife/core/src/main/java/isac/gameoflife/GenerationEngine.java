@@ -0,0 +1,62 @@
+package isac.gameoflife;
+
+
+/**
+ * Representation of the grid of cells together with the logic that computes its generations.
+ * The grid has a border of ghost cells (row 0, row+1, column 0 and column+1) where the cells
+ * received from the neighbours are stored.
+ */
+public interface GenerationEngine {
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @return true if the cell is alive, false otherwise
+     */
+    boolean getCell(int row,int column);
+
+    /**
+     * Sets the state of the cell
+     * @param row
+     * @param column
+     * @param value true if the cell is alive, false otherwise
+     */
+    void setCell(int row,int column,boolean value);
+
+    /**
+     * Changes the rule used by the next generations
+     * @param rule
+     * @throws IllegalArgumentException if the engine does not support the rule
+     */
+    void setRule(Rule rule);
+
+    /**
+     * Calculate the next generation of cells. The generation is written in a second buffer and
+     * it is not visible until swap is invoked.
+     */
+    void calculateNextGen();
+
+    /**
+     * Makes the generation calculated by calculateNextGen the current one. The buffer of the
+     * previous generation is reused by the next call of calculateNextGen.
+     */
+    void swap();
+
+    /**
+     *
+     * @return number of tiles that were not calculated in the last generation, because nothing could change in them
+     */
+    int getSkippedTiles();
+
+    /**
+     * Reset the state of the cells sent by the neighbors
+     */
+    void resetGhostCells();
+
+    /**
+     *
+     * @return the matrix of cells, ghost cells included
+     */
+    boolean[][] getCells();
+}
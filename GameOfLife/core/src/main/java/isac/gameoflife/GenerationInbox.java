@@ -0,0 +1,220 @@
+package isac.gameoflife;
+
+
+/**
+ * Strips of cells received from a neighbour and not used yet, in a ring.
+ *
+ * The strips arrive in the order of the generations and are used in the same order, so the ring
+ * keeps them from the oldest to the newest. A neighbour sends a strip every haloDepth generations,
+ * so the generations of the strips are evenly spaced and the strip of a generation is found
+ * without scanning the ring.
+ *
+ * When the ring reaches the high watermark the neighbour has to be stopped, when it goes back to
+ * the low watermark it can go on: the two thresholds avoid sending a message for every strip.
+ * The strips already sent by the neighbour before it stops are never dropped: if they don't fit,
+ * the ring grows, because a lost strip would stop the computation of its generation.
+ * The inbox is not thread safe, it is used holding the lock of the Handler.
+ */
+public class GenerationInbox {
+
+    private CellsFrame[] strips;
+    private int mask;
+    //position of the oldest strip and number of strips
+    private int head,size;
+    private int highWatermark,lowWatermark;
+
+    /**
+     *
+     * @param capacity initial number of strips, rounded up to a power of two
+     * @param highWatermark number of strips that stops the neighbour
+     * @param lowWatermark number of strips that lets the neighbour go on
+     * @throws IllegalArgumentException if the watermarks are not in 0 <= low < high <= capacity
+     */
+    public GenerationInbox(int capacity,int highWatermark,int lowWatermark){
+        if(lowWatermark<0 || lowWatermark>=highWatermark || highWatermark>capacity){
+            throw new IllegalArgumentException("Watermarks "+lowWatermark+" and "+highWatermark+" with capacity "+capacity);
+        }
+
+        int length=1;
+
+        while(length<capacity){
+            length<<=1;
+        }
+
+        strips=new CellsFrame[length];
+        mask=length-1;
+        head=0;
+        size=0;
+        this.highWatermark=highWatermark;
+        this.lowWatermark=lowWatermark;
+    }
+
+    /**
+     * Adds the strip of the newest generation, growing the ring if it is full
+     * @param strip
+     */
+    public void offer(CellsFrame strip){
+        if(size==strips.length){
+            grow();
+        }
+
+        strips[(head+size)&mask]=strip;
+        size++;
+    }
+
+    /**
+     * Removes the strip of the oldest generation
+     * @return the strip, null if the inbox is empty
+     */
+    public CellsFrame poll(){
+        if(size==0){
+            return null;
+        }
+
+        CellsFrame strip=strips[head];
+
+        //the strip is not kept alive by the ring
+        strips[head]=null;
+        head=(head+1)&mask;
+        size--;
+
+        return strip;
+    }
+
+    /**
+     *
+     * @return the strip of the oldest generation, null if the inbox is empty
+     */
+    public CellsFrame peek(){
+        return size==0?null:strips[head];
+    }
+
+    /**
+     *
+     * @param generation number of the generation of the strip, as written by the neighbour
+     * @return the strip of that generation, null if it is not in the inbox
+     */
+    public CellsFrame get(long generation){
+        if(size==0){
+            return null;
+        }
+
+        long first=strips[head].getGeneration();
+        long index=0;
+
+        //the distance between two strips is the same along the ring
+        if(size>1){
+            long step=strips[(head+1)&mask].getGeneration()-first;
+
+            if(step<=0 || (generation-first)%step!=0){
+                return null;
+            }
+
+            index=(generation-first)/step;
+        }
+
+        if(index<0 || index>=size){
+            return null;
+        }
+
+        CellsFrame strip=strips[(head+(int)index)&mask];
+
+        return strip.getGeneration()==generation?strip:null;
+    }
+
+    /**
+     * The strips without a generation, sent as JSON by the old devices, are used one at a time in order
+     * @param generation number of the generation to calculate
+     * @return the newest strip up to that generation, null if there are only strips of the next generations
+     */
+    public CellsFrame latest(long generation){
+        if(size==0 || strips[head].getGeneration()<0){
+            return peek();
+        }
+
+        CellsFrame strip=null;
+
+        for(int i=0;i<size && strips[(head+i)&mask].getGeneration()<=generation;i++){
+            strip=strips[(head+i)&mask];
+        }
+
+        return strip;
+    }
+
+    /**
+     * Removes the strips up to the generation: the older ones are not used anymore
+     * @param generation number of the generation to calculate
+     * @return the newest strip removed, null if there are only strips of the next generations
+     */
+    public CellsFrame take(long generation){
+        if(size==0 || strips[head].getGeneration()<0){
+            return poll();
+        }
+
+        CellsFrame strip=null;
+
+        while(size>0 && strips[head].getGeneration()<=generation){
+            strip=poll();
+        }
+
+        return strip;
+    }
+
+    /**
+     *
+     * @return number of strips in the inbox
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     *
+     * @return number of strips that fit in the ring before it grows
+     */
+    public int getCapacity(){
+        return strips.length;
+    }
+
+    /**
+     *
+     * @return true if the neighbour has to stop sending the strips
+     */
+    public boolean aboveHighWatermark(){
+        return size>=highWatermark;
+    }
+
+    /**
+     *
+     * @return true if the neighbour can go on sending the strips
+     */
+    public boolean belowLowWatermark(){
+        return size<=lowWatermark;
+    }
+
+    /**
+     * Removes all the strips
+     */
+    public void clear(){
+        while(size>0){
+            poll();
+        }
+
+        head=0;
+    }
+
+    /**
+     * Doubles the ring, the oldest strip goes to the first position
+     */
+    private void grow(){
+        CellsFrame[] tmp=new CellsFrame[strips.length<<1];
+
+        for(int i=0;i<size;i++){
+            tmp[i]=strips[(head+i)&mask];
+        }
+
+        strips=tmp;
+        mask=tmp.length-1;
+        head=0;
+    }
+}
@@ -0,0 +1,189 @@
+package isac.gameoflife;
+
+
+/**
+ * Engine for the Generations rules: every cell has a state, 0 if it is dead, 1 if it is alive and
+ * greater than 1 if it is dying. Only the cells in state 1 count as neighbours and only they are
+ * alive for the other classes, so the ghost cells exchanged with the neighbours stay booleans.
+ * The next state is read from a table indexed by the state and by the number of live neighbours.
+ */
+public class GenerationsEngine extends TiledEngine {
+
+    private final static int TILE_SIZE=16;
+    private byte[][] cells,next;
+    //next state for every state and number of live neighbours, at the position state*9+neighbours
+    private byte[] transitions;
+    private boolean[][] view;
+    private boolean viewUpdated;
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     */
+    public GenerationsEngine(int row,int column){
+        super(row,column,TILE_SIZE,TILE_SIZE);
+        cells=new byte[row+2][column+2];
+        next=new byte[row+2][column+2];
+        view=null;
+        viewUpdated=false;
+        setRule(Rule.CONWAY);
+    }
+
+    @Override
+    public void setRule(Rule rule){
+        transitions=new byte[rule.getStates()*9];
+
+        for(int state=0;state<rule.getStates();state++){
+            for(int neighbours=0;neighbours<=8;neighbours++){
+                transitions[state*9+neighbours]=(byte)rule.nextState(state,neighbours);
+            }
+        }
+
+        //the cells in a state that the new rule does not have are dead
+        for(byte[] tmp : cells){
+            for(int j=0;j<tmp.length;j++){
+                if(tmp[j]>=rule.getStates()){
+                    tmp[j]=0;
+                }
+            }
+        }
+
+        viewUpdated=false;
+        markAllTiles();
+    }
+
+    @Override
+    public boolean getCell(int row,int column){
+        return cells[row][column]==1;
+    }
+
+    @Override
+    public boolean getNextCell(int row,int column){
+        return next[row][column]==1;
+    }
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @return the state of the cell: 0 if it is dead, 1 if it is alive, greater than 1 if it is dying
+     */
+    public int getState(int row,int column){
+        return cells[row][column];
+    }
+
+    /**
+     * A dying cell that is set to dead becomes dead immediately
+     * @param row
+     * @param column
+     * @param value true if the cell is alive, false otherwise
+     */
+    @Override
+    public void setCell(int row,int column,boolean value){
+        byte state=(byte)(value?1:0);
+
+        if(cells[row][column]!=state){
+            cells[row][column]=state;
+            markCell(row,column);
+            viewUpdated=false;
+        }
+    }
+
+    /**
+     * The matrix is rebuilt only if the cells have changed since the last call
+     * @return the matrix of the live cells, ghost cells included
+     */
+    @Override
+    public boolean[][] getCells(){
+        if(view==null){
+            view=new boolean[row+2][column+2];
+        }
+
+        if(!viewUpdated){
+            for(int i=0;i<row+2;i++){
+                for(int j=0;j<column+2;j++){
+                    view[i][j]=cells[i][j]==1;
+                }
+            }
+
+            viewUpdated=true;
+        }
+
+        return view;
+    }
+
+    @Override
+    public void resetGhostCells(){
+        for(int i=0;i<column+2;i++){
+            setCell(0,i,false);
+            setCell(row+1,i,false);
+        }
+
+        for(int i=0;i<row+2;i++){
+            setCell(i,0,false);
+            setCell(i,column+1,false);
+        }
+    }
+
+    @Override
+    protected boolean calculateTile(int firstRow,int lastRow,int firstColumn,int lastColumn){
+        boolean changed=false;
+
+        for(int i=firstRow;i<=lastRow;i++){
+            byte[] up=cells[i-1],middle=cells[i],down=cells[i+1];
+
+            for(int j=firstColumn;j<=lastColumn;j++){
+                int neighbours=alive(up[j-1])+alive(up[j])+alive(up[j+1])+alive(middle[j-1])+
+                        alive(middle[j+1])+alive(down[j-1])+alive(down[j])+alive(down[j+1]);
+
+                next[i][j]=transitions[middle[j]*9+neighbours];
+                changed|=next[i][j]!=middle[j];
+            }
+        }
+
+        return changed;
+    }
+
+    @Override
+    protected void swapBuffers(){
+        byte[][] tmp=cells;
+        cells=next;
+        next=tmp;
+        viewUpdated=false;
+    }
+
+    @Override
+    protected void clearPreviousGhostCells(){
+        for(int i=0;i<column+2;i++){
+            clearPreviousGhostCell(0,i);
+            clearPreviousGhostCell(row+1,i);
+        }
+
+        for(int i=0;i<row+2;i++){
+            clearPreviousGhostCell(i,0);
+            clearPreviousGhostCell(i,column+1);
+        }
+    }
+
+    /**
+     *
+     * @param state
+     * @return 1 if the state is alive, 0 otherwise
+     */
+    private static int alive(byte state){
+        return state==1?1:0;
+    }
+
+    /**
+     * Clears a ghost cell of the back buffer
+     * @param row
+     * @param column
+     */
+    private void clearPreviousGhostCell(int row,int column){
+        if(next[row][column]!=0){
+            next[row][column]=0;
+            markCell(row,column);
+        }
+    }
+}
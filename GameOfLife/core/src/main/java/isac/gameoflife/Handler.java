@@ -0,0 +1,835 @@
+package isac.gameoflife;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+public class Handler implements MessageListener, FrameListener {
+
+    private GameView gameView;
+    private CalculateGeneration calculateGeneration;
+    private String ipAddress;
+    //the address in the header of the frames
+    private byte[] address;
+    private Transport transport;
+    private HashMap<String,ConnectedDeviceInfo> connectedDevices;
+    private ReentrantLock lock,lockStop;
+    //signalled when the cells of the next generation are ready, or the waiting has to stop
+    private Condition generationReady;
+    private float cellSize;
+    private float myWidth,myHeight;
+    private boolean stop;
+
+    /**
+     *
+     * @param gameView
+     * @param calculateGeneration
+     * @param ipAddress device's IP address
+     * @param transport connection to the other devices, not connected yet
+     * @param myWidth device's width in inches
+     * @param myHeight device's height in inches
+     * @param cellSize cell's size in inches
+     */
+    public Handler(GameView gameView,CalculateGeneration calculateGeneration,String ipAddress,Transport transport, float myWidth,float myHeight,float cellSize){
+
+        this.myHeight = myHeight;
+        this.myWidth = myWidth;
+        this.ipAddress=ipAddress;
+        try {
+            address=ipAddress.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            address=ipAddress.getBytes();
+        }
+        this.gameView=gameView;
+        this.calculateGeneration=calculateGeneration;
+        this.cellSize = cellSize;
+        this.transport=transport;
+        connectedDevices=new HashMap<>();
+        lock=new ReentrantLock();
+        lockStop=new ReentrantLock();
+        generationReady=lock.newCondition();
+        stop=true;
+    }
+
+    /**
+     * Connects to the other devices through the transport
+     * @return true if connection was established. False otherwise
+     */
+    public boolean connectToServer(){
+        return transport.connect();
+    }
+
+    /**
+     * Binds the queue to an exchange
+     */
+    public void bindToBroadcastQueue(){
+        if(transport.isConnected()){
+            transport.addSubscribeQueue("broadcast", "fanout",this);
+        }
+    }
+
+    /**
+     * Sends a broadcast message to all devices who are running this application
+     * @param message message to send
+     * @return true if message was sent. False otherwise
+     */
+    public boolean sendBroadcastMessage(JSONObject message){
+        if(transport.isConnected()) {
+            transport.sendMessage("broadcast", message);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void handleMessage(String queue, JSONObject json) {
+        try {
+            switch(json.getString("type")){
+                case "pinch":handlePinch(json);break;
+                case "close":handleClose(json);break;
+                case "start":handleStart(json);break;
+                case "pause":handlePause(json);break;
+                case "cells":handleCells(json);break;
+                case "pattern":handlePattern(json);break;
+                case "flow":handleFlow(json);break;
+                default:break;
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void handleFrame(byte[] frame) {
+        try {
+            addGeneration(CellsFrame.decode(frame));
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks if all the neighbours have sent the cells.
+     * @return true if the cells from all the neighbours were received. False otherwise
+     */
+    public boolean goOn(){
+        lock.lock();
+
+        boolean tmp=allCellsReceived();
+
+        lock.unlock();
+
+        return tmp;
+    }
+
+    /**
+     * Waits until the cells from all the neighbours were received and no neighbour asked to stop sending
+     * the cells, the device is not connected with anyone anymore, or the game was stopped.
+     * The thread is woken up by the event, without polling.
+     */
+    public void awaitGeneration(){
+        lock.lock();
+
+        try {
+            while(connectedDevices.size()!=0 && (!allCellsReceived() || throttled()) && !stopGame()){
+                generationReady.await();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        lock.unlock();
+    }
+
+    public void resetCellSent(){
+        lock.lock();
+
+        //get the list of neighbours
+        Set<String> set=connectedDevices.keySet();
+
+        for (String s : set){
+            connectedDevices.get(s).cellsSent(false);
+        }
+
+        lock.unlock();
+    }
+
+    /**
+     * Sets the ghost cells received from all the neighbours
+     * @return true if the cells of all the neighbours were set, false if a neighbour sent the cells
+     * of a halo of another depth
+     */
+    public boolean setCells(){
+        lock.lock();
+
+        //get the list of neighbours
+        Set<String> set=connectedDevices.keySet();
+        long number=calculateGeneration.getGeneration();
+        boolean allSet=true;
+
+        for (String s : set){
+            ConnectedDeviceInfo device=connectedDevices.get(s);
+            //the cells of the generation, or the newest ones of a neighbour that is behind
+            CellsFrame generation=device.takeGeneration(number);
+
+            //set the cell's value
+            if(generation!=null) {
+                try {
+                    device.setPairedCells(generation);
+                } catch (IllegalStateException e) {
+                    e.printStackTrace();
+                    allSet=false;
+                }
+            }
+
+            //the inbox was drained, the neighbour can send the cells again
+            if(device.stopSent() && device.getInbox().belowLowWatermark()){
+                sendFlow(device,true);
+            }
+        }
+
+        lock.unlock();
+
+        return allSet;
+    }
+
+
+    /**
+     * Send a command of pause/start to all neighbors
+     * @param message message of pause/start
+     * @param ip if it is null, the message will be sent to all the neighbours. Otherwise, the message will
+     *           be sent to all neighbours except that one (if it is present in the neighbours list)
+     */
+    public void sendCommand(JSONObject message,String ip){
+
+        lock.lock();
+
+        Set<String> set=connectedDevices.keySet();
+
+        if(ip==null) {
+
+            try {
+                lockStop.lock();
+                //sets state of the game
+                switch(message.getString("type")){
+                    case "start":stop=false;break;
+                    case "pause":stop=true;break;
+                    default: break;
+                }
+                lockStop.unlock();
+
+                //the computation may be waiting for the cells
+                generationReady.signalAll();
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+
+            for (String s : set) {
+                transport.sendMessage(connectedDevices.get(s).getNameQueueSender(), message);
+            }
+        }else{
+            for (String s : set) {
+                if(!ip.equals(s)) {
+                    transport.sendMessage(connectedDevices.get(s).getNameQueueSender(), message);
+                }
+            }
+        }
+
+        lock.unlock();
+    }
+
+    /**
+     * Sends the cells to all neighbors
+     */
+    public void sendCellsToOthers(){
+
+        lock.lock();
+
+        //gets list of neighbors
+        Set<String> set=connectedDevices.keySet();
+
+        for (String s : set){
+            JSONObject obj = new JSONObject();
+            ConnectedDeviceInfo infoConn = connectedDevices.get(s);
+
+            if(!infoConn.cellsSent() && infoConn.getFrameVersion()>=1) {
+
+                infoConn.cellsSent(true);
+                //the cells are written as bits straight in the frame
+                int length=infoConn.getCells();
+                transport.sendMessage(infoConn.getNameQueueSender(),
+                        CellsFrame.encode(address,calculateGeneration.getSentGeneration(),infoConn.getCellsBits(),length));
+            }else if(!infoConn.cellsSent()) {
+
+                infoConn.cellsSent(true);
+                //gets the name of queue to send the message to
+                String queueSender = infoConn.getNameQueueSender();
+                //creates the message and adds the list of cells to send, for the devices that don't read the frames
+                try {
+                    obj.put("type", "cells");
+                    obj.put(PinchInfo.ADDRESS, ipAddress);
+                    obj.put("cellsList", infoConn.getCellsValues());
+                    obj.put("generation", calculateGeneration.getSentGeneration());
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                }
+                transport.sendMessage(queueSender, obj);
+            }
+        }
+
+        lock.unlock();
+    }
+
+
+    /**
+     * Adds the alive cells of the pattern to the grid, while the file is read. The cells beyond the
+     * borders in contact with the neighbours are sent to them, the other cells outside the grid are lost.
+     * @param pattern
+     * @param rowOffset the first row of the pattern is the row rowOffset+1 of the grid
+     * @param columnOffset the first column of the pattern is the column columnOffset+1 of the grid
+     * @throws IOException if the pattern can't be read
+     */
+    public void importPattern(PatternReader pattern,int rowOffset,int columnOffset) throws IOException {
+        final HashMap<String,ConnectedDeviceInfo> devices;
+        final HashMap<String,StringBuilder> runs=new HashMap<>();
+
+        lock.lock();
+        devices=new HashMap<>(connectedDevices);
+        lock.unlock();
+
+        for(String s : devices.keySet()){
+            runs.put(s,new StringBuilder());
+        }
+
+        calculateGeneration.importPattern(pattern,rowOffset,columnOffset,devices.isEmpty()?null:new PatternReader.Target() {
+            @Override
+            public void setRun(int row,int column,int length){
+                for(String s : devices.keySet()){
+                    devices.get(s).addPatternRun(row,column,length,runs.get(s));
+                }
+            }
+        });
+
+        if(transport.isConnected()){
+            for(String s : devices.keySet()){
+                if(runs.get(s).length()!=0){
+                    JSONObject message=new JSONObject();
+
+                    try {
+                        message.put("type","pattern");
+                        message.put(PinchInfo.ADDRESS,ipAddress);
+                        message.put("across",devices.get(s).isPatternAcross());
+                        message.put("runs",runs.get(s).toString());
+                    } catch (JSONException e) {
+                        e.printStackTrace();
+                    }
+
+                    transport.sendMessage(devices.get(s).getNameQueueSender(),message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the channels with all the neighbours
+     */
+    public void closeDeviceCommunication() {
+        if(transport.isConnected()) {
+
+            lock.lock();
+
+            if (connectedDevices.size() != 0) {
+                Collection<ConnectedDeviceInfo> devices = connectedDevices.values();
+
+                JSONObject message = new JSONObject();
+
+                try {
+                    message.put("type", "close");
+                    message.put(PinchInfo.ADDRESS, ipAddress);
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                }
+
+                for (ConnectedDeviceInfo device : devices) {
+                    //sends a message that informs the shut down of the channel
+                    transport.sendMessage(device.getNameQueueSender(), message);
+                    //closes the channels
+                    closeCommunication(device.getNameQueueSender());
+                    closeCommunication(device.getNameQueueReceiver());
+                }
+
+                //clear the list of neighbors
+                connectedDevices.clear();
+            }
+
+            lockStop.lock();
+
+            stop=true;
+
+            lockStop.unlock();
+
+            generationReady.signalAll();
+
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the connection of the transport
+     */
+    public void closeConnection(){
+        transport.closeConnection();
+    }
+
+    /**
+     * Checks if it is necessary to stop the game
+     * @return true if is necessary stop the game. False otherwise
+     */
+    public boolean stopGame(){
+
+        lockStop.lock();
+        boolean tmp=stop;
+        lockStop.unlock();
+
+        return tmp;
+    }
+
+    /**
+     * Checks if the device is connected with someone else
+     *
+     * @return true if is connected. False otherwise
+     */
+    public boolean isConnected(){
+        lock.lock();
+
+        boolean tmp=connectedDevices.size()!=0;
+
+
+        lock.unlock();
+
+        return tmp;
+    }
+
+    /**
+     * Checks if all the neighbours have sent the cells of the generation to calculate, or cells older of
+     * no more than the staleness. The lock has to be held
+     * @return true if the cells from all the neighbours were received. False otherwise
+     */
+    private boolean allCellsReceived(){
+        //the generation to calculate, and how older than it the cells can be
+        long generation=calculateGeneration.getGeneration();
+        int staleness=calculateGeneration.getStaleness();
+
+        for (ConnectedDeviceInfo device : connectedDevices.values()){
+            if(!device.isGenerationReady(generation,staleness)){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a neighbour asked to stop sending the cells, the lock has to be held
+     * @return true if at least a neighbour can't receive the cells now. False otherwise
+     */
+    private boolean throttled(){
+        for (ConnectedDeviceInfo device : connectedDevices.values()){
+            if(device.isThrottled()){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Asks a neighbour to stop sending the cells, or lets it go on. The lock has to be held
+     * @param device the neighbour
+     * @param go true if the neighbour can send the cells again, false if it has to stop
+     */
+    private void sendFlow(ConnectedDeviceInfo device,boolean go){
+        JSONObject message=new JSONObject();
+
+        try {
+            message.put("type","flow");
+            message.put(PinchInfo.ADDRESS,ipAddress);
+            message.put("go",go);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        device.stopSent(!go);
+        transport.sendMessage(device.getNameQueueSender(),message);
+    }
+
+    /**
+     * Wakes up the computation waiting in awaitGeneration, so it checks again if it has to go on.
+     * It must not be invoked while holding lockStop, which is always taken after lock.
+     */
+    private void wakeUp(){
+        lock.lock();
+        generationReady.signalAll();
+        lock.unlock();
+    }
+
+    /**
+     *
+     * @return the neighbours and the borders in contact with them
+     */
+    public List<Checkpoint.Neighbour> getNeighbours(){
+        lock.lock();
+
+        List<Checkpoint.Neighbour> tmp=new ArrayList<>();
+        Set<String> set=connectedDevices.keySet();
+
+        for (String s : set){
+            ConnectedDeviceInfo device=connectedDevices.get(s);
+
+            tmp.add(new Checkpoint.Neighbour(s,device.getMyDirection(),device.getIndexFirstCell(),device.getIndexLastCell()));
+        }
+
+        lock.unlock();
+
+        return tmp;
+    }
+
+    /**
+     *
+     * @return device's IP address
+     */
+    public String getIpAddress(){
+        return ipAddress;
+    }
+
+    /**
+     * Checks if the message incoming is from itself
+     * @param ipAddressDevice IP address
+     * @return true if message incoming is from another device. False otherwise
+     */
+    private boolean messageFromOther (String ipAddressDevice){
+        return !ipAddress.equals(ipAddressDevice);
+    }
+
+    /**
+     * Closes the channel
+     * @param name name of the queue or the exchange
+     */
+    private void closeCommunication(String name){
+        transport.close(name);
+    }
+
+    /**
+     * Handles the message of pinch. Whenever a swipe is performed, this method is invoked
+     * @param json incoming message
+     */
+    private void handlePinch(JSONObject json){
+        try {
+            //gets all infos of the swipe of other device that sent the message
+            PinchInfo info = new PinchInfo(json.getString(PinchInfo.ADDRESS), PinchInfo.Direction.valueOf(json.getString(PinchInfo.DIRECTION)),
+                    json.getInt(PinchInfo.X_COORDINATE),
+                    json.getInt(PinchInfo.Y_COORDINATE), json.getLong(PinchInfo.TIMESTAMP),
+                    Float.parseFloat(json.getString(PinchInfo.SCREEN_WIDTH)), Float.parseFloat(json.getString(PinchInfo.SCREEN_HEIGHT)),
+                    Float.parseFloat(json.getString(PinchInfo.XDPI)), Float.parseFloat(json.getString(PinchInfo.YDPI)));
+
+            //gets the infos of my last swipe
+            SwipeInfo infoSwipe = gameView.getInfoSwipe();
+
+            //if the device has performed a swipe and the message has arrived from another one
+            if (infoSwipe != null && messageFromOther(info.getAddress())) {
+
+                lock.lock();
+
+                //if that device isn't my neighbour yet
+                if (!connectedDevices.containsKey(info.getAddress())) {
+
+                    lock.unlock();
+
+                    System.out.println("Elapsed time from swipe: "+(System.currentTimeMillis()-infoSwipe.getTimestamp()));
+
+                    //checks how much time has elapsed between the two swipes
+                    if (Math.abs(info.getTimestamp()-infoSwipe.getTimestamp())<=1000) {
+
+                        gameView.showMessage("Screen connected");
+
+
+                        String nameSender = "", nameReceiver = "";
+                        String ipAddressDevice = info.getAddress();
+
+                        nameSender = ipAddress + ipAddressDevice;
+                        nameReceiver = ipAddressDevice + ipAddress;
+
+                        //adds the queues for sending and receiving messages to/from that device
+                        transport.addQueue(nameSender);
+                        transport.addQueue(nameReceiver, this);
+
+                        //creates the info about that device
+                        ConnectedDeviceInfo connectionInfo = new ConnectedDeviceInfo(this.cellSize,
+                                info.getDirection(), infoSwipe.getDirection(),
+                                info.getXcoordinate(), info.getYcoordinate(), info.getScreenWidth(), info.getScreenHeight(), this.myWidth,
+                                this.myHeight, infoSwipe.getXcoordinate(), infoSwipe.getYcoordinate(), nameSender, nameReceiver, this.calculateGeneration,
+                                info.getXDpi(), info.getYDpi(), gameView.getXDpi(), gameView.getYDpi());
+
+                        lock.lock();
+                        //add the device to neighbour's map
+                        connectedDevices.put(ipAddressDevice, connectionInfo);
+                        //calculates how many and which cells sends/receives from/to that device
+                        connectionInfo.calculateInfo();
+                        //the cells are sent in the newest format read by both the devices
+                        connectionInfo.setFrameVersion(Math.min(CellsFrame.VERSION,json.optInt(PinchInfo.FRAMES,0)));
+                        lock.unlock();
+                    }
+                } else {
+                    lock.unlock();
+                }
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Handles the message of closing. Whenever a neighbours detached, this method is invoked.
+     * @param json incoming message
+     */
+    private void handleClose(JSONObject json){
+        try{
+            ConnectedDeviceInfo deviceInfo=null;
+
+            lock.lock();
+
+            if (connectedDevices.containsKey(json.getString(PinchInfo.ADDRESS))) {
+                deviceInfo = connectedDevices.remove(json.getString(PinchInfo.ADDRESS));
+                //removes the device from neighbours
+
+                if(connectedDevices.size()==0){
+                    //if there are no neighbors anymore, stops the game (if it is running)
+                    lockStop.lock();
+
+                    stop = true;
+
+                    lockStop.unlock();
+
+                    gameView.showMessage("Screen detached");
+                }
+
+                //the cells of the detached device won't arrive anymore
+                generationReady.signalAll();
+            }
+
+            lock.unlock();
+
+            if(deviceInfo!=null && transport.isConnected()){
+                //closes the channels
+                closeCommunication(deviceInfo.getNameQueueSender());
+                closeCommunication(deviceInfo.getNameQueueReceiver());
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Handles the message of start. Whenever a neighbour starts the game, this method is invoked.
+     * @param json incoming message
+     */
+    private void handleStart(JSONObject json){
+        try{
+            boolean flag=false;
+            lockStop.lock();
+
+            //checks if the device has already started the game
+            if(stop) {
+                stop = false;
+                flag=true;
+            }
+
+            lockStop.unlock();
+
+            //If the device hasn't started the game yet and it is connected with some others devices
+            if(flag && isConnected()) {
+                //plays with the rule, the halo and the generations of the device that started the game
+                try{
+                    if(json.has("staleness")){
+                        calculateGeneration.setStaleness(json.getInt("staleness"));
+                    }
+
+                    //the cells already sent have the number of the old generation, they are sent again
+                    if(json.has("generation") && calculateGeneration.setGeneration(json.getLong("generation"))){
+                        resetCellSent();
+                    }
+
+                    if(json.has("rule")){
+                        calculateGeneration.setRule(Rule.parse(json.getString("rule")));
+                    }
+
+                    if(json.has("halo")){
+                        calculateGeneration.setHaloDepth(json.getInt("halo"));
+                    }
+                }catch(IllegalArgumentException e){
+                    e.printStackTrace();
+                }
+
+                //starts the game
+                gameView.start();
+
+                JSONObject message=new JSONObject();
+
+                try {
+                    message.put("type","start");
+                    message.put(PinchInfo.ADDRESS,ipAddress);
+                    message.put("rule",calculateGeneration.getRule().toString());
+                    message.put("halo",calculateGeneration.getHaloDepth());
+                    message.put("staleness",calculateGeneration.getStaleness());
+                    message.put("generation",calculateGeneration.getGeneration());
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                }
+                //forwards the message of start to the other neighbours (except the sender)
+                sendCommand(message,json.getString(PinchInfo.ADDRESS));
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Handles the message of pause. Whenever a neighbours stops the game, this method is invoked.
+     * @param json incoming message
+     */
+    private void handlePause(JSONObject json){
+        try{
+            //gets which device performed the pause command
+            //senderCommand=json.getString("sender");
+            lockStop.lock();
+
+            boolean flag=false;
+
+            //checks if the device has already stopped the game
+            if(!stop) {
+                stop = true;
+                flag=true;
+            }
+
+            lockStop.unlock();
+
+            if(flag){
+                wakeUp();
+            }
+
+            //If the device hasn't stopped the game yet and it is connected to some other device
+            if(flag && isConnected()){
+
+                JSONObject message=new JSONObject();
+                try {
+                    message.put("type","pause");
+                    message.put(PinchInfo.ADDRESS,ipAddress);
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                }
+
+                //forwards the message of pause to the other neighbours (except the sender)
+                sendCommand(message,json.getString(PinchInfo.ADDRESS));
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Handles the cells of a pattern imported by a neighbour that fall on this device
+     * @param json incoming message
+     */
+    private void handlePattern(JSONObject json){
+        try{
+            ConnectedDeviceInfo device;
+
+            lock.lock();
+            device=connectedDevices.get(json.getString(PinchInfo.ADDRESS));
+            lock.unlock();
+
+            if(device!=null){
+                device.setPatternRuns(json.getString("runs"),json.getBoolean("across"));
+                gameView.postInvalidate();
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method is invoked whenever a neihbours has sent the cells as JSON, because it doesn't write the frames
+     * @param json incoming message
+     */
+    private void handleCells(JSONObject json){
+        try{
+            //the list is read without splitting it, the messages of the old devices have no generation
+            addGeneration(CellsFrame.parseList(json.getString(PinchInfo.ADDRESS),json.optLong("generation",-1),
+                    json.getString("cellsList")));
+        }catch(JSONException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method is invoked whenever a neighbour asks to stop sending the cells, because its inbox is full,
+     * or lets this device go on
+     * @param json incoming message
+     */
+    private void handleFlow(JSONObject json){
+        try{
+            lock.lock();
+
+            ConnectedDeviceInfo device=connectedDevices.get(json.getString(PinchInfo.ADDRESS));
+
+            if(device!=null){
+                device.setThrottled(!json.getBoolean("go"));
+
+                //the computation may be waiting for the neighbour
+                generationReady.signalAll();
+            }
+        }catch(JSONException e){
+            e.printStackTrace();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the cells sent by a neighbour to calculate the next generation
+     * @param cells
+     */
+    private void addGeneration(CellsFrame cells){
+        lock.lock();
+
+        ConnectedDeviceInfo device=connectedDevices.get(cells.getSender());
+
+        if(device!=null){
+            device.addGeneration(cells);
+
+            //the neighbour is faster than this device: it waits until the inbox is drained
+            if(!device.stopSent() && device.getInbox().aboveHighWatermark()){
+                sendFlow(device,false);
+            }
+
+            //the last strip of the generation wakes up the computation
+            if(allCellsReceived()){
+                generationReady.signalAll();
+            }
+        }
+
+        lock.unlock();
+    }
+
+}
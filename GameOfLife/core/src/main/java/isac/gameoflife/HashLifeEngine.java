@@ -0,0 +1,545 @@
+package isac.gameoflife;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Engine that stores the grid as a quadtree where equal squares are the same node (HashLife).
+ * Every node remembers the center of its square after some generations, so repeated patterns are
+ * calculated only once and advance can jump ahead of many generations with a single call.
+ * The nodes are kept in a cache of limited size: when it is full the least recently used nodes
+ * are forgotten, so they may be created and calculated again.
+ */
+public class HashLifeEngine implements GenerationEngine {
+
+    private final static int DEFAULT_MAX_NODES=1<<18;
+    //the largest jump of a single step of advance, so the coordinates stay far from overflow
+    private final static int MAX_STEP=48;
+    private final static Node DEAD=new Node(0L);
+    private final static Node ALIVE=new Node(1L);
+
+    private LinkedHashMap<Node,Node> nodes;
+    private Node[] empty;
+    private Node cells,next;
+    private int row,column;
+    //level of the root: the root covers the cells from 0 to 2^level-1, ghost cells included
+    private int level;
+    private boolean[][] view;
+    private boolean viewUpdated;
+    private Rule rule;
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     */
+    public HashLifeEngine(int row,int column){
+        this(row,column,DEFAULT_MAX_NODES);
+    }
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     * @param maxNodes maximum number of nodes kept in the cache
+     */
+    public HashLifeEngine(int row,int column,final int maxNodes){
+        this.row=row;
+        this.column=column;
+
+        nodes=new LinkedHashMap<Node,Node>(1024,0.75f,true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Node,Node> eldest){
+                if(size()>maxNodes){
+                    //the result would keep alive a chain of nodes that are not in the cache anymore
+                    eldest.getKey().result=null;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+
+        empty=new Node[]{DEAD};
+        level=2;
+
+        while((1<<level)<Math.max(row,column)+2){
+            level++;
+        }
+
+        cells=empty(level);
+        next=cells;
+        view=null;
+        viewUpdated=false;
+        rule=Rule.CONWAY;
+    }
+
+    @Override
+    public boolean getCell(int row,int column){
+        Node node=cells;
+
+        while(node.level>0){
+            int half=1<<(node.level-1);
+
+            if(row<half){
+                node=column<half?node.nw:node.ne;
+            }else{
+                node=column<half?node.sw:node.se;
+                row-=half;
+            }
+
+            if(column>=half){
+                column-=half;
+            }
+        }
+
+        return node==ALIVE;
+    }
+
+    @Override
+    public void setCell(int row,int column,boolean value){
+        if(getCell(row,column)!=value){
+            cells=set(cells,row,column,value);
+            viewUpdated=false;
+        }
+    }
+
+    /**
+     * The matrix is a copy of the quadtree, it is rebuilt only if the cells have changed since the last call.
+     * @return the matrix of cells, ghost cells included
+     */
+    @Override
+    public boolean[][] getCells(){
+        if(view==null){
+            view=new boolean[row+2][column+2];
+        }
+
+        if(!viewUpdated){
+            for(boolean[] tmp : view){
+                Arrays.fill(tmp,false);
+            }
+
+            copyToView(cells,0,0);
+            viewUpdated=true;
+        }
+
+        return view;
+    }
+
+    /**
+     * The results remembered by the nodes were calculated with the previous rule, so they are forgotten.
+     * The rule can't be a Generations rule.
+     * @param rule
+     */
+    @Override
+    public void setRule(Rule rule){
+        if(rule.getStates()>2){
+            throw new IllegalArgumentException("Generations rules are not supported");
+        }
+
+        if(!rule.equals(this.rule)){
+            this.rule=rule;
+
+            //the nodes out of the cache have already lost their results
+            for(Node node : nodes.keySet()){
+                node.result=null;
+            }
+        }
+    }
+
+    @Override
+    public int getSkippedTiles(){
+        return 0;
+    }
+
+    @Override
+    public void resetGhostCells(){
+        cells=clip(cells,0,0);
+        viewUpdated=false;
+    }
+
+    @Override
+    public void calculateNextGen(){
+        //the root is put in the center of a bigger square, whose result is the root after one generation
+        next=clip(successor(expand(cells),0),0,0);
+    }
+
+    @Override
+    public void swap(){
+        cells=next;
+        viewUpdated=false;
+    }
+
+    /**
+     * Calculates the cells after the given number of generations, writing them in the back buffer like calculateNextGen.
+     * The cells around the grid are an open plane while the generations are calculated: the cells
+     * that leave the grid are discarded only at the end, ghost cells included.
+     * @param generations
+     */
+    public void advance(long generations){
+        Node node=cells;
+        long top=0,left=0;
+
+        while(generations>0){
+            int step=Math.min(MAX_STEP,63-Long.numberOfLeadingZeros(generations));
+
+            //the cells must stay in the center while they grow, otherwise the result would lose them
+            while(node.level<step+3 || !centred(node)){
+                long half=1L<<(node.level-1);
+                node=expand(node);
+                top-=half;
+                left-=half;
+            }
+
+            node=successor(node,step);
+            top+=1L<<(node.level-1);
+            left+=1L<<(node.level-1);
+            generations-=1L<<step;
+        }
+
+        next=clip(window(node,top,left,0,0,level),0,0);
+    }
+
+    /**
+     *
+     * @return number of nodes in the cache
+     */
+    public int getNumberOfNodes(){
+        return nodes.size();
+    }
+
+    /**
+     * Returns the canonical node with the given children
+     * @param nw
+     * @param ne
+     * @param sw
+     * @param se
+     * @return the node
+     */
+    private Node join(Node nw,Node ne,Node sw,Node se){
+        Node tmp=new Node(nw,ne,sw,se);
+        Node node=nodes.get(tmp);
+
+        if(node==null){
+            nodes.put(tmp,tmp);
+            node=tmp;
+        }
+
+        return node;
+    }
+
+    /**
+     *
+     * @param level
+     * @return a node without alive cells
+     */
+    private Node empty(int level){
+        if(level>=empty.length){
+            int length=empty.length;
+            empty=Arrays.copyOf(empty,level+1);
+
+            for(int i=length;i<=level;i++){
+                empty[i]=join(empty[i-1],empty[i-1],empty[i-1],empty[i-1]);
+            }
+        }
+
+        return empty[level];
+    }
+
+    /**
+     *
+     * @param node
+     * @return a node of the upper level with the given node in its center
+     */
+    private Node expand(Node node){
+        Node border=empty(node.level-1);
+
+        return join(join(border,border,border,node.nw),join(border,border,node.ne,border),
+                join(border,node.sw,border,border),join(node.se,border,border,border));
+    }
+
+    /**
+     *
+     * @param node
+     * @return true if all the alive cells are in the central quarter of the node
+     */
+    private static boolean centred(Node node){
+        return node.population==node.nw.se.se.population+node.ne.sw.sw.population+
+                node.sw.ne.ne.population+node.se.nw.nw.population;
+    }
+
+    /**
+     * Calculates the center of the node after 2^step generations
+     * @param node node of level 2 or more
+     * @param step at most the level of the node minus 2
+     * @return the node of the lower level in the center of the given one
+     */
+    private Node successor(Node node,int step){
+        if(node.population==0){
+            return node.nw;
+        }
+
+        if(node.result!=null && node.resultStep==step){
+            return node.result;
+        }
+
+        Node result;
+
+        if(node.level==2){
+            result=nextGeneration(node);
+        }else{
+            Node nw=node.nw,ne=node.ne,sw=node.sw,se=node.se;
+            //the squares of the lower level can't advance of more than half of the generations
+            int childStep=Math.min(step,node.level-3);
+
+            //nine overlapping squares of the lower level, after 2^childStep generations
+            Node c1=successor(nw,childStep);
+            Node c2=successor(join(nw.ne,ne.nw,nw.se,ne.sw),childStep);
+            Node c3=successor(ne,childStep);
+            Node c4=successor(join(nw.sw,nw.se,sw.nw,sw.ne),childStep);
+            Node c5=successor(join(nw.se,ne.sw,sw.ne,se.nw),childStep);
+            Node c6=successor(join(ne.sw,ne.se,se.nw,se.ne),childStep);
+            Node c7=successor(sw,childStep);
+            Node c8=successor(join(sw.ne,se.nw,sw.se,se.sw),childStep);
+            Node c9=successor(se,childStep);
+
+            if(step<node.level-2){
+                //the generations are already done, the center is made of the inner parts of the squares
+                result=join(join(c1.se,c2.sw,c4.ne,c5.nw),join(c2.se,c3.sw,c5.ne,c6.nw),
+                        join(c4.se,c5.sw,c7.ne,c8.nw),join(c5.se,c6.sw,c8.ne,c9.nw));
+            }else{
+                //other 2^childStep generations on the four squares made by the nine ones
+                result=join(successor(join(c1,c2,c4,c5),childStep),successor(join(c2,c3,c5,c6),childStep),
+                        successor(join(c4,c5,c7,c8),childStep),successor(join(c5,c6,c8,c9),childStep));
+            }
+        }
+
+        node.result=result;
+        node.resultStep=step;
+
+        return result;
+    }
+
+    /**
+     * Calculates the next generation of the 2x2 cells in the center of a 4x4 square
+     * @param node node of level 2
+     * @return the node of level 1 in the center
+     */
+    private Node nextGeneration(Node node){
+        int bits=0;
+
+        for(int i=0;i<4;i++){
+            for(int j=0;j<4;j++){
+                Node quarter=i<2?(j<2?node.nw:node.ne):(j<2?node.sw:node.se);
+                Node cell=(i&1)==0?((j&1)==0?quarter.nw:quarter.ne):((j&1)==0?quarter.sw:quarter.se);
+
+                if(cell==ALIVE){
+                    bits|=1<<(i*4+j);
+                }
+            }
+        }
+
+        return join(nextCell(bits,1,1),nextCell(bits,1,2),nextCell(bits,2,1),nextCell(bits,2,2));
+    }
+
+    /**
+     *
+     * @param bits the 4x4 square, a bit for each cell
+     * @param i row of the cell
+     * @param j column of the cell
+     * @return the cell after one generation
+     */
+    private Node nextCell(int bits,int i,int j){
+        int neighbours=0;
+
+        for(int x=i-1;x<=i+1;x++){
+            for(int y=j-1;y<=j+1;y++){
+                if((x!=i || y!=j) && (bits&(1<<(x*4+y)))!=0){
+                    neighbours++;
+                }
+            }
+        }
+
+        boolean alive=(bits&(1<<(i*4+j)))!=0;
+
+        return rule.isAlive(alive,neighbours)?ALIVE:DEAD;
+    }
+
+    /**
+     *
+     * @param node
+     * @param row row of the cell inside the node
+     * @param column column of the cell inside the node
+     * @param value
+     * @return the node with the cell set
+     */
+    private Node set(Node node,int row,int column,boolean value){
+        if(node.level==0){
+            return value?ALIVE:DEAD;
+        }
+
+        int half=1<<(node.level-1);
+
+        if(row<half){
+            if(column<half){
+                return join(set(node.nw,row,column,value),node.ne,node.sw,node.se);
+            }
+
+            return join(node.nw,set(node.ne,row,column-half,value),node.sw,node.se);
+        }
+
+        if(column<half){
+            return join(node.nw,node.ne,set(node.sw,row-half,column,value),node.se);
+        }
+
+        return join(node.nw,node.ne,node.sw,set(node.se,row-half,column-half,value));
+    }
+
+    /**
+     * Kills the cells outside the rows from 1 to row and the columns from 1 to column
+     * @param node
+     * @param top row of the first cell of the node
+     * @param left column of the first cell of the node
+     * @return the node without the cells outside the grid
+     */
+    private Node clip(Node node,long top,long left){
+        long size=1L<<node.level;
+
+        if(node.population==0 || (top>=1 && top+size-1<=row && left>=1 && left+size-1<=column)){
+            return node;
+        }
+
+        if(top>row || top+size-1<1 || left>column || left+size-1<1){
+            return empty(node.level);
+        }
+
+        long half=size>>>1;
+
+        return join(clip(node.nw,top,left),clip(node.ne,top,left+half),
+                clip(node.sw,top+half,left),clip(node.se,top+half,left+half));
+    }
+
+    /**
+     * Copies a square of the given node in a new node
+     * @param node
+     * @param top row of the first cell of the node
+     * @param left column of the first cell of the node
+     * @param targetTop row of the first cell of the square
+     * @param targetLeft column of the first cell of the square
+     * @param targetLevel level of the square
+     * @return the node with the cells of the square
+     */
+    private Node window(Node node,long top,long left,long targetTop,long targetLeft,int targetLevel){
+        long targetSize=1L<<targetLevel;
+
+        //goes down while the square is inside a single child of the node
+        while(node.level>targetLevel){
+            long half=1L<<(node.level-1);
+            boolean up=targetTop+targetSize<=top+half,down=targetTop>=top+half;
+            boolean leftSide=targetLeft+targetSize<=left+half,rightSide=targetLeft>=left+half;
+
+            if(!(up || down) || !(leftSide || rightSide)){
+                break;
+            }
+
+            node=up?(leftSide?node.nw:node.ne):(leftSide?node.sw:node.se);
+            top+=down?half:0;
+            left+=rightSide?half:0;
+        }
+
+        long size=1L<<node.level;
+
+        if(node.population==0 || targetTop>=top+size || targetTop+targetSize<=top
+                || targetLeft>=left+size || targetLeft+targetSize<=left){
+            return empty(targetLevel);
+        }
+
+        if(node.level==targetLevel && top==targetTop && left==targetLeft){
+            return node;
+        }
+
+        long half=targetSize>>>1;
+
+        return join(window(node,top,left,targetTop,targetLeft,targetLevel-1),
+                window(node,top,left,targetTop,targetLeft+half,targetLevel-1),
+                window(node,top,left,targetTop+half,targetLeft,targetLevel-1),
+                window(node,top,left,targetTop+half,targetLeft+half,targetLevel-1));
+    }
+
+    /**
+     * Sets in the matrix the alive cells of the node
+     * @param node
+     * @param top row of the first cell of the node
+     * @param left column of the first cell of the node
+     */
+    private void copyToView(Node node,int top,int left){
+        if(node.population==0 || top>row+1 || left>column+1){
+            return;
+        }
+
+        if(node.level==0){
+            view[top][left]=true;
+        }else{
+            int half=1<<(node.level-1);
+            copyToView(node.nw,top,left);
+            copyToView(node.ne,top,left+half);
+            copyToView(node.sw,top+half,left);
+            copyToView(node.se,top+half,left+half);
+        }
+    }
+
+
+    /**
+     * Square of 2^level x 2^level cells. Two nodes are equal if they have the same children,
+     * and the children are compared by reference because they are canonical too.
+     */
+    private static class Node {
+
+        private final int level;
+        private final Node nw,ne,sw,se;
+        private final long population;
+        private final int hash;
+        //center of the node after 2^resultStep generations
+        private Node result;
+        private int resultStep;
+
+        /**
+         * Creates a single cell
+         * @param population 1 if the cell is alive, 0 otherwise
+         */
+        private Node(long population){
+            level=0;
+            nw=ne=sw=se=null;
+            this.population=population;
+            hash=(int)population;
+        }
+
+        private Node(Node nw,Node ne,Node sw,Node se){
+            level=nw.level+1;
+            this.nw=nw;
+            this.ne=ne;
+            this.sw=sw;
+            this.se=se;
+            population=nw.population+ne.population+sw.population+se.population;
+            hash=((nw.hash*31+ne.hash)*31+sw.hash)*31+se.hash+level;
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Node)){
+                return false;
+            }
+
+            Node node=(Node)o;
+
+            return level==node.level && nw==node.nw && ne==node.ne && sw==node.sw && se==node.se;
+        }
+    }
+}
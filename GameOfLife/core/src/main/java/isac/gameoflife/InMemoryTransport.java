@@ -0,0 +1,390 @@
+package isac.gameoflife;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Transport between virtual devices in the same process, to run a whole wall in a JVM.
+ *
+ * The devices share a Broker, that plays the server: the messages are handed to the device that
+ * listens on the queue through a lock-free queue, without writing them. Every receiver gets its own
+ * shallow copy of a JSON message, so that the sender can send it again and the receivers can't see
+ * each other's changes; the frames are the same arrays, without copies, and must not be changed after
+ * being sent. Every device delivers its messages in order on its own thread, as the consumers of
+ * RabbitMQ.
+ */
+public class InMemoryTransport implements Transport {
+
+    private final static AtomicInteger DEVICES=new AtomicInteger();
+
+    private Broker broker;
+    private AtomicBoolean connected;
+    //names of the queues and the exchanges opened by this device
+    private Set<String> queues,exchanges;
+    private ConcurrentLinkedQueue<Delivery> deliveries;
+    //thread that delivers the messages, and the loop it runs: a new one for every connection
+    private volatile Thread consumerThread;
+    private Consumer consumer;
+    private ReentrantLock lock;
+
+    /**
+     * The server shared by the virtual devices
+     */
+    public static class Broker {
+
+        //listener of every queue, and the subscribers of every exchange
+        private ConcurrentHashMap<String,Subscription> queues;
+        private ConcurrentHashMap<String,CopyOnWriteArrayList<Subscription>> exchanges;
+
+        public Broker(){
+            queues=new ConcurrentHashMap<>();
+            exchanges=new ConcurrentHashMap<>();
+        }
+
+        private void sendToQueue(String name,Delivery delivery){
+            Subscription subscription=queues.get(name);
+
+            //nobody listens: the message would be older than the listener added later
+            if(subscription!=null){
+                subscription.deliver(delivery);
+            }
+        }
+
+        private void sendToExchange(String name,Delivery delivery){
+            CopyOnWriteArrayList<Subscription> subscriptions=exchanges.get(name);
+
+            if(subscriptions!=null){
+                for(Subscription subscription:subscriptions){
+                    subscription.deliver(delivery);
+                }
+            }
+        }
+
+        private CopyOnWriteArrayList<Subscription> getExchange(String name){
+            CopyOnWriteArrayList<Subscription> subscriptions=exchanges.get(name);
+
+            if(subscriptions==null){
+                exchanges.putIfAbsent(name,new CopyOnWriteArrayList<Subscription>());
+                subscriptions=exchanges.get(name);
+            }
+
+            return subscriptions;
+        }
+
+        /**
+         * Removes the listeners of a device
+         * @param transport
+         * @param name name of the queue or the exchange, null for all of them
+         */
+        private void unsubscribe(InMemoryTransport transport,String name){
+            for(String queue:queues.keySet()){
+                Subscription subscription=queues.get(queue);
+
+                if(subscription!=null && subscription.transport==transport && (name==null || name.equals(queue))){
+                    queues.remove(queue,subscription);
+                }
+            }
+
+            for(String exchange:exchanges.keySet()){
+                if(name==null || name.equals(exchange)){
+                    for(Subscription subscription:exchanges.get(exchange)){
+                        if(subscription.transport==transport){
+                            exchanges.get(exchange).remove(subscription);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener of a device on a queue or an exchange
+     */
+    private static class Subscription {
+
+        private InMemoryTransport transport;
+        private MessageListener listener;
+        private String name;
+        //time when the listener was added, the older messages are not delivered
+        private long since;
+
+        private Subscription(InMemoryTransport transport,MessageListener listener,String name){
+            this.transport=transport;
+            this.listener=listener;
+            this.name=name;
+            since=System.currentTimeMillis();
+        }
+
+        /**
+         * It is invoked by the thread of the sender
+         * @param delivery
+         */
+        private void deliver(Delivery delivery){
+            if(delivery.timestamp>=since){
+                transport.enqueue(new Delivery(this,delivery));
+            }
+        }
+    }
+
+    /**
+     * A message waiting to be delivered, JSON or frame
+     */
+    private static class Delivery {
+
+        private Subscription subscription;
+        private JSONObject json;
+        private byte[] frame;
+        private long timestamp;
+
+        private Delivery(JSONObject json,byte[] frame,long timestamp){
+            this.json=json;
+            this.frame=frame;
+            this.timestamp=timestamp;
+        }
+
+        private Delivery(Subscription subscription,Delivery delivery){
+            this(copy(delivery.json,delivery.timestamp),delivery.frame,delivery.timestamp);
+            this.subscription=subscription;
+        }
+
+        /**
+         *
+         * @param json message sent, null for a frame
+         * @param timestamp time of the message
+         * @return a shallow copy of the message with its time, as the messages read from the server
+         */
+        private static JSONObject copy(JSONObject json,long timestamp){
+            if(json==null){
+                return null;
+            }
+
+            JSONObject tmp=new JSONObject();
+
+            try {
+                Iterator<String> keys=json.keys();
+
+                while(keys.hasNext()){
+                    String key=keys.next();
+
+                    tmp.put(key,json.get(key));
+                }
+
+                tmp.put("timestampMessage",timestamp);
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+
+            return tmp;
+        }
+    }
+
+    /**
+     * Delivers the messages in order, until it is stopped
+     */
+    private class Consumer implements Runnable {
+
+        private volatile boolean running=true;
+
+        @Override
+        public void run() {
+            while(running){
+                Delivery delivery=deliveries.poll();
+
+                if(delivery==null){
+                    //woken up by enqueue or closeConnection
+                    LockSupport.park(this);
+                }else{
+                    MessageListener listener=delivery.subscription.listener;
+
+                    try {
+                        if(delivery.frame!=null){
+                            //the frames are read by the listeners that know them
+                            if(listener instanceof FrameListener){
+                                ((FrameListener)listener).handleFrame(delivery.frame);
+                            }
+                        }else{
+                            listener.handleMessage(delivery.subscription.name,delivery.json);
+                        }
+                    } catch (RuntimeException e) {
+                        //a wrong message doesn't stop the delivery of the next ones
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param broker the server shared with the other virtual devices
+     */
+    public InMemoryTransport(Broker broker){
+        this.broker=broker;
+        connected=new AtomicBoolean(false);
+        queues=new HashSet<>();
+        exchanges=new HashSet<>();
+        deliveries=new ConcurrentLinkedQueue<>();
+        consumerThread=null;
+        consumer=null;
+        lock=new ReentrantLock();
+    }
+
+    @Override
+    public boolean connect(){
+        if(connected.compareAndSet(false,true)){
+            consumer=new Consumer();
+            consumerThread=new Thread(consumer,"InMemoryTransport-"+DEVICES.incrementAndGet());
+            consumerThread.setDaemon(true);
+            consumerThread.start();
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isConnected(){
+        return connected.get();
+    }
+
+    @Override
+    public boolean addQueue(String name){
+        lock.lock();
+
+        boolean added=!exchanges.contains(name);
+
+        if(added){
+            queues.add(name);
+        }
+
+        lock.unlock();
+
+        return added;
+    }
+
+    @Override
+    public boolean addQueue(String name,MessageListener listener){
+        if(addQueue(name)){
+            broker.queues.put(name,new Subscription(this,listener,name));
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean addPublishExchange(String name,String mode){
+        lock.lock();
+
+        boolean added=!queues.contains(name);
+
+        //every exchange broadcasts to all the subscribers, as the fanout of RabbitMQ
+        if(added){
+            exchanges.add(name);
+            broker.getExchange(name);
+        }
+
+        lock.unlock();
+
+        return added;
+    }
+
+    @Override
+    public boolean addSubscribeQueue(String name,String mode,MessageListener listener){
+        if(addPublishExchange(name,mode)){
+            broker.getExchange(name).add(new Subscription(this,listener,name));
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void sendMessage(String name,JSONObject message){
+        //the message is not changed: the receivers get a copy with the time
+        send(name,new Delivery(message,null,System.currentTimeMillis()));
+    }
+
+    @Override
+    public void sendMessage(String name,byte[] frame){
+        try {
+            send(name,new Delivery(null,frame,CellsFrame.getTimestamp(frame)));
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close(String name){
+        lock.lock();
+        queues.remove(name);
+        exchanges.remove(name);
+        broker.unsubscribe(this,name);
+        lock.unlock();
+    }
+
+    @Override
+    public void closeConnection(){
+        lock.lock();
+        queues.clear();
+        exchanges.clear();
+        broker.unsubscribe(this,null);
+        lock.unlock();
+
+        Thread tmp=consumerThread;
+
+        if(connected.compareAndSet(true,false) && tmp!=null){
+            consumer.running=false;
+            LockSupport.unpark(tmp);
+
+            //the consumer of the next connection doesn't run next to this one
+            if(tmp!=Thread.currentThread()){
+                try {
+                    tmp.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            deliveries.clear();
+        }
+    }
+
+    private void send(String name,Delivery delivery){
+        boolean queue,exchange;
+
+        lock.lock();
+        queue=queues.contains(name);
+        exchange=exchanges.contains(name);
+        lock.unlock();
+
+        if(queue){
+            broker.sendToQueue(name,delivery);
+        }else if(exchange){
+            broker.sendToExchange(name,delivery);
+        }
+    }
+
+    private void enqueue(Delivery delivery){
+        deliveries.offer(delivery);
+
+        Thread tmp=consumerThread;
+
+        if(tmp!=null){
+            LockSupport.unpark(tmp);
+        }
+    }
+}
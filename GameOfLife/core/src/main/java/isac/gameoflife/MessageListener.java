@@ -0,0 +1,16 @@
+package isac.gameoflife;
+
+import org.json.JSONObject;
+
+
+public interface MessageListener {
+
+    /**
+     *
+     * Callback to handle the incoming messages from the transport
+     *
+     * @param queue name of the queue or the exchange of the message
+     * @param json incoming message
+     */
+    void handleMessage(String queue, JSONObject json);
+}
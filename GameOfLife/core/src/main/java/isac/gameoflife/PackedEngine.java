@@ -0,0 +1,535 @@
+package isac.gameoflife;
+
+
+/**
+ * Engine that packs 64 cells in every long and calculates the next state of a whole word at once.
+ * The neighbours of the cells are summed bit by bit with a network of adders, so there is no branch
+ * and no array access for each single cell.
+ * Conway's rule has its own network; the other rules compare the sum with every number of neighbours
+ * of the rule, using masks prepared when the rule is set.
+ */
+public class PackedEngine extends TiledEngine {
+
+    private final static int TILE_HEIGHT=16;
+    //a tile is as wide as a word
+    private final static int TILE_WIDTH=64;
+    private long[] cells,next;
+    private long[] interiorMask;
+    //number of longs for every row of the grid, ghost cells included
+    private int words;
+    private boolean[][] view;
+    private boolean viewUpdated;
+    private boolean conway;
+    //for every number of neighbours of the rule, its four bits spread on whole words
+    private long[][] birthCounts,survivalCounts;
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     */
+    public PackedEngine(int row,int column){
+        super(row,column,TILE_HEIGHT,TILE_WIDTH);
+        words=(column+2+63)>>>6;
+        cells=new long[(row+2)*words];
+        next=new long[(row+2)*words];
+        view=null;
+        viewUpdated=false;
+        setRule(Rule.CONWAY);
+
+        //the bits of the columns from 1 to column, the only ones that are calculated
+        interiorMask=new long[words];
+        for(int j=1;j<=column;j++){
+            interiorMask[j>>>6]|=1L<<(j&63);
+        }
+    }
+
+    @Override
+    public boolean getCell(int row,int column){
+        return ((cells[row*words+(column>>>6)]>>>(column&63))&1L)!=0;
+    }
+
+    @Override
+    public boolean getNextCell(int row,int column){
+        return ((next[row*words+(column>>>6)]>>>(column&63))&1L)!=0;
+    }
+
+    @Override
+    public void setCell(int row,int column,boolean value){
+        if(getCell(row,column)!=value){
+            cells[row*words+(column>>>6)]^=1L<<(column&63);
+            markCell(row,column);
+            viewUpdated=false;
+        }
+    }
+
+    /**
+     * The rule can't be a Generations rule
+     * @param rule
+     */
+    @Override
+    public void setRule(Rule rule){
+        if(rule.getStates()>2){
+            throw new IllegalArgumentException("Generations rules are not supported");
+        }
+
+        conway=rule.isConway();
+        birthCounts=countMasks(rule.getBirth());
+        survivalCounts=countMasks(rule.getSurvival());
+        markAllTiles();
+    }
+
+    /**
+     * The matrix is a copy of the packed cells, it is rebuilt only if the cells have changed since the last call.
+     * @return the matrix of cells, ghost cells included
+     */
+    @Override
+    public boolean[][] getCells(){
+        if(view==null){
+            view=new boolean[row+2][column+2];
+        }
+
+        if(!viewUpdated){
+            for(int i=0;i<row+2;i++){
+                for(int j=0;j<column+2;j++){
+                    view[i][j]=getCell(i,j);
+                }
+            }
+
+            viewUpdated=true;
+        }
+
+        return view;
+    }
+
+    @Override
+    public void resetGhostCells(){
+        clearGhostCells(cells);
+        viewUpdated=false;
+    }
+
+    /**
+     * Writes the cells of a part of the grid as pixels, reading them a word at a time
+     * @param offset the cell (1,1) of the part is the cell (offset+1,offset+1) of the engine
+     * @param firstRow first row of the part written, from 1
+     * @param lastRow last row of the part written
+     * @param gridColumn number of columns of the part
+     * @param pixels a pixel for every cell of the part, row by row
+     * @param alive color of the alive cells
+     * @param dead color of the dead cells
+     */
+    void getPixels(int offset,int firstRow,int lastRow,int gridColumn,int[] pixels,int alive,int dead){
+        int difference=alive^dead;
+
+        for(int i=firstRow,k=(firstRow-1)*gridColumn;i<=lastRow;i++){
+            int start=(i+offset)*words;
+
+            for(int j=0;j<gridColumn;j+=64){
+                //the bit b of the word is the cell of the column j+b+1 of the part
+                long word=bits(cells,start,words,j+offset+1);
+                int last=Math.min(64,gridColumn-j);
+
+                for(int b=0;b<last;b++,k++){
+                    pixels[k]=dead^(difference&-(int)((word>>>b)&1L));
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return number of bits of a row of the buffers: the cell (row,column) is the bit row*getRowBits()+column
+     */
+    int getRowBits(){
+        return words<<6;
+    }
+
+    /**
+     *
+     * @return the words of the current generation, ghost cells included, one row after the other
+     * as in getRowBits: they must not be changed
+     */
+    long[] getWords(){
+        return cells;
+    }
+
+    /**
+     * Sets the current generation, marking the tiles only for the words that change
+     * @param words the cells, as returned by getWords
+     */
+    void setWords(long[] words){
+        for(int k=0;k<cells.length;k++){
+            long changed=cells[k]^words[k];
+
+            if(changed!=0){
+                int i=k/this.words,first=(k%this.words)<<6;
+
+                cells[k]=words[k];
+                //a tile is a word wide, its first and last changed cells mark all the tiles around them
+                markCell(i,first+Long.numberOfTrailingZeros(changed));
+                markCell(i,first+63-Long.numberOfLeadingZeros(changed));
+                viewUpdated=false;
+            }
+        }
+    }
+
+    /**
+     * Writes the cells of the table as bits, a word at a time
+     * @param table for every bit the index of the cell, as in getRowBits, -1 for a dead cell
+     * @param length number of cells
+     * @param bits the cells, 64 in every word
+     * @param nextGeneration true to read the back buffer, false to read the current generation
+     */
+    void gather(int[] table,int length,long[] bits,boolean nextGeneration){
+        long[] buffer=nextGeneration?next:cells;
+
+        for(int w=0,k=0;k<length;w++){
+            long word=0;
+
+            for(int b=0;b<64 && k<length;b++,k++){
+                int index=table[k];
+
+                if(index>=0){
+                    word|=((buffer[index>>>6]>>>(index&63))&1L)<<b;
+                }
+            }
+
+            bits[w]=word;
+        }
+    }
+
+    /**
+     * Sets the cells of the table to the bits, marking the tiles only for the cells that change
+     * @param table for every bit the index of the cell, as in getRowBits
+     * @param length number of cells
+     * @param bits the cells, 64 in every word
+     */
+    void scatter(int[] table,int length,long[] bits){
+        int rowBits=words<<6;
+
+        for(int k=0;k<length;k++){
+            int index=table[k];
+
+            if((((cells[index>>>6]>>>(index&63))^(bits[k>>>6]>>>(k&63)))&1L)!=0){
+                cells[index>>>6]^=1L<<(index&63);
+                markCell(index/rowBits,index%rowBits);
+                viewUpdated=false;
+            }
+        }
+    }
+
+    /**
+     * Copies the cells of a part of the grid in the format of the checkpoints
+     * @param offset the cell (1,1) of the part is the cell (offset+1,offset+1) of the engine
+     * @param gridRow number of rows of the part
+     * @param gridColumn number of columns of the part
+     * @param grid the rows of the part, Checkpoint.getWordsPerRow(gridColumn) words each
+     */
+    void getGrid(int offset,int gridRow,int gridColumn,long[] grid){
+        int gridWords=Checkpoint.getWordsPerRow(gridColumn);
+        long[] mask=new long[gridWords];
+
+        for(int j=1;j<=gridColumn;j++){
+            mask[j>>>6]|=1L<<(j&63);
+        }
+
+        for(int i=1;i<=gridRow;i++){
+            int start=(i+offset)*words;
+
+            for(int w=0;w<gridWords;w++){
+                //the bit j of the part is the bit j+offset of the engine
+                grid[(i-1)*gridWords+w]=bits(cells,start,words,(w<<6)+offset)&mask[w];
+            }
+        }
+    }
+
+    /**
+     * Replaces the cells of a part of the grid with the cells of the checkpoint, as large as the part
+     * @param offset the cell (1,1) of the part is the cell (offset+1,offset+1) of the engine
+     * @param checkpoint
+     */
+    void setGrid(int offset,Checkpoint checkpoint){
+        int gridWords=Checkpoint.getWordsPerRow(checkpoint.getColumn());
+        long[] mask=new long[words],gridCells=new long[gridWords];
+
+        for(int j=offset+1;j<=offset+checkpoint.getColumn();j++){
+            mask[j>>>6]|=1L<<(j&63);
+        }
+
+        for(int i=1;i<=checkpoint.getRow();i++){
+            int start=(i+offset)*words;
+
+            for(int w=0;w<gridWords;w++){
+                gridCells[w]=checkpoint.getWord(i,w);
+            }
+
+            for(int w=0;w<words;w++){
+                //the bit j of the engine is the bit j-offset of the part
+                long tmp=(w<<6)>=offset?bits(gridCells,0,gridWords,(w<<6)-offset):gridCells[0]<<(offset-(w<<6));
+                cells[start+w]=(cells[start+w]&~mask[w])|(tmp&mask[w]);
+            }
+        }
+
+        viewUpdated=false;
+        markAllTiles();
+    }
+
+    /**
+     * Sets alive the cells of a row a word at a time
+     * @param row
+     * @param column first column of the cells
+     * @param length number of cells
+     */
+    void setRun(int row,int column,int length){
+        int last=column+length-1;
+
+        for(int w=column>>>6;w<=last>>>6;w++){
+            int first=Math.max(column,w<<6),end=Math.min(last,(w<<6)+63);
+            //the bits from first to end of the word
+            long mask=(-1L>>>(63-(end-first)))<<(first&63);
+
+            cells[row*words+w]|=mask;
+            //the run is inside a tile, its ends mark all the tiles around it
+            markCell(row,first);
+            markCell(row,end);
+        }
+
+        viewUpdated=false;
+    }
+
+    @Override
+    protected boolean calculateTile(int firstRow,int lastRow,int firstColumn,int lastColumn){
+        int w=firstColumn>>>6;
+        long changed=0L;
+
+        if(conway){
+            for(int i=firstRow;i<=lastRow;i++){
+                int middle=i*words;
+                long tmp=nextWord(middle-words,middle,middle+words,w)&interiorMask[w];
+
+                changed|=tmp^cells[middle+w];
+                next[middle+w]=tmp;
+            }
+        }else{
+            for(int i=firstRow;i<=lastRow;i++){
+                int middle=i*words;
+                long tmp=nextWordWithRule(middle-words,middle,middle+words,w)&interiorMask[w];
+
+                changed|=tmp^cells[middle+w];
+                next[middle+w]=tmp;
+            }
+        }
+
+        return changed!=0L;
+    }
+
+    @Override
+    protected void swapBuffers(){
+        long[] tmp=cells;
+        cells=next;
+        next=tmp;
+        viewUpdated=false;
+    }
+
+    @Override
+    protected void clearPreviousGhostCells(){
+        clearGhostCells(next);
+    }
+
+    /**
+     * Clears the ghost cells of the buffer, invoking markCell for every ghost cell that was alive
+     * @param buffer
+     */
+    private void clearGhostCells(long[] buffer){
+        int lastWord=(column+1)>>>6;
+        long first=1L;
+        long last=1L<<((column+1)&63);
+
+        for(int w=0;w<words;w++){
+            clearGhostWord(buffer,0,w,~0L);
+            clearGhostWord(buffer,row+1,w,~0L);
+        }
+
+        for(int i=1;i<row+1;i++){
+            clearGhostWord(buffer,i,0,first);
+            clearGhostWord(buffer,i,lastWord,last);
+        }
+    }
+
+    /**
+     * Clears the bits of a word of the buffer, invoking markCell for every bit that was set
+     * @param buffer
+     * @param row
+     * @param w index of the word inside the row
+     * @param mask bits to clear
+     */
+    private void clearGhostWord(long[] buffer,int row,int w,long mask){
+        long alive=buffer[row*words+w]&mask;
+
+        if(alive!=0L){
+            buffer[row*words+w]&=~mask;
+
+            while(alive!=0L){
+                int bit=Long.numberOfTrailingZeros(alive);
+                markCell(row,(w<<6)+bit);
+                alive&=alive-1;
+            }
+        }
+    }
+
+    /**
+     * Calculates the next state of 64 cells of a row
+     * @param up index of the first word of the row above
+     * @param middle index of the first word of the row
+     * @param down index of the first word of the row below
+     * @param w index of the word inside the row
+     * @return the next state of the cells of the word
+     */
+    private long nextWord(int up,int middle,int down,int w){
+        long upWest=west(up,w),upCenter=cells[up+w],upEast=east(up,w);
+        long west=west(middle,w),center=cells[middle+w],east=east(middle,w);
+        long downWest=west(down,w),downCenter=cells[down+w],downEast=east(down,w);
+
+        //sum of the three cells above, on two bits
+        long upOnes=upWest^upCenter^upEast;
+        long upTwos=(upWest&upCenter)|(upEast&(upWest^upCenter));
+
+        //sum of the three cells below, on two bits
+        long downOnes=downWest^downCenter^downEast;
+        long downTwos=(downWest&downCenter)|(downEast&(downWest^downCenter));
+
+        //sum of the cells on the left and on the right, on two bits
+        long middleOnes=west^east;
+        long middleTwos=west&east;
+
+        //sum of the three counts: bit of weight one and carry
+        long ones=upOnes^middleOnes^downOnes;
+        long onesCarry=(upOnes&middleOnes)|(downOnes&(upOnes^middleOnes));
+
+        //bit of weight two and carry towards the bit of weight four
+        long twosSum=upTwos^middleTwos^downTwos;
+        long twosCarry=(upTwos&middleTwos)|(downTwos&(upTwos^middleTwos));
+        long twos=twosSum^onesCarry;
+        long fours=twosCarry|(twosSum&onesCarry);
+
+        //2 or 3 neighbours: the cell survives, 3 neighbours: the cell is born
+        return twos&~fours&(ones|center);
+    }
+
+    /**
+     * Calculates the next state of 64 cells of a row with any rule: the number of neighbours is
+     * summed on four bits and compared with the numbers of the rule
+     * @param up index of the first word of the row above
+     * @param middle index of the first word of the row
+     * @param down index of the first word of the row below
+     * @param w index of the word inside the row
+     * @return the next state of the cells of the word
+     */
+    private long nextWordWithRule(int up,int middle,int down,int w){
+        long upWest=west(up,w),upCenter=cells[up+w],upEast=east(up,w);
+        long west=west(middle,w),center=cells[middle+w],east=east(middle,w);
+        long downWest=west(down,w),downCenter=cells[down+w],downEast=east(down,w);
+
+        //sums of the cells above, on the sides and below, on two bits
+        long upOnes=upWest^upCenter^upEast;
+        long upTwos=(upWest&upCenter)|(upEast&(upWest^upCenter));
+        long downOnes=downWest^downCenter^downEast;
+        long downTwos=(downWest&downCenter)|(downEast&(downWest^downCenter));
+        long middleOnes=west^east;
+        long middleTwos=west&east;
+
+        //bit of weight one and carry
+        long ones=upOnes^middleOnes^downOnes;
+        long onesCarry=(upOnes&middleOnes)|(downOnes&(upOnes^middleOnes));
+
+        //four bits of weight two: they are summed in pairs and then the pairs are summed
+        long upMiddle=upTwos^middleTwos,upMiddleCarry=upTwos&middleTwos;
+        long downCarry=downTwos^onesCarry,downCarryCarry=downTwos&onesCarry;
+        long twos=upMiddle^downCarry;
+        long twosCarry=upMiddle&downCarry;
+
+        //at most two of the carries can be set together, and only the first two
+        long fours=upMiddleCarry^downCarryCarry^twosCarry;
+        long eights=upMiddleCarry&downCarryCarry;
+
+        long born=0L,survived=0L;
+
+        for(long[] count : birthCounts){
+            born|=~((ones^count[0])|(twos^count[1])|(fours^count[2])|(eights^count[3]));
+        }
+
+        for(long[] count : survivalCounts){
+            survived|=~((ones^count[0])|(twos^count[1])|(fours^count[2])|(eights^count[3]));
+        }
+
+        return (born&~center)|(survived&center);
+    }
+
+    /**
+     *
+     * @param buffer
+     * @param start index of the first word of the row
+     * @param length number of words of the row
+     * @param first index of the first bit
+     * @return the 64 bits of the row from the first one, the bits after the row are 0
+     */
+    private static long bits(long[] buffer,int start,int length,int first){
+        int w=first>>>6,shift=first&63;
+        long tmp=w<length?buffer[start+w]>>>shift:0L;
+
+        if(shift!=0 && w+1<length){
+            tmp|=buffer[start+w+1]<<(64-shift);
+        }
+
+        return tmp;
+    }
+
+    /**
+     *
+     * @param mask mask of the numbers of neighbours of a rule
+     * @return for every number in the mask, its four bits as words with all the bits equal
+     */
+    private static long[][] countMasks(int mask){
+        long[][] counts=new long[Integer.bitCount(mask)][];
+
+        for(int n=0,k=0;n<=8;n++){
+            if(((mask>>>n)&1)!=0){
+                counts[k++]=new long[]{-((long)n&1),-(((long)n>>>1)&1),-(((long)n>>>2)&1),-(((long)n>>>3)&1)};
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     *
+     * @param start index of the first word of the row
+     * @param w index of the word inside the row
+     * @return the word of the row shifted so that every bit holds the cell on its left
+     */
+    private long west(int start,int w){
+        long tmp=cells[start+w]<<1;
+
+        if(w>0){
+            tmp|=cells[start+w-1]>>>63;
+        }
+
+        return tmp;
+    }
+
+    /**
+     *
+     * @param start index of the first word of the row
+     * @param w index of the word inside the row
+     * @return the word of the row shifted so that every bit holds the cell on its right
+     */
+    private long east(int start,int w){
+        long tmp=cells[start+w]>>>1;
+
+        if(w<words-1){
+            tmp|=cells[start+w+1]<<63;
+        }
+
+        return tmp;
+    }
+}
@@ -0,0 +1,74 @@
+package isac.gameoflife;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Task that calculates a range of rows of tiles of a TiledEngine, splitting it in two halves
+ * running in parallel until the range is not larger than the grain.
+ * The fork/join classes are available on Android from API level 21, so this class is used only
+ * when the parallel step is enabled.
+ */
+class ParallelStep extends RecursiveTask<Integer> {
+
+    private static final long serialVersionUID=1L;
+
+    private static ForkJoinPool pool=null;
+
+    private TiledEngine engine;
+    private int firstTileRow,lastTileRow;
+    private int grain;
+
+    /**
+     *
+     * @param engine
+     * @param firstTileRow first row of tiles, included
+     * @param lastTileRow last row of tiles, excluded
+     * @param grain maximum number of rows of tiles calculated by a single task
+     */
+    ParallelStep(TiledEngine engine,int firstTileRow,int lastTileRow,int grain){
+        this.engine=engine;
+        this.firstTileRow=firstTileRow;
+        this.lastTileRow=lastTileRow;
+        this.grain=grain;
+    }
+
+    /**
+     * All the engines share the same pool, with a thread for each core
+     * @return the pool
+     */
+    static synchronized ForkJoinPool getSharedPool(){
+        if(pool==null){
+            pool=new ForkJoinPool();
+        }
+
+        return pool;
+    }
+
+    /**
+     * Calculates the tiles in the pool
+     * @param engine
+     * @param tileRows number of rows of tiles
+     * @param grain maximum number of rows of tiles calculated by a single task
+     * @return number of tiles that were skipped
+     */
+    static int calculate(TiledEngine engine,int tileRows,int grain){
+        return getSharedPool().invoke(new ParallelStep(engine,0,tileRows,grain));
+    }
+
+    @Override
+    protected Integer compute(){
+        if(lastTileRow-firstTileRow<=grain){
+            return engine.calculateTileRows(firstTileRow,lastTileRow);
+        }
+
+        int middle=(firstTileRow+lastTileRow)>>>1;
+        ParallelStep first=new ParallelStep(engine,firstTileRow,middle,grain);
+
+        first.fork();
+        int skipped=new ParallelStep(engine,middle,lastTileRow,grain).compute();
+
+        return first.join()+skipped;
+    }
+}
@@ -0,0 +1,308 @@
+package isac.gameoflife;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Streaming parser of the pattern files, in the RLE format or in the plaintext format (.cells).
+ * The header is read by the constructor, then read passes the runs of alive cells to a target
+ * while the file is read: the pattern is never kept in memory, so a file of some megabytes can
+ * be written straight into the grid.
+ * The states of the multi-state RLE files are all read as alive.
+ */
+public class PatternReader {
+
+    /**
+     * Format of the pattern file
+     */
+    public enum Format {
+        RLE,PLAINTEXT
+    }
+
+    /**
+     * Receiver of the alive cells of the pattern
+     */
+    public interface Target {
+
+        /**
+         * Sets alive the cells of a row
+         * @param row row of the cells, from 0
+         * @param column column of the first cell, from 0
+         * @param length number of cells
+         */
+        void setRun(int row,int column,int length);
+    }
+
+    private BufferedReader reader;
+    private Format format;
+    private int width,height;
+    private Rule rule;
+    //first character of the pattern, read together with the header
+    private int next;
+    private int line;
+
+    /**
+     * Reads the header of the pattern: the comments, and the size and the rule of the RLE files
+     * @param reader
+     * @throws IOException if the header can't be read or the rule is not valid
+     */
+    public PatternReader(Reader reader) throws IOException {
+        this.reader=reader instanceof BufferedReader?(BufferedReader)reader:new BufferedReader(reader);
+        format=null;
+        width=-1;
+        height=-1;
+        rule=null;
+        line=1;
+
+        readHeader();
+    }
+
+    /**
+     *
+     * @return format of the pattern
+     */
+    public Format getFormat(){
+        return format;
+    }
+
+    /**
+     *
+     * @return number of columns of the pattern, -1 if the file doesn't say it
+     */
+    public int getWidth(){
+        return width;
+    }
+
+    /**
+     *
+     * @return number of rows of the pattern, -1 if the file doesn't say it
+     */
+    public int getHeight(){
+        return height;
+    }
+
+    /**
+     *
+     * @return rule of the pattern, null if the file doesn't say it
+     */
+    public Rule getRule(){
+        return rule;
+    }
+
+    /**
+     * Reads the cells of the pattern, passing the runs of alive cells to the target row by row.
+     * The reader is not closed.
+     * @param target
+     * @throws IOException if the file can't be read or it is not valid
+     */
+    public void read(Target target) throws IOException {
+        if(format==Format.RLE){
+            readRle(target);
+        }else{
+            readPlaintext(target);
+        }
+    }
+
+    /**
+     * Skips the comments and reads the line of the size, if there is one
+     * @throws IOException
+     */
+    private void readHeader() throws IOException {
+        int c=reader.read();
+
+        while(c!=-1){
+            if(c=='#'){
+                //comment of the RLE files
+                format=Format.RLE;
+                skipLine();
+            }else if(c=='!'){
+                //comment of the plaintext files
+                format=Format.PLAINTEXT;
+                skipLine();
+            }else if(c=='x' && format!=Format.PLAINTEXT){
+                format=Format.RLE;
+                parseSize("x"+reader.readLine());
+                line++;
+            }else if(c=='\n'){
+                line++;
+            }else if(!Character.isWhitespace(c)){
+                break;
+            }
+
+            c=reader.read();
+        }
+
+        if(format==null){
+            //a pattern without header
+            format=c=='.' || c=='O' || c=='*'?Format.PLAINTEXT:Format.RLE;
+        }
+
+        next=c;
+    }
+
+    /**
+     * Parses the line of the size of the RLE files: x = m, y = n, rule = abc
+     * @param header
+     * @throws IOException
+     */
+    private void parseSize(String header) throws IOException {
+        for(String item : header.split(",")){
+            int index=item.indexOf('=');
+
+            if(index<0){
+                throw new IOException("Invalid header at line "+line+": "+header);
+            }
+
+            String key=item.substring(0,index).trim(),value=item.substring(index+1).trim();
+
+            try{
+                switch(key){
+                    case "x":width=Integer.parseInt(value);break;
+                    case "y":height=Integer.parseInt(value);break;
+                    case "rule":rule=Rule.parse(value);break;
+                    default:break;
+                }
+            }catch(IllegalArgumentException e){
+                throw new IOException("Invalid header at line "+line+": "+header,e);
+            }
+        }
+
+        if(width<0 || height<0){
+            throw new IOException("Invalid size at line "+line+": "+header);
+        }
+    }
+
+    /**
+     * Reads the runs of the RLE files: the number of cells, if there is more than one, and b for the
+     * dead cells, o (or a state) for the alive cells, $ for the end of the rows and ! for the end
+     * @param target
+     * @throws IOException
+     */
+    private void readRle(Target target) throws IOException {
+        int row=0,column=0,count=0;
+
+        for(int c=next;c!=-1 && c!='!';c=reader.read()){
+            if(c>='0' && c<='9'){
+                count=count*10+(c-'0');
+                continue;
+            }else if(c=='\n'){
+                line++;
+                continue;
+            }else if(Character.isWhitespace(c)){
+                //the lines can be broken anywhere, even between the number and the tag
+                continue;
+            }
+
+            int length=count==0?1:count;
+
+            if(c=='b' || c=='.'){
+                column+=length;
+            }else if(c=='o' || (c>='A' && c<='X')){
+                target.setRun(row,column,length);
+                column+=length;
+            }else if(c>='p' && c<='y'){
+                //first letter of the states after X, the second one is a state
+                c=reader.read();
+
+                if(c<'A' || c>'X'){
+                    throw new IOException("Invalid state at line "+line);
+                }
+
+                target.setRun(row,column,length);
+                column+=length;
+            }else if(c=='$'){
+                row+=length;
+                column=0;
+            }else if(c=='#'){
+                skipLine();
+            }else{
+                throw new IOException("Unexpected character '"+(char)c+"' at line "+line);
+            }
+
+            count=0;
+        }
+    }
+
+    /**
+     * Reads the rows of the plaintext files: . for the dead cells, O or * for the alive cells.
+     * The lines starting with ! are comments.
+     * @param target
+     * @throws IOException
+     */
+    private void readPlaintext(Target target) throws IOException {
+        int row=0,column=0,first=-1;
+
+        for(int c=next;c!=-1;c=reader.read()){
+            if(c=='O' || c=='*'){
+                if(first<0){
+                    first=column;
+                }
+
+                column++;
+                continue;
+            }
+
+            if(first>=0){
+                target.setRun(row,first,column-first);
+                first=-1;
+            }
+
+            if(c=='.'){
+                column++;
+            }else if(c=='!' && column==0){
+                skipLine();
+            }else if(c=='\n'){
+                row++;
+                line++;
+                column=0;
+            }else if(c!='\r'){
+                throw new IOException("Unexpected character '"+(char)c+"' at line "+line);
+            }
+        }
+
+        if(first>=0){
+            target.setRun(row,first,column-first);
+        }
+    }
+
+    /**
+     * Skips the rest of the line
+     * @throws IOException
+     */
+    private void skipLine() throws IOException {
+        reader.readLine();
+        line++;
+    }
+
+    /**
+     * Target that measures the pattern, for the plaintext files that don't say their size
+     */
+    public static class Bounds implements Target {
+
+        private int width,height;
+
+        @Override
+        public void setRun(int row,int column,int length){
+            width=Math.max(width,column+length);
+            height=Math.max(height,row+1);
+        }
+
+        /**
+         *
+         * @return number of columns from the first one to the last alive cell
+         */
+        public int getWidth(){
+            return width;
+        }
+
+        /**
+         *
+         * @return number of rows from the first one to the last alive cell
+         */
+        public int getHeight(){
+            return height;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package isac.gameoflife;
+
+import java.util.Arrays;
+
+
+/**
+ * Recognises the grids that repeat themselves, like the still lifes and the oscillators.
+ * It keeps the last generations given to the engine, ghost cells included, together with the
+ * generations the engine calculated from them: when a generation is the same of one of the last
+ * ones, its next generation is already known and it can be copied instead of being calculated.
+ * The generations are the words of the PackedEngine, copied as they are: they are compared by a
+ * 64-bit hash and then word by word, so a collision can't replay a wrong generation.
+ */
+public class PeriodDetector {
+
+    private int maxPeriod;
+    //ring of the last generations: the input of the engine, its hash and the output of the engine
+    private long[][] inputs,outputs;
+    private long[] hashes;
+    private int last,size;
+    //position in the ring of the output to replay, -1 if it is not known
+    private int replay;
+    private int period;
+
+    /**
+     *
+     * @param maxPeriod longest period that is recognised
+     */
+    public PeriodDetector(int maxPeriod){
+        this.maxPeriod=maxPeriod;
+        inputs=new long[maxPeriod+1][];
+        outputs=new long[maxPeriod+1][];
+        hashes=new long[maxPeriod+1];
+        clear();
+    }
+
+    /**
+     * Forgets the last generations; it has to be invoked when the same cells can give a different
+     * generation, for example because the rule has changed.
+     */
+    public void clear(){
+        last=-1;
+        size=0;
+        replay=-1;
+        period=0;
+    }
+
+    /**
+     *
+     * @return the period of the cells given to the engine in the last generation, 1 for a still life,
+     * 0 if they did not repeat within the longest period
+     */
+    public int getPeriod(){
+        return period;
+    }
+
+    /**
+     * Records the cells that are going to be calculated, it has to be followed by setOutput
+     * @param words cells of the engine, ghost cells included
+     * @return true if the next generation is known and it can be replayed, false otherwise
+     */
+    public boolean setInput(long[] words){
+        last=(last+1)%inputs.length;
+        size=Math.min(size+1,inputs.length);
+        inputs[last]=copy(words,inputs[last]);
+        hashes[last]=hash(inputs[last]);
+        replay=-1;
+        period=0;
+
+        for(int p=1;p<size && p<=maxPeriod;p++){
+            int index=(last-p+inputs.length)%inputs.length;
+
+            if(hashes[index]==hashes[last] && Arrays.equals(inputs[index],inputs[last])){
+                replay=index;
+                period=p;
+                break;
+            }
+        }
+
+        return replay!=-1;
+    }
+
+    /**
+     *
+     * @return the next generation of the cells given to setInput, null if it is not known:
+     * it must not be changed
+     */
+    public long[] getReplay(){
+        return replay==-1?null:outputs[replay];
+    }
+
+    /**
+     * Records the generation calculated from the cells given to setInput
+     * @param words cells of the engine, ghost cells included
+     */
+    public void setOutput(long[] words){
+        //the output of a replay is the same of the replayed one
+        outputs[last]=copy(replay!=-1?outputs[replay]:words,outputs[last]);
+    }
+
+    /**
+     *
+     * @param words
+     * @param copy array to reuse, it can be null
+     * @return a copy of the words
+     */
+    private static long[] copy(long[] words,long[] copy){
+        if(copy==null || copy.length!=words.length){
+            copy=new long[words.length];
+        }
+
+        System.arraycopy(words,0,copy,0,words.length);
+
+        return copy;
+    }
+
+    /**
+     *
+     * @param words
+     * @return 64-bit hash of the words, mixing them one after the other
+     */
+    private static long hash(long[] words){
+        long hash=words.length;
+
+        for(long word : words){
+            hash=(hash^word)*0x9E3779B97F4A7C15L;
+            hash^=hash>>>29;
+        }
+
+        return hash;
+    }
+}
@@ -22,6 +22,8 @@ public class PinchInfo implements Serializable {
     public final static String SCREEN_HEIGHT="screenHeight";
     public final static String XDPI="xdpi";
     public final static String YDPI="ydpi";
+    //version of the frames of cells read by the device, the old devices don't send it
+    public final static String FRAMES="frames";
     private Direction direction;
     private String address;
     private Integer xcoordinate;
@@ -142,6 +144,7 @@ public class PinchInfo implements Serializable {
             jo.put(SCREEN_HEIGHT, getScreenHeight());
             jo.put(XDPI, getXDpi() );
             jo.put(YDPI, getYDpi() );
+            jo.put(FRAMES, CellsFrame.VERSION);
             jo.put("type","pinch");
         } catch (JSONException e) {
             e.printStackTrace();
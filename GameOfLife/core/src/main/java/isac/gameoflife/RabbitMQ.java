@@ -19,7 +19,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class RabbitMQ{
+public class RabbitMQ implements Transport {
 
     private ConnectionFactory factory;
     private Connection connection;
@@ -51,6 +51,7 @@ public class RabbitMQ{
      * Establishes a connection with the server
      * @return if the connection has established
      */
+    @Override
     public boolean connect(){
         factory = new ConnectionFactory();
         factory.setHost(address);
@@ -71,6 +72,7 @@ public class RabbitMQ{
      * @param name queue's name
      * @return true if the queue was successfully added or it already exists. False otherwise
      */
+    @Override
     public boolean addQueue(String name){
 
         lock.lock();
@@ -104,6 +106,7 @@ public class RabbitMQ{
      * @param listener a MessageListener object.
      * @return true if the queue was successfully or it already exists. False otherwise
      */
+    @Override
     public boolean addQueue(String name, final MessageListener listener){
         if(addQueue(name)) {
             lock.lock();
@@ -123,6 +126,7 @@ public class RabbitMQ{
      * @param mode working mode of the exchange (direct, topic, headers and fanout)
      * @return true if the exchange was successfully added or it already exists. False otherwise
      */
+    @Override
     public boolean addPublishExchange(String name,String mode){
 
         lock.lock();
@@ -156,6 +160,7 @@ public class RabbitMQ{
      * @param listener a MessageListener object.
      * @return true if the queue was successfully bind or it already exists. False otherwise
      */
+    @Override
     public boolean addSubscribeQueue(String name,String mode,MessageListener listener){
         if(addPublishExchange(name,mode)) {
             try {
@@ -182,6 +187,7 @@ public class RabbitMQ{
      * @param name name of the exchange or the queue
      * @param message message to be sent
      */
+    @Override
     public void sendMessage(String name,JSONObject message){
         try {
             message.put("timestampMessage",System.currentTimeMillis());
@@ -200,12 +206,36 @@ public class RabbitMQ{
         }
     }
 
+    /**
+     * Sends a binary frame
+     *
+     * @param name name of the exchange or the queue
+     * @param frame frame to be sent, with the time of the message in the header
+     */
+    @Override
+    public void sendMessage(String name,byte[] frame){
+        try {
+            lock.lock();
+            if (queue.containsKey(name)) {
+                queue.get(name).basicPublish("", name, null, frame);
+            } else if (exchange.containsKey(name)) {
+                exchange.get(name).basicPublish(name, "", null, frame);
+            }
+
+        }catch (IOException e){
+            e.printStackTrace();
+        }finally{
+            lock.unlock();
+        }
+    }
+
     /**
      *
      * Closes connection with the RabbitMQ's server. If there's any channel opened,
      * it will be closed
      *
      */
+    @Override
     public void closeConnection() {
         lock.lock();
         Set<String> setQueue = queue.keySet();
@@ -237,6 +267,7 @@ public class RabbitMQ{
      *
      * @param name name of the exchange or the queue
      */
+    @Override
     public void close(String name){
 
         lock.lock();
@@ -259,6 +290,7 @@ public class RabbitMQ{
      *
      * @return True if the device is connected to the server. False otherwise
      */
+    @Override
     public boolean isConnected(){
         return connected.get();
     }
@@ -283,7 +315,8 @@ public class RabbitMQ{
      *
      * @param listener a MessageListener object
      * @param channel channel where to add the listener to
-     * @param name name of the queue or the exchange
+     * @param name name of the queue
+     * @param key name of the queue or the exchange, passed to the listener
      */
     private void addListener(final MessageListener listener,Channel channel,String name,final String key){
 
@@ -305,13 +338,22 @@ public class RabbitMQ{
 
                     lock.unlock();
 
+                    if(CellsFrame.isFrame(body)){
+                        //the frames are read by the listeners that know them
+                        if(listener instanceof FrameListener && CellsFrame.getTimestamp(body)>=millis){
+                            ((FrameListener)listener).handleFrame(body);
+                        }
+
+                        return;
+                    }
+
                     JSONObject message=new JSONObject(new String(body,"UTF-8"));
 
                     //check if the message was sent before channel creation
                     if(message.getLong("timestampMessage")>=millis) {
-                        listener.handleMessage(consumerTag, envelope, properties,message);
+                        listener.handleMessage(key,message);
                     }
-                } catch (JSONException e) {
+                } catch (JSONException | IllegalArgumentException e) {
                     e.printStackTrace();
                 }
             }
@@ -0,0 +1,220 @@
+package isac.gameoflife;
+
+
+/**
+ * Outer totalistic rule: the next state of a cell depends only on its state and on the number of its
+ * live neighbours. The rulestring is parsed once and the rule is kept as two masks, where the bit n
+ * is set if a cell with n live neighbours is born (or survives).
+ * A "Generations" rule has more than two states: a cell that does not survive goes through the
+ * dying states 2, 3, ... before becoming dead, and only the cells in state 1 count as alive.
+ */
+public class Rule {
+
+    /**
+     * Conway's game of life
+     */
+    public final static Rule CONWAY=parse("B3/S23");
+
+    private int birth,survival;
+    private int states;
+
+    /**
+     *
+     * @param birth mask of the numbers of neighbours for which a dead cell is born
+     * @param survival mask of the numbers of neighbours for which a live cell survives
+     * @param states number of states of a cell, 2 if the rule is not a Generations rule
+     */
+    public Rule(int birth,int survival,int states){
+        if((birth&~0x1FF)!=0 || (survival&~0x1FF)!=0){
+            throw new IllegalArgumentException("A cell has at most 8 neighbours");
+        }
+
+        //the cells outside the grid and far from the live ones would be born all together
+        if((birth&1)!=0){
+            throw new IllegalArgumentException("Rules with birth on 0 neighbours are not supported");
+        }
+
+        if(states<2 || states>Byte.MAX_VALUE){
+            throw new IllegalArgumentException("Invalid number of states: "+states);
+        }
+
+        this.birth=birth;
+        this.survival=survival;
+        this.states=states;
+    }
+
+    /**
+     * Parses a rulestring in the B/S notation (B3/S23), in the S/B notation (23/3), or a Generations
+     * rulestring (B2/S/C3 or /2/3), the letters are case insensitive
+     * @param rulestring
+     * @return the rule
+     */
+    public static Rule parse(String rulestring){
+        String[] parts=rulestring.trim().split("/",-1);
+        int birth=0,survival=0,states=2;
+
+        if(parts.length<2 || parts.length>3){
+            throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+        }
+
+        boolean letters=false;
+
+        for(String part : parts){
+            letters|=part.length()>0 && Character.isLetter(part.charAt(0));
+        }
+
+        if(letters){
+            boolean[] found=new boolean[3];
+
+            for(String part : parts){
+                if(part.length()==0){
+                    throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+                }
+
+                switch(Character.toUpperCase(part.charAt(0))){
+                    case 'B':found[0]=true;birth=parseCounts(part.substring(1),rulestring);break;
+                    case 'S':found[1]=true;survival=parseCounts(part.substring(1),rulestring);break;
+                    case 'C':case 'G':found[2]=true;states=parseStates(part.substring(1),rulestring);break;
+                    default:throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+                }
+            }
+
+            if(!found[0] || !found[1] || (parts.length==3 && !found[2])){
+                throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+            }
+        }else{
+            survival=parseCounts(parts[0],rulestring);
+            birth=parseCounts(parts[1],rulestring);
+
+            if(parts.length==3){
+                states=parseStates(parts[2],rulestring);
+            }
+        }
+
+        return new Rule(birth,survival,states);
+    }
+
+    /**
+     *
+     * @return mask of the numbers of neighbours for which a dead cell is born
+     */
+    public int getBirth(){
+        return birth;
+    }
+
+    /**
+     *
+     * @return mask of the numbers of neighbours for which a live cell survives
+     */
+    public int getSurvival(){
+        return survival;
+    }
+
+    /**
+     *
+     * @return number of states of a cell, 2 if the rule is not a Generations rule
+     */
+    public int getStates(){
+        return states;
+    }
+
+    /**
+     *
+     * @return true if the rule is Conway's game of life
+     */
+    public boolean isConway(){
+        return equals(CONWAY);
+    }
+
+    /**
+     *
+     * @param alive
+     * @param neighbours number of live neighbours
+     * @return true if the cell is alive in the next generation, false otherwise (or dying, with a Generations rule)
+     */
+    public boolean isAlive(boolean alive,int neighbours){
+        return (((alive?survival:birth)>>>neighbours)&1)!=0;
+    }
+
+    /**
+     *
+     * @param state state of the cell, 0 if it is dead and 1 if it is alive
+     * @param neighbours number of live neighbours
+     * @return the state of the cell in the next generation
+     */
+    public int nextState(int state,int neighbours){
+        if(state==0){
+            return isAlive(false,neighbours)?1:0;
+        }
+
+        if(state==1 && isAlive(true,neighbours)){
+            return 1;
+        }
+
+        //a cell that does not survive starts dying, a dying cell gets older until it is dead
+        return (state+1)%states;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(!(o instanceof Rule)){
+            return false;
+        }
+
+        Rule rule=(Rule)o;
+
+        return birth==rule.birth && survival==rule.survival && states==rule.states;
+    }
+
+    @Override
+    public int hashCode(){
+        return (birth*31+survival)*31+states;
+    }
+
+    /**
+     *
+     * @return the rulestring in the B/S notation, followed by the number of states if it is a Generations rule
+     */
+    @Override
+    public String toString(){
+        String rulestring="B"+counts(birth)+"/S"+counts(survival);
+
+        return states>2?rulestring+"/C"+states:rulestring;
+    }
+
+    private static int parseCounts(String counts,String rulestring){
+        int mask=0;
+
+        for(int i=0;i<counts.length();i++){
+            char c=counts.charAt(i);
+
+            if(c<'0' || c>'8'){
+                throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+            }
+
+            mask|=1<<(c-'0');
+        }
+
+        return mask;
+    }
+
+    private static int parseStates(String states,String rulestring){
+        try{
+            return Integer.parseInt(states);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Invalid rulestring: "+rulestring);
+        }
+    }
+
+    private static String counts(int mask){
+        StringBuilder builder=new StringBuilder();
+
+        for(int i=0;i<=8;i++){
+            if(((mask>>>i)&1)!=0){
+                builder.append(i);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,304 @@
+package isac.gameoflife;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Hands the generations over from the thread that calculates them to the thread that draws them,
+ * with three snapshots that are recycled: the producer writes the back one, the consumer reads the
+ * front one and the middle one is the last published. Publishing and consuming exchange the index
+ * of the middle snapshot atomically, so the renderer never waits for the calculation and the
+ * calculation never waits for the renderer; the generations published while the renderer is busy
+ * replace each other and only the last one is drawn.
+ */
+public class SnapshotExchange {
+
+    //bit of the middle index set when the snapshot was published and not consumed yet
+    private final static int FRESH=4;
+
+    private Snapshot[] snapshots;
+    private AtomicInteger middle;
+    //owned by the producers and by the consumer
+    private int back,front;
+    //the producers are serialized among themselves, the consumer never takes it
+    private ReentrantLock lockProducers;
+    private long sequence;
+
+    /**
+     *
+     * @param row number of rows of the grid
+     * @param column number of columns of the grid
+     */
+    public SnapshotExchange(int row,int column){
+        snapshots=new Snapshot[3];
+
+        for(int i=0;i<3;i++){
+            snapshots[i]=new Snapshot(row,column);
+        }
+
+        back=0;
+        middle=new AtomicInteger(1);
+        front=2;
+        lockProducers=new ReentrantLock();
+        sequence=0;
+    }
+
+    /**
+     * Returns the snapshot to write, until publish is invoked the other producers wait
+     * @return the back snapshot
+     */
+    public Snapshot beginPublish(){
+        lockProducers.lock();
+
+        return snapshots[back];
+    }
+
+    /**
+     * Publishes the snapshot returned by beginPublish, replacing the last one if it wasn't consumed.
+     * The populations of the blocks are counted here, by the producer.
+     * @param generation number of the generation of the snapshot
+     */
+    public void publish(long generation){
+        Snapshot snapshot=snapshots[back];
+
+        snapshot.generation=generation;
+        snapshot.sequence=++sequence;
+        snapshot.countPopulations();
+        back=middle.getAndSet(back|FRESH)&~FRESH;
+
+        lockProducers.unlock();
+    }
+
+    /**
+     * It has to be invoked by a single thread, the snapshot can be read until the next call
+     * @return the last snapshot published, null if nothing was published since the last call
+     */
+    public Snapshot consume(){
+        if((middle.get()&FRESH)==0){
+            return null;
+        }
+
+        front=middle.getAndSet(front)&~FRESH;
+
+        return snapshots[front];
+    }
+
+    /**
+     * It has to be invoked by the consumer, like consume
+     * @return the snapshot returned by the last call of consume, a snapshot without cells if there wasn't one
+     */
+    public Snapshot getConsumed(){
+        return snapshots[front];
+    }
+
+    /**
+     * Cells of a generation, in the format of the checkpoints: every row has
+     * Checkpoint.getWordsPerRow(column) words and the cell of column j is the bit j.
+     * The cells are grouped in square blocks of 2^level cells per side for the levels of detail;
+     * like the tiles of the engines, the blocks are aligned to the indices of the grid, so the block
+     * (i,j) of a level contains the rows from i*2^level and the columns from j*2^level.
+     */
+    public static class Snapshot {
+
+        //the populations are counted for the blocks of this level and of the levels above
+        private final static int BASE_LEVEL=3;
+        //the blocks with a population of a quarter of their cells are drawn with the color of the alive cells
+        private final static int MIN_WEIGHT=64;
+        private int row,column;
+        private long[] cells;
+        private long generation;
+        private long sequence;
+        private int[][] populations;
+
+        private Snapshot(int row,int column){
+            this.row=row;
+            this.column=column;
+            cells=new long[row*Checkpoint.getWordsPerRow(column)];
+
+            //up to the level where the grid is a single block
+            int levels=Math.max(1,32-Integer.numberOfLeadingZeros(Math.max(row,column))-BASE_LEVEL+1);
+            populations=new int[levels][];
+
+            for(int i=0;i<levels;i++){
+                int level=BASE_LEVEL+i;
+                populations[i]=new int[((row>>>level)+1)*((column>>>level)+1)];
+            }
+        }
+
+        /**
+         *
+         * @return number of rows of the grid
+         */
+        public int getRow(){
+            return row;
+        }
+
+        /**
+         *
+         * @return number of columns of the grid
+         */
+        public int getColumn(){
+            return column;
+        }
+
+        /**
+         * The cells are written by the producer between beginPublish and publish
+         * @return the rows of the grid
+         */
+        public long[] getCells(){
+            return cells;
+        }
+
+        /**
+         *
+         * @param row from 1 to the number of rows
+         * @param column from 1 to the number of columns
+         * @return true if the cell is alive, false otherwise
+         */
+        public boolean getCell(int row,int column){
+            return ((cells[(row-1)*Checkpoint.getWordsPerRow(this.column)+(column>>>6)]>>>(column&63))&1L)!=0;
+        }
+
+        /**
+         *
+         * @param level level of detail, 0 for the single cells
+         * @param blockRow
+         * @param blockColumn
+         * @return number of alive cells of the block, 0 outside the grid
+         */
+        public int getPopulation(int level,int blockRow,int blockColumn){
+            if(blockRow<0 || blockColumn<0 || blockRow>row>>>level || blockColumn>column>>>level){
+                return 0;
+            }
+
+            if(level>=BASE_LEVEL && level-BASE_LEVEL<populations.length){
+                return populations[level-BASE_LEVEL][blockRow*((column>>>level)+1)+blockColumn];
+            }
+
+            if(level>=BASE_LEVEL){
+                //a block larger than the grid
+                return populations[populations.length-1][0];
+            }
+
+            //the small blocks are counted from the cells, they never cross a word
+            int words=Checkpoint.getWordsPerRow(column);
+            int firstColumn=blockColumn<<level;
+            long mask=(1L<<(1<<level))-1;
+            int count=0;
+
+            for(int i=Math.max(1,blockRow<<level);i<=Math.min(row,((blockRow+1)<<level)-1);i++){
+                count+=Long.bitCount((cells[(i-1)*words+(firstColumn>>>6)]>>>(firstColumn&63))&mask);
+            }
+
+            return count;
+        }
+
+        /**
+         * Writes the blocks of a part of the grid as pixels, a pixel for every block. The color of a
+         * block goes from the dead color to the alive one with its population, so a sparse block
+         * is still visible.
+         * @param level level of detail, 0 for the single cells
+         * @param firstBlockRow
+         * @param firstBlockColumn
+         * @param blockRows number of rows of blocks written
+         * @param blockColumns number of columns of blocks written
+         * @param pixels a pixel for every block, row by row
+         * @param alive color of the alive cells
+         * @param dead color of the dead cells
+         */
+        public void getPixels(int level,int firstBlockRow,int firstBlockColumn,int blockRows,int blockColumns,
+                              int[] pixels,int alive,int dead){
+            int area=1<<(2*level);
+
+            for(int i=0,k=0;i<blockRows;i++){
+                for(int j=0;j<blockColumns;j++,k++){
+                    int count=getPopulation(level,firstBlockRow+i,firstBlockColumn+j);
+
+                    if(count==0){
+                        pixels[k]=dead;
+                    }else{
+                        pixels[k]=blend(dead,alive,MIN_WEIGHT+(256-MIN_WEIGHT)*Math.min(area,4*count)/area);
+                    }
+                }
+            }
+        }
+
+        /**
+         *
+         * @return number of the generation
+         */
+        public long getGeneration(){
+            return generation;
+        }
+
+        /**
+         *
+         * @return number of the snapshot, it grows with every publication
+         */
+        public long getSequence(){
+            return sequence;
+        }
+
+        /**
+         * Counts the alive cells of the blocks of every level, from the bytes of the rows
+         */
+        private void countPopulations(){
+            int words=Checkpoint.getWordsPerRow(column);
+            int[] base=populations[0];
+            int baseColumns=(column>>>BASE_LEVEL)+1;
+
+            Arrays.fill(base,0);
+
+            for(int i=1;i<=row;i++){
+                int start=(i>>>BASE_LEVEL)*baseColumns;
+
+                for(int w=0;w<words;w++){
+                    long word=cells[(i-1)*words+w];
+
+                    if(word!=0){
+                        //the byte b of the word w is the block w*8+b
+                        for(int b=0;b<8 && (w<<3)+b<baseColumns;b++){
+                            base[start+(w<<3)+b]+=Long.bitCount((word>>>(b<<3))&0xFFL);
+                        }
+                    }
+                }
+            }
+
+            //every block is the sum of the four blocks of the level below
+            for(int l=1;l<populations.length;l++){
+                int[] below=populations[l-1],current=populations[l];
+                int belowColumns=(column>>>(BASE_LEVEL+l-1))+1,belowRows=(row>>>(BASE_LEVEL+l-1))+1;
+                int currentColumns=(column>>>(BASE_LEVEL+l))+1;
+
+                Arrays.fill(current,0);
+
+                for(int i=0;i<belowRows;i++){
+                    for(int j=0;j<belowColumns;j++){
+                        current[(i>>>1)*currentColumns+(j>>>1)]+=below[i*belowColumns+j];
+                    }
+                }
+            }
+        }
+
+        /**
+         *
+         * @param from
+         * @param to
+         * @param weight from 0 (from) to 256 (to)
+         * @return the color between the two colors
+         */
+        private static int blend(int from,int to,int weight){
+            int color=0;
+
+            for(int shift=0;shift<32;shift+=8){
+                int a=(from>>>shift)&0xFF,b=(to>>>shift)&0xFF;
+
+                color|=((a+(((b-a)*weight)>>8))&0xFF)<<shift;
+            }
+
+            return color;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package isac.gameoflife;
+
+import java.util.Arrays;
+
+
+/**
+ * Engine that keeps only the live cells, in a hash set of primitive keys. Every live cell adds one to
+ * the counter of each of its neighbours and only the cells with a counter can be alive in the next
+ * generation, so the time of a step depends on the number of live cells and not on the size of the grid.
+ */
+public class SparseEngine implements GenerationEngine {
+
+    private CellTable cells,next;
+    //number of live neighbours of every cell that has at least one
+    private CellTable neighbours;
+    private int row,column;
+    private boolean[][] view;
+    private boolean viewUpdated;
+    private Rule rule;
+
+    /**
+     *
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     */
+    public SparseEngine(int row,int column){
+        this.row=row;
+        this.column=column;
+        cells=new CellTable();
+        next=new CellTable();
+        neighbours=new CellTable();
+        view=null;
+        viewUpdated=false;
+        rule=Rule.CONWAY;
+    }
+
+    @Override
+    public boolean getCell(int row,int column){
+        return cells.contains(key(row,column));
+    }
+
+    @Override
+    public void setCell(int row,int column,boolean value){
+        if(value){
+            cells.add(key(row,column));
+        }else{
+            cells.remove(key(row,column));
+        }
+
+        viewUpdated=false;
+    }
+
+    /**
+     * The rule can't be a Generations rule
+     * @param rule
+     */
+    @Override
+    public void setRule(Rule rule){
+        if(rule.getStates()>2){
+            throw new IllegalArgumentException("Generations rules are not supported");
+        }
+
+        this.rule=rule;
+    }
+
+    @Override
+    public void calculateNextGen(){
+        neighbours.clear();
+
+        for(int n=0;n<cells.size;n++){
+            long key=cells.getKey(n);
+            int i=(int)(key>>>32),j=(int)key;
+
+            //only the cells from 1 to row and from 1 to column are calculated
+            for(int r=Math.max(1,i-1);r<=Math.min(row,i+1);r++){
+                for(int c=Math.max(1,j-1);c<=Math.min(column,j+1);c++){
+                    if(r!=i || c!=j){
+                        neighbours.increment(key(r,c));
+                    }
+                }
+            }
+        }
+
+        next.clear();
+        int birth=rule.getBirth(),survival=rule.getSurvival();
+
+        for(int n=0;n<neighbours.size;n++){
+            long key=neighbours.getKey(n);
+            int count=neighbours.getCount(n);
+
+            int mask=cells.contains(key)?survival:birth;
+
+            if(((mask>>>count)&1)!=0){
+                next.add(key);
+            }
+        }
+
+        //a cell without live neighbours is not in the table, it can only survive (a rule can't give birth with 0)
+        if((survival&1)!=0){
+            for(int n=0;n<cells.size;n++){
+                long key=cells.getKey(n);
+
+                if(!isGhostCell((int)(key>>>32),(int)key) && !neighbours.contains(key)){
+                    next.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * The next generation has only the cells from 1 to row and from 1 to column, so the ghost cells
+     * are cleared by the swap.
+     */
+    @Override
+    public void swap(){
+        CellTable tmp=cells;
+        cells=next;
+        next=tmp;
+        viewUpdated=false;
+    }
+
+    @Override
+    public int getSkippedTiles(){
+        return 0;
+    }
+
+    @Override
+    public void resetGhostCells(){
+        //the removal moves the last key of the list in its place, the keys after it were already checked
+        for(int n=cells.size-1;n>=0;n--){
+            long key=cells.getKey(n);
+
+            if(isGhostCell((int)(key>>>32),(int)key)){
+                cells.remove(key);
+            }
+        }
+
+        viewUpdated=false;
+    }
+
+    /**
+     * The matrix is built from the live cells only when it is requested: with a large grid it takes
+     * a lot of memory, so getCell should be preferred.
+     * @return the matrix of cells, ghost cells included
+     */
+    @Override
+    public boolean[][] getCells(){
+        if(view==null){
+            view=new boolean[row+2][column+2];
+        }
+
+        if(!viewUpdated){
+            for(int i=0;i<row+2;i++){
+                Arrays.fill(view[i],false);
+            }
+
+            for(int n=0;n<cells.size;n++){
+                long key=cells.getKey(n);
+
+                view[(int)(key>>>32)][(int)key]=true;
+            }
+
+            viewUpdated=true;
+        }
+
+        return view;
+    }
+
+    /**
+     *
+     * @return number of live cells, ghost cells included
+     */
+    public int getPopulation(){
+        return cells.size;
+    }
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @return true if the cell is on the border around the grid
+     */
+    private boolean isGhostCell(int row,int column){
+        return row==0 || row==this.row+1 || column==0 || column==this.column+1;
+    }
+
+    /**
+     *
+     * @param row
+     * @param column
+     * @return the key of the cell: the row in the high 32 bits, the column in the low ones
+     */
+    private static long key(int row,int column){
+        return ((long)row<<32)|(column&0xFFFFFFFFL);
+    }
+
+    /**
+     * Hash table with open addressing and linear probing, whose keys are cells and whose values are
+     * counters. It never allocates while it does not grow, and the positions of the keys are kept in a
+     * dense list: iterating and clearing it cost the number of keys, not the capacity, so a table that
+     * grew with a peak of the population doesn't slow down the next generations.
+     */
+    private static class CellTable {
+
+        //the keys of the cells are never negative
+        private final static long FREE=-1L;
+        private final static int INITIAL_CAPACITY=64;
+
+        private long[] keys;
+        private int[] counts;
+        //positions of the keys, from 0 to size-1, and the index in the list of every position
+        private int[] slots,slotOf;
+        private int size;
+
+        private CellTable(){
+            keys=new long[INITIAL_CAPACITY];
+            counts=new int[INITIAL_CAPACITY];
+            slots=new int[INITIAL_CAPACITY];
+            slotOf=new int[INITIAL_CAPACITY];
+            Arrays.fill(keys,FREE);
+            size=0;
+        }
+
+        /**
+         *
+         * @param n from 0 to size-1
+         * @return the n-th key of the list
+         */
+        private long getKey(int n){
+            return keys[slots[n]];
+        }
+
+        /**
+         *
+         * @param n from 0 to size-1
+         * @return the counter of the n-th key of the list
+         */
+        private int getCount(int n){
+            return counts[slots[n]];
+        }
+
+        private boolean contains(long key){
+            return keys[find(key)]==key;
+        }
+
+        private void add(long key){
+            insert(key);
+        }
+
+        /**
+         * Adds one to the counter of the key, adding the key if it is missing
+         * @param key
+         */
+        private void increment(long key){
+            //insert can replace the arrays, so it is invoked before reading them
+            int index=insert(key);
+            counts[index]++;
+        }
+
+        private void remove(long key){
+            int index=find(key);
+
+            if(keys[index]!=key){
+                return;
+            }
+
+            keys[index]=FREE;
+            counts[index]=0;
+
+            //the last position of the list takes the place of the removed one
+            int last=slots[size-1];
+
+            slots[slotOf[index]]=last;
+            slotOf[last]=slotOf[index];
+            size--;
+
+            //moves back the following keys of the run, so that find does not stop on the hole
+            int mask=keys.length-1;
+            int hole=index;
+
+            for(int i=(index+1)&mask;keys[i]!=FREE;i=(i+1)&mask){
+                int home=hash(keys[i])&mask;
+
+                //the key can fill the hole only if its home is not between the hole and its position
+                if(((i-home)&mask)>=((i-hole)&mask)){
+                    keys[hole]=keys[i];
+                    counts[hole]=counts[i];
+                    slotOf[hole]=slotOf[i];
+                    slots[slotOf[hole]]=hole;
+                    keys[i]=FREE;
+                    counts[i]=0;
+                    hole=i;
+                }
+            }
+        }
+
+        private void clear(){
+            for(int n=0;n<size;n++){
+                keys[slots[n]]=FREE;
+                counts[slots[n]]=0;
+            }
+
+            size=0;
+        }
+
+        /**
+         *
+         * @param key
+         * @return the position of the key, added if it was missing
+         */
+        private int insert(long key){
+            int index=find(key);
+
+            if(keys[index]!=key){
+                //the table is kept at most half full, so the runs stay short
+                if((size+1)*2>keys.length){
+                    grow();
+                    index=find(key);
+                }
+
+                keys[index]=key;
+                slots[size]=index;
+                slotOf[index]=size;
+                size++;
+            }
+
+            return index;
+        }
+
+        /**
+         *
+         * @param key
+         * @return the position of the key, or the free position where it would be added
+         */
+        private int find(long key){
+            int mask=keys.length-1;
+            int index=hash(key)&mask;
+
+            while(keys[index]!=FREE && keys[index]!=key){
+                index=(index+1)&mask;
+            }
+
+            return index;
+        }
+
+        private void grow(){
+            long[] oldKeys=keys;
+            int[] oldCounts=counts;
+            int[] oldSlots=slots;
+
+            keys=new long[oldKeys.length*2];
+            counts=new int[oldKeys.length*2];
+            slots=new int[oldKeys.length*2];
+            slotOf=new int[oldKeys.length*2];
+            Arrays.fill(keys,FREE);
+
+            //the keys keep their order in the list
+            for(int n=0;n<size;n++){
+                int index=find(oldKeys[oldSlots[n]]);
+
+                keys[index]=oldKeys[oldSlots[n]];
+                counts[index]=oldCounts[oldSlots[n]];
+                slots[n]=index;
+                slotOf[index]=n;
+            }
+        }
+
+        private static int hash(long key){
+            long h=key*0x9E3779B97F4A7C15L;
+            return (int)(h>>>32);
+        }
+    }
+}
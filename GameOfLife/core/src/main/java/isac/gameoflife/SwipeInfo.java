@@ -0,0 +1,58 @@
+package isac.gameoflife;
+
+
+/**
+ * Infos about a swipe performed on this device
+ */
+public class SwipeInfo {
+
+    private long timestamp;
+    private PinchInfo.Direction direction;
+    private int xcoordinate,ycoordinate;
+
+    /**
+     *
+     * @param timestamp time of when the swipe is occurred
+     * @param direction swipe direction
+     * @param xcoordinate coordinate of X axis when the swipe is ended
+     * @param ycoordinate coordinate of Y axis when the swipe is ended
+     */
+    public SwipeInfo(long timestamp,PinchInfo.Direction direction,int xcoordinate,int ycoordinate){
+        this.timestamp=timestamp;
+        this.direction=direction;
+        this.xcoordinate=xcoordinate;
+        this.ycoordinate=ycoordinate;
+    }
+
+    /**
+     *
+     * @return time of when the swipe is occurred
+     */
+    public long getTimestamp(){
+        return timestamp;
+    }
+
+    /**
+     *
+     * @return swipe direction (UP, DOWN, LEFT, RIGHT)
+     */
+    public PinchInfo.Direction getDirection(){
+        return direction;
+    }
+
+    /**
+     *
+     * @return coordinate of X axis when the swipe is ended
+     */
+    public int getXcoordinate(){
+        return xcoordinate;
+    }
+
+    /**
+     *
+     * @return coordinate of Y axis when the swipe is ended
+     */
+    public int getYcoordinate(){
+        return ycoordinate;
+    }
+}
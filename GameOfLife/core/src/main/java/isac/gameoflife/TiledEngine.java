@@ -0,0 +1,288 @@
+package isac.gameoflife;
+
+import java.util.Arrays;
+
+
+/**
+ * Engine that divides the grid in tiles and calculates only the tiles where something can change:
+ * the tiles that changed in the last generation, their neighbours and the tiles close to a cell
+ * that was set from outside (by the user or by the ghost cells of a neighbour).
+ * A tile that is skipped keeps in the back buffer the same cells of the current generation,
+ * because they are the cells of the previous generation and the tile did not change.
+ */
+public abstract class TiledEngine implements GenerationEngine {
+
+    protected int row,column;
+    private int tileHeight,tileWidth;
+    private int tileRows,tileColumns;
+    private boolean[] dirty,nextDirty;
+    //tiles that changed in the last generation
+    private boolean[] changed;
+    private int skippedTiles;
+    private boolean parallel;
+    private int parallelThreshold,grain;
+    //tiles calculated by calculateTileRows, and the width of the border
+    private Tiles selection;
+    private int borderDepth;
+
+    /**
+     * Tiles calculated by a step
+     */
+    private enum Tiles {
+        ALL,BORDER,INTERIOR
+    }
+
+    /**
+     * The tiles are aligned to the indices of the grid: the tile (0,0) starts from the ghost cell (0,0)
+     * and only the cells from 1 to row and from 1 to column are calculated.
+     * @param row number of rows, ghost cells excluded
+     * @param column number of columns, ghost cells excluded
+     * @param tileHeight number of rows of a tile, at least 3
+     * @param tileWidth number of columns of a tile, at least 3
+     */
+    protected TiledEngine(int row,int column,int tileHeight,int tileWidth){
+        this.row=row;
+        this.column=column;
+        this.tileHeight=tileHeight;
+        this.tileWidth=tileWidth;
+        tileRows=row/tileHeight+1;
+        tileColumns=column/tileWidth+1;
+        dirty=new boolean[tileRows*tileColumns];
+        nextDirty=new boolean[tileRows*tileColumns];
+        changed=new boolean[tileRows*tileColumns];
+        skippedTiles=0;
+        parallel=false;
+        selection=Tiles.ALL;
+        borderDepth=0;
+
+        //at the beginning every tile has to be calculated
+        Arrays.fill(dirty,true);
+    }
+
+    @Override
+    public void calculateNextGen(){
+        skippedTiles=calculateTiles(Tiles.ALL,0);
+    }
+
+    /**
+     * Calculates the first part of the next generation: the tiles with cells near the edges of the grid.
+     * After it, the cells near the edges can be read with getNextCell, while calculateInterior
+     * calculates the other tiles; swap has to be invoked after both.
+     * @param depth number of rows and columns of the border, from the edges of the grid
+     */
+    public void calculateBorder(int depth){
+        skippedTiles=calculateTiles(Tiles.BORDER,depth);
+    }
+
+    /**
+     * Calculates the tiles not calculated by calculateBorder
+     * @param depth number of rows and columns of the border, the same of calculateBorder
+     */
+    public void calculateInterior(int depth){
+        skippedTiles+=calculateTiles(Tiles.INTERIOR,depth);
+    }
+
+    /**
+     * Reads a cell of the back buffer, before swap
+     * @param row
+     * @param column
+     * @return true if the cell is alive in the next generation, false otherwise
+     */
+    public abstract boolean getNextCell(int row,int column);
+
+    @Override
+    public void swap(){
+        swapBuffers();
+
+        boolean[] tmp=dirty;
+        dirty=nextDirty;
+        nextDirty=tmp;
+        Arrays.fill(nextDirty,false);
+
+        //the ghost cells used by the last generation are not valid anymore
+        clearPreviousGhostCells();
+    }
+
+    @Override
+    public int getSkippedTiles(){
+        return skippedTiles;
+    }
+
+    /**
+     * Writes the regions of the grid that changed in the last generation: the consecutive tiles of a
+     * row of tiles that changed are a single region
+     * @param regions first row, first column, last row and last column of every region
+     * @return number of regions, -1 if they don't fit in the array
+     */
+    public int getChangedRegions(int[] regions){
+        int count=0;
+
+        for(int tileRow=0;tileRow<tileRows;tileRow++){
+            int first=-1;
+
+            for(int tileColumn=0;tileColumn<=tileColumns;tileColumn++){
+                boolean tmp=tileColumn<tileColumns && changed[tileRow*tileColumns+tileColumn];
+
+                if(tmp && first<0){
+                    first=tileColumn;
+                }else if(!tmp && first>=0){
+                    if(4*count+4>regions.length){
+                        return -1;
+                    }
+
+                    regions[4*count]=Math.max(1,tileRow*tileHeight);
+                    regions[4*count+1]=Math.max(1,first*tileWidth);
+                    regions[4*count+2]=Math.min(row,(tileRow+1)*tileHeight-1);
+                    regions[4*count+3]=Math.min(column,tileColumn*tileWidth-1);
+                    count++;
+                    first=-1;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Enables the calculation of the tiles on all the cores. Every task calculates a range of rows
+     * of tiles, writing its own part of the back buffer, so the generation is the same of the
+     * sequential calculation.
+     * @param parallel true to calculate the tiles in parallel, false otherwise
+     * @param parallelThreshold minimum number of cells of the grid: the smaller grids are calculated
+     *                          sequentially, because splitting them costs more than it saves
+     * @param grain maximum number of rows of tiles calculated by a single task
+     */
+    public void setParallel(boolean parallel,int parallelThreshold,int grain){
+        this.parallel=parallel;
+        this.parallelThreshold=parallelThreshold;
+        this.grain=Math.max(1,grain);
+    }
+
+    /**
+     * Calculates the tiles of a range of rows of tiles, among the ones selected by the step
+     * @param firstTileRow first row of tiles, included
+     * @param lastTileRow last row of tiles, excluded
+     * @return number of tiles that were skipped
+     */
+    int calculateTileRows(int firstTileRow,int lastTileRow){
+        int skipped=0;
+
+        for(int tileRow=firstTileRow;tileRow<lastTileRow;tileRow++){
+            for(int tileColumn=0;tileColumn<tileColumns;tileColumn++){
+                int firstRow=Math.max(1,tileRow*tileHeight);
+                int lastRow=Math.min(row,(tileRow+1)*tileHeight-1);
+                int firstColumn=Math.max(1,tileColumn*tileWidth);
+                int lastColumn=Math.min(column,(tileColumn+1)*tileWidth-1);
+
+                if(selection!=Tiles.ALL){
+                    boolean border=firstRow<=borderDepth || lastRow>row-borderDepth
+                            || firstColumn<=borderDepth || lastColumn>column-borderDepth;
+
+                    if(border!=(selection==Tiles.BORDER)){
+                        //it is calculated by the other part of the step
+                        continue;
+                    }
+                }
+
+                if(dirty[tileRow*tileColumns+tileColumn]){
+                    changed[tileRow*tileColumns+tileColumn]=calculateTile(firstRow,lastRow,firstColumn,lastColumn);
+
+                    if(changed[tileRow*tileColumns+tileColumn]){
+                        markNeighbourTiles(tileRow,tileColumn);
+                    }
+                }else{
+                    changed[tileRow*tileColumns+tileColumn]=false;
+                    skipped++;
+                }
+            }
+        }
+
+        return skipped;
+    }
+
+    /**
+     * Marks the tiles that contain the neighbours of the cell, so they will be calculated in the next generation.
+     * It has to be invoked whenever a cell changes outside calculateNextGen.
+     * @param row
+     * @param column
+     */
+    protected void markCell(int row,int column){
+        int up=clamp(row-1,this.row)/tileHeight,down=clamp(row+1,this.row)/tileHeight;
+        int left=clamp(column-1,this.column)/tileWidth,right=clamp(column+1,this.column)/tileWidth;
+
+        //a tile is at least 3x3, so the corners of the neighbourhood cover all the tiles
+        dirty[up*tileColumns+left]=true;
+        dirty[up*tileColumns+right]=true;
+        dirty[down*tileColumns+left]=true;
+        dirty[down*tileColumns+right]=true;
+    }
+
+    /**
+     * Marks all the tiles, so they will be calculated in the next generation
+     */
+    protected void markAllTiles(){
+        Arrays.fill(dirty,true);
+    }
+
+    /**
+     * Calculates the next state of the cells of a tile, writing them in the back buffer
+     * @param firstRow
+     * @param lastRow
+     * @param firstColumn
+     * @param lastColumn
+     * @return true if at least one cell of the tile has changed, false otherwise
+     */
+    protected abstract boolean calculateTile(int firstRow,int lastRow,int firstColumn,int lastColumn);
+
+    /**
+     * Exchanges the front buffer with the back buffer
+     */
+    protected abstract void swapBuffers();
+
+    /**
+     * Clears the ghost cells of the back buffer, invoking markCell for every ghost cell that was alive
+     */
+    protected abstract void clearPreviousGhostCells();
+
+    /**
+     * Marks the tile and its neighbours, so they will be calculated in the next generation.
+     * Tasks running in parallel may mark the same tile, but they can only set it to true.
+     * @param tileRow
+     * @param tileColumn
+     */
+    private void markNeighbourTiles(int tileRow,int tileColumn){
+        for(int i=Math.max(0,tileRow-1);i<=Math.min(tileRows-1,tileRow+1);i++){
+            for(int j=Math.max(0,tileColumn-1);j<=Math.min(tileColumns-1,tileColumn+1);j++){
+                nextDirty[i*tileColumns+j]=true;
+            }
+        }
+    }
+
+    /**
+     * Calculates the selected tiles, in parallel if it is enabled and the grid is large enough
+     * @param selection
+     * @param depth number of rows and columns of the border
+     * @return number of tiles that were skipped
+     */
+    private int calculateTiles(Tiles selection,int depth){
+        //the tasks of the pool see the selection, because they are started after it
+        this.selection=selection;
+        borderDepth=depth;
+
+        if(parallel && (long)row*column>=parallelThreshold){
+            return ParallelStep.calculate(this,tileRows,grain);
+        }
+
+        return calculateTileRows(0,tileRows);
+    }
+
+    /**
+     *
+     * @param index
+     * @param max
+     * @return the index limited to the range from 1 to max
+     */
+    private static int clamp(int index,int max){
+        return Math.max(1,Math.min(max,index));
+    }
+}
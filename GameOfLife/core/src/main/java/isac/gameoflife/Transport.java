@@ -0,0 +1,84 @@
+package isac.gameoflife;
+
+import org.json.JSONObject;
+
+
+/**
+ * Exchange of the messages between the devices: the point-to-point queues between two neighbours
+ * and the exchanges that broadcast to all the subscribers.
+ *
+ * The messages are JSON or binary frames: the JSON ones go to the MessageListener, the frames to
+ * the listeners that are also FrameListener. A listener receives only the messages sent after it
+ * was added.
+ */
+public interface Transport {
+
+    /**
+     * Establishes a connection with the server
+     * @return if the connection has established
+     */
+    boolean connect();
+
+    /**
+     *
+     * @return True if the device is connected to the server. False otherwise
+     */
+    boolean isConnected();
+
+    /**
+     * Adds a queue to send the messages to
+     * @param name queue's name
+     * @return true if the queue was successfully added or it already exists. False otherwise
+     */
+    boolean addQueue(String name);
+
+    /**
+     * Adds a queue with listener for incoming messages
+     * @param name queue's name
+     * @param listener a MessageListener object.
+     * @return true if the queue was successfully or it already exists. False otherwise
+     */
+    boolean addQueue(String name,MessageListener listener);
+
+    /**
+     * Adds an exchange to broadcast the messages
+     * @param name exchange's name
+     * @param mode working mode of the exchange (direct, topic, headers and fanout)
+     * @return true if the exchange was successfully added or it already exists. False otherwise
+     */
+    boolean addPublishExchange(String name,String mode);
+
+    /**
+     * Subscribes to an exchange
+     * @param name exchange's name
+     * @param mode working mode of the exchange (direct, topic, headers and fanout)
+     * @param listener a MessageListener object.
+     * @return true if the queue was successfully bind or it already exists. False otherwise
+     */
+    boolean addSubscribeQueue(String name,String mode,MessageListener listener);
+
+    /**
+     * Sends a message
+     * @param name name of the exchange or the queue
+     * @param message message to be sent
+     */
+    void sendMessage(String name,JSONObject message);
+
+    /**
+     * Sends a binary frame
+     * @param name name of the exchange or the queue
+     * @param frame frame to be sent, with the time of the message in the header
+     */
+    void sendMessage(String name,byte[] frame);
+
+    /**
+     * Closes the queue or the exchange, its listener doesn't receive the messages anymore
+     * @param name name of the exchange or the queue
+     */
+    void close(String name);
+
+    /**
+     * Closes the connection, and all the queues and the exchanges still opened
+     */
+    void closeConnection();
+}
@@ -0,0 +1,178 @@
+package isac.gameoflife;
+
+
+/**
+ * Part of the grid shown on the screen, with the size of the cells in pixels. A viewport can't
+ * change: zooming and panning return a new one, so the thread that draws it can read it while
+ * the UI thread replaces it. The position is in cells from the upper left corner of the grid
+ * (0 is the left side of the column 1).
+ */
+public class Viewport {
+
+    private int row,column;
+    private float width,height;
+    private float cellSize,minCellSize,maxCellSize;
+    private float left,top;
+
+    private Viewport(int row,int column,float width,float height,float cellSize,float minCellSize,
+                     float maxCellSize,float left,float top){
+        this.row=row;
+        this.column=column;
+        this.width=width;
+        this.height=height;
+        this.minCellSize=minCellSize;
+        this.maxCellSize=maxCellSize;
+        this.cellSize=Math.max(minCellSize,Math.min(maxCellSize,cellSize));
+
+        //the viewport can't leave the grid, the grid smaller than the screen is centred
+        float visibleColumns=width/this.cellSize,visibleRows=height/this.cellSize;
+
+        this.left=visibleColumns>=column?(column-visibleColumns)/2:Math.max(0,Math.min(column-visibleColumns,left));
+        this.top=visibleRows>=row?(row-visibleRows)/2:Math.max(0,Math.min(row-visibleRows,top));
+    }
+
+    /**
+     * Creates the viewport that shows the whole grid, it can be zoomed from there up to maxCellSize
+     * @param row number of rows of the grid
+     * @param column number of columns of the grid
+     * @param width width of the screen in pixels
+     * @param height height of the screen in pixels
+     * @param maxCellSize cell's size in pixels with the maximum zoom
+     * @return the viewport
+     */
+    public static Viewport fit(int row,int column,float width,float height,float maxCellSize){
+        float cellSize=Math.min(maxCellSize,Math.min(width/column,height/row));
+
+        return new Viewport(row,column,width,height,cellSize,cellSize,maxCellSize,0,0);
+    }
+
+    /**
+     * Zooms keeping the point of the grid under the focus in the same place of the screen
+     * @param factor ratio between the new and the old size of the cells
+     * @param focusX X coordinate of the focus on the screen
+     * @param focusY Y coordinate of the focus on the screen
+     * @return the zoomed viewport
+     */
+    public Viewport zoom(float factor,float focusX,float focusY){
+        float size=Math.max(minCellSize,Math.min(maxCellSize,cellSize*factor));
+
+        return new Viewport(row,column,width,height,size,minCellSize,maxCellSize,
+                left+focusX/cellSize-focusX/size,top+focusY/cellSize-focusY/size);
+    }
+
+    /**
+     * Moves the grid on the screen
+     * @param dx pixels moved to the right
+     * @param dy pixels moved down
+     * @return the moved viewport
+     */
+    public Viewport pan(float dx,float dy){
+        return new Viewport(row,column,width,height,cellSize,minCellSize,maxCellSize,left-dx/cellSize,top-dy/cellSize);
+    }
+
+    /**
+     *
+     * @return number of rows of the grid
+     */
+    public int getRow(){
+        return row;
+    }
+
+    /**
+     *
+     * @return number of columns of the grid
+     */
+    public int getColumn(){
+        return column;
+    }
+
+    /**
+     *
+     * @return width of the screen in pixels
+     */
+    public float getWidth(){
+        return width;
+    }
+
+    /**
+     *
+     * @return height of the screen in pixels
+     */
+    public float getHeight(){
+        return height;
+    }
+
+    /**
+     *
+     * @return cell's size in pixels
+     */
+    public float getCellSize(){
+        return cellSize;
+    }
+
+    /**
+     *
+     * @return columns of the grid on the left of the screen, negative if the grid is narrower than the screen
+     */
+    public float getLeft(){
+        return left;
+    }
+
+    /**
+     *
+     * @return rows of the grid above the screen, negative if the grid is shorter than the screen
+     */
+    public float getTop(){
+        return top;
+    }
+
+    /**
+     * The cells are drawn in blocks of 2^level x 2^level cells, so that a block is at least a pixel
+     * @return the level of detail, 0 if every cell is at least a pixel
+     */
+    public int getLevel(){
+        int level=0;
+
+        while(level<30 && cellSize*(1<<level)<1){
+            level++;
+        }
+
+        return level;
+    }
+
+    /**
+     *
+     * @param x X coordinate on the screen
+     * @return the column under the point, outside the range from 1 to getColumn() if it isn't on the grid
+     */
+    public int getColumn(float x){
+        return (int)Math.floor(toColumns(x))+1;
+    }
+
+    /**
+     *
+     * @param y Y coordinate on the screen
+     * @return the row under the point, outside the range from 1 to getRow() if it isn't on the grid
+     */
+    public int getRow(float y){
+        return (int)Math.floor(toRows(y))+1;
+    }
+
+    /**
+     *
+     * @param x X coordinate on the screen
+     * @return the position of the point in columns from the left side of the grid
+     */
+    public float toColumns(float x){
+        return left+x/cellSize;
+    }
+
+    /**
+     *
+     * @param y Y coordinate on the screen
+     * @return the position of the point in rows from the upper side of the grid
+     */
+    public float toRows(float y){
+        return top+y/cellSize;
+    }
+}
@@ -0,0 +1,59 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class ArrayEngineTest {
+
+    @Test
+    public void lookupTableSameGenerationsOfLoop(){
+        //odd sizes leave a row and a column out of the 2x2 blocks
+        int[][] sizes={{1,1},{2,3},{16,16},{33,47},{40,17}};
+        Random random=new Random(13);
+
+        for(int[] size : sizes){
+            int row=size[0],column=size[1];
+            ArrayEngine loop=new ArrayEngine(row,column);
+            ArrayEngine table=new ArrayEngine(row,column);
+
+            loop.setKernel(ArrayEngine.Kernel.LOOP);
+            table.setKernel(ArrayEngine.Kernel.LOOKUP_TABLE);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    boolean value=random.nextBoolean();
+                    loop.setCell(i,j,value);
+                    table.setCell(i,j,value);
+                }
+            }
+
+            for(int generation=0;generation<30;generation++){
+                //ghost cells on every border
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        if(i==0 || i==row+1 || j==0 || j==column+1){
+                            boolean value=random.nextBoolean();
+                            loop.setCell(i,j,value);
+                            table.setCell(i,j,value);
+                        }
+                    }
+                }
+
+                loop.calculateNextGen();
+                loop.swap();
+                table.calculateNextGen();
+                table.swap();
+
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        assertTrue("Cell "+i+","+j+" of the grid "+row+"x"+column,loop.getCell(i,j)==table.getCell(i,j));
+                    }
+                }
+            }
+        }
+    }
+}
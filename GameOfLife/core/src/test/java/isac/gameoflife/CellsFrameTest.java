@@ -0,0 +1,103 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class CellsFrameTest {
+
+    private final static String ADDRESS="192.168.1.10";
+
+    @Test
+    public void roundTrip() throws Exception {
+        //a strip of 100 cells, every third one alive
+        long[] cells=new long[2];
+
+        for(int k=0;k<100;k+=3){
+            cells[k>>>6]|=1L<<(k&63);
+        }
+
+        byte[] frame=CellsFrame.encode(ADDRESS.getBytes("UTF-8"),42,cells,100);
+        CellsFrame decoded=CellsFrame.decode(frame);
+
+        assertTrue("Frame",CellsFrame.isFrame(frame));
+        assertEquals("Size of the frame",3+8+1+ADDRESS.length()+8+4+16,frame.length);
+        assertEquals("Sender",ADDRESS,decoded.getSender());
+        assertEquals("Generation",42,decoded.getGeneration());
+        assertEquals("Length",100,decoded.getLength());
+
+        for(int k=0;k<100;k++){
+            assertEquals("Cell "+k,k%3==0,decoded.getCell(k));
+        }
+    }
+
+    @Test
+    public void json() throws Exception {
+        assertFalse("JSON message",CellsFrame.isFrame("{\"type\":\"cells\"}".getBytes("UTF-8")));
+
+        //the list written by the old devices, with or without spaces
+        CellsFrame cells=CellsFrame.parseList(ADDRESS,-1,"[true, false, false, true]");
+
+        assertEquals("Length",4,cells.getLength());
+        assertTrue("Cells",cells.getCell(0) && !cells.getCell(1) && !cells.getCell(2) && cells.getCell(3));
+        assertEquals("Without spaces",3,CellsFrame.parseList(ADDRESS,-1,"[false,true,true]").getLength());
+        assertEquals("Empty list",0,CellsFrame.parseList(ADDRESS,-1,"[]").getLength());
+    }
+
+    @Test
+    public void invalidFrame() throws Exception {
+        byte[] frame=CellsFrame.encode(ADDRESS.getBytes("UTF-8"),1,new long[1],10);
+        byte[] truncated=new byte[frame.length-4];
+
+        System.arraycopy(frame,0,truncated,0,truncated.length);
+
+        try{
+            CellsFrame.decode(truncated);
+            fail("The frame is truncated");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+
+        //a newer version is not read
+        frame[1]=(byte)(CellsFrame.VERSION+1);
+
+        try{
+            CellsFrame.decode(frame);
+            fail("The version is unknown");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void deviceCells() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+
+        calculateGeneration.setHaloDepth(2);
+        calculateGeneration.updateHaloDepth();
+
+        for(int i=1;i<=10;i++){
+            calculateGeneration.setCell(i,10-(i%3));
+        }
+
+        //a neighbour on the right, swiped at the same height
+        ConnectedDeviceInfo device=new ConnectedDeviceInfo(0.5f,PinchInfo.Direction.LEFT,PinchInfo.Direction.RIGHT,
+                0,2,5,5,5,5,5,2,"","",calculateGeneration,1,1,1,1);
+
+        device.calculateInfo();
+
+        //the bits of the frame are the values of the JSON list
+        List<Boolean> values=device.getCellsValues();
+        int length=device.getCells();
+        CellsFrame frame=new CellsFrame(ADDRESS,0,device.getCellsBits(),length);
+
+        assertEquals("Length",values.size(),length);
+
+        for(int k=0;k<length;k++){
+            assertEquals("Cell "+k,values.get(k),frame.getCell(k));
+        }
+    }
+}
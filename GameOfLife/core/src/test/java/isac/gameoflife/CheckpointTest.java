@@ -0,0 +1,161 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class CheckpointTest {
+
+    private final static int ROW=30,COLUMN=70;
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        CalculateGeneration calculateGeneration=createRandom(CalculateGeneration.Engine.PACKED,1,1);
+        File file=File.createTempFile("checkpoint",".gol");
+
+        calculateGeneration.setRule(Rule.parse("B36/S23"));
+
+        for(int i=0;i<5;i++){
+            calculateGeneration.calculateNextGen();
+            calculateGeneration.resetGhostCells();
+        }
+
+        calculateGeneration.getCheckpoint().save(file);
+
+        Checkpoint checkpoint=Checkpoint.load(file);
+
+        assertEquals("Rows",ROW,checkpoint.getRow());
+        assertEquals("Columns",COLUMN,checkpoint.getColumn());
+        assertEquals("Generation",5,checkpoint.getGeneration());
+        assertEquals("Rule",Rule.parse("B36/S23"),checkpoint.getRule());
+        assertTrue("No neighbours",checkpoint.getNeighbours().isEmpty());
+        assertSameCells(calculateGeneration,checkpoint);
+
+        file.delete();
+    }
+
+    @Test
+    public void neighbours() throws IOException {
+        List<Checkpoint.Neighbour> neighbours=new ArrayList<>();
+        File file=File.createTempFile("checkpoint",".gol");
+
+        neighbours.add(new Checkpoint.Neighbour("192.168.1.2",PinchInfo.Direction.RIGHT,3,30));
+        neighbours.add(new Checkpoint.Neighbour("192.168.1.3",PinchInfo.Direction.UP,1,12));
+
+        new Checkpoint(2,3,7,Rule.CONWAY,neighbours,new long[2]).save(file);
+
+        List<Checkpoint.Neighbour> loaded=Checkpoint.load(file).getNeighbours();
+
+        assertEquals("Number of neighbours",2,loaded.size());
+
+        for(int i=0;i<2;i++){
+            assertEquals("Address",neighbours.get(i).getAddress(),loaded.get(i).getAddress());
+            assertEquals("Direction",neighbours.get(i).getDirection(),loaded.get(i).getDirection());
+            assertEquals("First index",neighbours.get(i).getFirstIndex(),loaded.get(i).getFirstIndex());
+            assertEquals("Last index",neighbours.get(i).getLastIndex(),loaded.get(i).getLastIndex());
+        }
+
+        file.delete();
+    }
+
+    @Test
+    public void restoreWithHalo() throws IOException {
+        //the packed engine copies the words, the array engine the single cells
+        for(CalculateGeneration.Engine engine : new CalculateGeneration.Engine[]{CalculateGeneration.Engine.PACKED,CalculateGeneration.Engine.ARRAY}){
+            CalculateGeneration source=createRandom(engine,3,1);
+            CalculateGeneration target=createRandom(engine,3,2);
+            File file=File.createTempFile("checkpoint",".gol");
+
+            source.getCheckpoint().save(file);
+
+            Checkpoint checkpoint=Checkpoint.load(file);
+
+            assertSameCells(source,checkpoint);
+
+            target.restore(checkpoint);
+
+            for(int i=1;i<=ROW;i++){
+                for(int j=1;j<=COLUMN;j++){
+                    assertEquals(engine+", cell "+i+","+j,source.getCell(i,j),target.getCell(i,j));
+                }
+            }
+
+            file.delete();
+        }
+    }
+
+    @Test
+    public void restoreSmallerCheckpoint(){
+        CalculateGeneration calculateGeneration=createRandom(CalculateGeneration.Engine.PACKED,1,1);
+        long[] cells=new long[2*Checkpoint.getWordsPerRow(2)];
+
+        //only the cell (1,2) is alive
+        cells[0]=1L<<2;
+        calculateGeneration.restore(new Checkpoint(2,2,0,Rule.CONWAY,new ArrayList<Checkpoint.Neighbour>(),cells));
+
+        for(int i=1;i<=ROW;i++){
+            for(int j=1;j<=COLUMN;j++){
+                assertEquals("Cell "+i+","+j,i==1 && j==2,calculateGeneration.getCell(i,j));
+            }
+        }
+    }
+
+    @Test
+    public void notACheckpoint() throws IOException {
+        File file=File.createTempFile("checkpoint",".gol");
+        FileOutputStream outputStream=new FileOutputStream(file);
+
+        outputStream.write("B3/S23".getBytes("UTF-8"));
+        outputStream.close();
+
+        try{
+            Checkpoint.load(file);
+            fail("The file is not a checkpoint");
+        }catch(IOException e){
+            //expected
+        }
+
+        file.delete();
+    }
+
+    /**
+     *
+     * @param engine
+     * @param haloDepth
+     * @param seed
+     * @return a grid with random cells
+     */
+    private static CalculateGeneration createRandom(CalculateGeneration.Engine engine,int haloDepth,long seed){
+        CalculateGeneration calculateGeneration=new CalculateGeneration(ROW,COLUMN,null,engine);
+        Random random=new Random(seed);
+
+        calculateGeneration.setHaloDepth(haloDepth);
+        calculateGeneration.updateHaloDepth();
+
+        for(int i=1;i<=ROW;i++){
+            for(int j=1;j<=COLUMN;j++){
+                if(random.nextInt(3)==0){
+                    calculateGeneration.setCell(i,j);
+                }
+            }
+        }
+
+        return calculateGeneration;
+    }
+
+    private static void assertSameCells(CalculateGeneration calculateGeneration,Checkpoint checkpoint){
+        for(int i=1;i<=ROW;i++){
+            for(int j=1;j<=COLUMN;j++){
+                assertEquals("Cell "+i+","+j,calculateGeneration.getCell(i,j),checkpoint.getCell(i,j));
+            }
+        }
+    }
+}
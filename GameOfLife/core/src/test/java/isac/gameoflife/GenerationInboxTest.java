@@ -0,0 +1,189 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class GenerationInboxTest {
+
+    private final static String ADDRESS="192.168.1.10";
+
+    private static CellsFrame strip(long generation){
+        return new CellsFrame(ADDRESS,generation,new long[1],10);
+    }
+
+    @Test
+    public void order() {
+        GenerationInbox inbox=new GenerationInbox(4,3,1);
+
+        assertNull("Empty inbox",inbox.poll());
+
+        for(int i=0;i<4;i++){
+            inbox.offer(strip(i));
+        }
+
+        assertEquals("Size",4,inbox.size());
+
+        for(int i=0;i<4;i++){
+            assertEquals("Generation "+i,i,inbox.poll().getGeneration());
+        }
+
+        assertEquals("Drained inbox",0,inbox.size());
+    }
+
+    @Test
+    public void fullInbox() {
+        GenerationInbox inbox=new GenerationInbox(4,3,1);
+
+        //the ring is full in the middle of the array
+        inbox.offer(strip(0));
+        inbox.offer(strip(1));
+        inbox.poll();
+
+        for(int i=2;i<5;i++){
+            inbox.offer(strip(i));
+        }
+
+        //no strip is dropped, the ring grows
+        inbox.offer(strip(5));
+        inbox.offer(strip(6));
+
+        assertEquals("Capacity",8,inbox.getCapacity());
+        assertEquals("Size",6,inbox.size());
+        assertEquals("Strip looked up",4,inbox.get(4).getGeneration());
+
+        for(int i=1;i<7;i++){
+            assertEquals("Generation "+i,i,inbox.poll().getGeneration());
+        }
+    }
+
+    @Test
+    public void wrapAround() {
+        GenerationInbox inbox=new GenerationInbox(3,2,1);
+
+        //the capacity is rounded up to a power of two
+        assertEquals("Capacity",4,inbox.getCapacity());
+
+        for(int i=0;i<10;i++){
+            inbox.offer(strip(i));
+            inbox.offer(strip(i+100));
+            assertEquals("Generation "+i,i,inbox.poll().getGeneration());
+            assertEquals("Generation "+(i+100),i+100,inbox.poll().getGeneration());
+        }
+
+        assertNull("Drained inbox",inbox.peek());
+    }
+
+    @Test
+    public void lookup() {
+        GenerationInbox inbox=new GenerationInbox(8,6,2);
+
+        //a strip every 3 generations, with a halo of 3 rows
+        for(int i=0;i<5;i++){
+            inbox.offer(strip(30+3*i));
+        }
+
+        inbox.poll();
+
+        assertEquals("Oldest strip",33,inbox.get(33).getGeneration());
+        assertEquals("Newest strip",42,inbox.get(42).getGeneration());
+        assertNull("Strip already used",inbox.get(30));
+        assertNull("Strip not received yet",inbox.get(45));
+        assertNull("Generation without a strip",inbox.get(34));
+    }
+
+    @Test
+    public void watermarks() {
+        GenerationInbox inbox=new GenerationInbox(8,6,2);
+
+        for(int i=0;i<6;i++){
+            assertFalse("Strip "+i,inbox.aboveHighWatermark());
+            inbox.offer(strip(i));
+        }
+
+        assertTrue("High watermark",inbox.aboveHighWatermark());
+
+        for(int i=0;i<4;i++){
+            assertFalse("Strip "+i,inbox.belowLowWatermark());
+            inbox.poll();
+        }
+
+        assertTrue("Low watermark",inbox.belowLowWatermark());
+
+        try{
+            new GenerationInbox(8,2,2);
+            fail("The low watermark is not below the high one");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void takeUpToGeneration() {
+        GenerationInbox inbox=new GenerationInbox(8,6,2);
+
+        for(int i=0;i<4;i++){
+            inbox.offer(strip(10+2*i));
+        }
+
+        assertNull("Only newer strips",inbox.latest(9));
+        assertEquals("Newest strip up to the generation",14,inbox.latest(15).getGeneration());
+        //the older strips are not used anymore
+        assertEquals("Strip taken",14,inbox.take(15).getGeneration());
+        assertEquals("Strips left",1,inbox.size());
+        assertNull("Nothing up to the generation",inbox.take(15));
+
+        //the strips without a generation are used one at a time
+        inbox.take(20);
+        inbox.offer(strip(-1));
+        inbox.offer(strip(-1));
+        assertNotNull("First strip without a generation",inbox.take(100));
+        assertEquals("Second strip without a generation",1,inbox.size());
+    }
+
+    @Test
+    public void stalenessBound() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+
+        calculateGeneration.setStaleness(ConnectedDeviceInfo.INBOX_HIGH_WATERMARK-1);
+
+        try{
+            calculateGeneration.setStaleness(ConnectedDeviceInfo.INBOX_HIGH_WATERMARK);
+            fail("The strips would fill the inbox before the neighbour is stopped");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+
+        assertEquals("Staleness",ConnectedDeviceInfo.INBOX_HIGH_WATERMARK-1,calculateGeneration.getStaleness());
+    }
+
+    @Test
+    public void staleness() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+        ConnectedDeviceInfo device=new ConnectedDeviceInfo(0.5f,PinchInfo.Direction.LEFT,PinchInfo.Direction.RIGHT,
+                0,2,5,5,5,5,5,2,"","",calculateGeneration,1,1,1,1);
+
+        assertFalse("Nothing received",device.isGenerationReady(0,2));
+
+        device.addGeneration(strip(0));
+        device.addGeneration(strip(1));
+
+        assertTrue("Cells of the generation",device.isGenerationReady(1,0));
+        assertEquals("Cells taken",1,device.takeGeneration(1).getGeneration());
+
+        //the neighbour is behind: the last cells are used for two more generations
+        assertFalse("Lockstep",device.isGenerationReady(2,0));
+        assertTrue("One generation behind",device.isGenerationReady(2,2));
+        assertTrue("Two generations behind",device.isGenerationReady(3,2));
+        assertFalse("Three generations behind",device.isGenerationReady(4,2));
+        assertEquals("Last cells used again",1,device.takeGeneration(3).getGeneration());
+
+        device.addGeneration(strip(2));
+        device.addGeneration(strip(3));
+
+        //the cells arrived late, the newest ones are used
+        assertEquals("Newest cells",3,device.takeGeneration(3).getGeneration());
+        assertEquals("Inbox drained",0,device.getNumberOfGenerations());
+    }
+}
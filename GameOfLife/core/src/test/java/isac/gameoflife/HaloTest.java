@@ -0,0 +1,204 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class HaloTest {
+
+    private final static int ROW=12,COLUMN=10;
+
+    @Test
+    public void sameGenerationsOfSingleGrid(){
+        for(int depth=1;depth<=4;depth++){
+            checkPair(depth,0);
+        }
+    }
+
+    @Test
+    public void sameGenerationsWithShiftedNeighbour(){
+        //with a halo of one cell the corners are not exchanged
+        for(int depth=2;depth<=4;depth++){
+            checkPair(depth,3);
+        }
+    }
+
+    @Test
+    public void pairedTables(){
+        for(CalculateGeneration.Engine engine : new CalculateGeneration.Engine[]{CalculateGeneration.Engine.PACKED,
+                CalculateGeneration.Engine.ARRAY}){
+            /*
+                two grids of 10x10 cells side by side, with cells of one inch and 2 pixels per inch:
+                both the swipes end at half of the height, so the indices go from 1 to 10
+            */
+            CalculateGeneration left=new CalculateGeneration(10,10,null,engine);
+            CalculateGeneration right=new CalculateGeneration(10,10,null,engine);
+            ConnectedDeviceInfo rightInfo=new ConnectedDeviceInfo(1,PinchInfo.Direction.LEFT,PinchInfo.Direction.RIGHT,
+                    0,11,10,10,10,10,20,11,"","",left,2,2,2,2);
+            ConnectedDeviceInfo leftInfo=new ConnectedDeviceInfo(1,PinchInfo.Direction.RIGHT,PinchInfo.Direction.LEFT,
+                    20,11,10,10,10,10,0,11,"","",right,2,2,2,2);
+            Random random=new Random(engine.ordinal());
+
+            rightInfo.calculateInfo();
+            leftInfo.calculateInfo();
+
+            for(int depth=1;depth<=2;depth++){
+                //the tables are built again for the engine of the new depth
+                left.setHaloDepth(depth);
+                right.setHaloDepth(depth);
+                left.updateHaloDepth();
+                right.updateHaloDepth();
+
+                for(int i=1;i<=10;i++){
+                    for(int j=1;j<=10;j++){
+                        if(random.nextBoolean()){
+                            left.setCell(i,j);
+                        }
+                    }
+                }
+
+                int length=rightInfo.getCells();
+
+                leftInfo.setPairedCells(new CellsFrame("",0,rightInfo.getCellsBits(),length));
+
+                for(int d=1;d<=depth;d++){
+                    for(int i=1;i<=10;i++){
+                        assertEquals(engine+", depth "+depth+", ghost cell "+i+","+(1-d),left.getCell(i,11-d),right.getCell(i,1-d));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void invalidDepth(){
+        try{
+            new CalculateGeneration(ROW,COLUMN,null).setHaloDepth(0);
+            fail("Depth 0 should be invalid");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void ghostCellsOfAnotherDepth(){
+        CalculateGeneration left=new CalculateGeneration(ROW,COLUMN,null);
+        List<Boolean> cells=new ArrayList<>();
+
+        left.setHaloDepth(2);
+        left.updateHaloDepth();
+
+        //the neighbour sends a single column, with a halo of one cell
+        for(int i=1;i<=ROW;i++){
+            cells.add(true);
+        }
+
+        try{
+            left.setPairedCells(1,ROW,cells,PinchInfo.Direction.RIGHT,0,0);
+            fail("The ghost cells are of a halo of another depth");
+        }catch(IllegalStateException e){
+            //expected
+        }
+
+        assertFalse("No ghost cell was set",left.getCell(1,COLUMN+1));
+    }
+
+    /**
+     * Two devices side by side, the right one is shifted down: they exchange the halo every depth
+     * generations and they have to be the same of a single grid where the cells outside the devices are dead
+     * @param depth
+     * @param shift rows of the left device above the right one
+     */
+    private void checkPair(int depth,int shift){
+        CalculateGeneration left=new CalculateGeneration(ROW,COLUMN,null);
+        CalculateGeneration right=new CalculateGeneration(ROW,COLUMN,null);
+        ArrayEngine reference=new ArrayEngine(ROW+shift,2*COLUMN);
+        Random random=new Random(depth*100+shift);
+
+        left.setHaloDepth(depth);
+        right.setHaloDepth(depth);
+        left.updateHaloDepth();
+        right.updateHaloDepth();
+
+        for(int i=1;i<=ROW;i++){
+            for(int j=1;j<=COLUMN;j++){
+                if(random.nextInt(3)==0){
+                    left.setCell(i,j);
+                    reference.setCell(i,j,true);
+                }
+
+                if(random.nextInt(3)==0){
+                    right.setCell(i,j);
+                    reference.setCell(i+shift,j+COLUMN,true);
+                }
+            }
+        }
+
+        int extension=depth==1?0:depth;
+
+        for(int generation=0;generation<24;generation+=depth){
+            List<Boolean> toLeft=new ArrayList<>(),toRight=new ArrayList<>();
+
+            for(int d=1;d<=depth;d++){
+                for(int i=shift+1-extension;i<=ROW+extension;i++){
+                    toLeft.add(getCell(right,i-shift,d));
+                }
+
+                for(int i=1-extension;i<=ROW-shift+extension;i++){
+                    toRight.add(getCell(left,i+shift,COLUMN+1-d));
+                }
+            }
+
+            left.setPairedCells(shift+1,ROW,toLeft,PinchInfo.Direction.RIGHT,0,shift);
+            right.setPairedCells(1,ROW-shift,toRight,PinchInfo.Direction.LEFT,shift,0);
+
+            for(int i=0;i<depth;i++){
+                left.calculateNextGen();
+                right.calculateNextGen();
+                reference.calculateNextGen();
+                reference.swap();
+                clearOutside(reference,shift);
+            }
+
+            left.resetGhostCells();
+            right.resetGhostCells();
+
+            for(int i=1;i<=ROW;i++){
+                for(int j=1;j<=COLUMN;j++){
+                    assertEquals("Depth "+depth+", left cell "+i+","+j,reference.getCell(i,j),left.getCell(i,j));
+                    assertEquals("Depth "+depth+", right cell "+i+","+j,reference.getCell(i+shift,j+COLUMN),right.getCell(i,j));
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param device
+     * @param row
+     * @param column
+     * @return the cell of the device, false outside its grid
+     */
+    private static boolean getCell(CalculateGeneration device,int row,int column){
+        return row>=1 && row<=ROW && device.getCell(row,column);
+    }
+
+    /**
+     * Kills the cells of the single grid that do not belong to any device
+     * @param reference
+     * @param shift
+     */
+    private static void clearOutside(ArrayEngine reference,int shift){
+        for(int i=1;i<=shift;i++){
+            for(int j=COLUMN+1;j<=2*COLUMN;j++){
+                reference.setCell(i,j,false);
+                reference.setCell(ROW+i,j-COLUMN,false);
+            }
+        }
+    }
+}
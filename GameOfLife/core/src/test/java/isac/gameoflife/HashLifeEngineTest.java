@@ -0,0 +1,105 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class HashLifeEngineTest {
+
+    @Test
+    public void sameGenerationsOfPackedEngine(){
+        //a small cache forces the eviction of the nodes
+        int[] cacheSizes={1<<16,500};
+
+        for(int maxNodes : cacheSizes){
+            int row=37,column=45;
+            HashLifeEngine hashLife=new HashLifeEngine(row,column,maxNodes);
+            PackedEngine packed=new PackedEngine(row,column);
+            Random random=new Random(3);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    boolean value=random.nextInt(3)==0;
+                    hashLife.setCell(i,j,value);
+                    packed.setCell(i,j,value);
+                }
+            }
+
+            for(int generation=0;generation<40;generation++){
+                //ghost cells on the right border
+                for(int i=0;i<row+2;i++){
+                    boolean value=random.nextInt(2)==0;
+                    hashLife.setCell(i,column+1,value);
+                    packed.setCell(i,column+1,value);
+                }
+
+                hashLife.calculateNextGen();
+                hashLife.swap();
+                hashLife.resetGhostCells();
+                packed.calculateNextGen();
+                packed.swap();
+                packed.resetGhostCells();
+
+                boolean[][] cells=hashLife.getCells();
+
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        assertTrue("Cell "+i+","+j+" of generation "+generation,packed.getCell(i,j)==cells[i][j]);
+                    }
+                }
+            }
+
+            assertTrue(hashLife.getNumberOfNodes()<=maxNodes);
+        }
+    }
+
+    @Test
+    public void advanceGlider(){
+        HashLifeEngine engine=new HashLifeEngine(300,300);
+        int[][] glider={{0,1},{1,2},{2,0},{2,1},{2,2}};
+
+        for(int[] cell : glider){
+            engine.setCell(10+cell[0],10+cell[1],true);
+        }
+
+        //a glider moves of one cell in diagonal every 4 generations
+        engine.advance(4*200);
+        engine.swap();
+
+        for(int i=0;i<302;i++){
+            for(int j=0;j<302;j++){
+                boolean expected=false;
+
+                for(int[] cell : glider){
+                    expected|=i==210+cell[0] && j==210+cell[1];
+                }
+
+                assertTrue("Cell "+i+","+j,engine.getCell(i,j)==expected);
+            }
+        }
+    }
+
+    @Test
+    public void advanceOutsideTheGrid(){
+        HashLifeEngine engine=new HashLifeEngine(20,20);
+
+        //a glider that leaves the grid is discarded
+        engine.setCell(1,2,true);
+        engine.setCell(2,3,true);
+        engine.setCell(3,1,true);
+        engine.setCell(3,2,true);
+        engine.setCell(3,3,true);
+
+        engine.advance(1000);
+        engine.swap();
+
+        for(int i=0;i<22;i++){
+            for(int j=0;j<22;j++){
+                assertFalse(engine.getCell(i,j));
+            }
+        }
+    }
+}
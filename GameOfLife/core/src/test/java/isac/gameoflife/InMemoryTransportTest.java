@@ -0,0 +1,190 @@
+package isac.gameoflife;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class InMemoryTransportTest {
+
+    private final static String ADDRESS="192.168.1.10";
+    private final static long TIMEOUT=2000;
+
+    private InMemoryTransport bob,ted;
+
+    @Before
+    public void setup(){
+        InMemoryTransport.Broker broker=new InMemoryTransport.Broker();
+
+        bob=new InMemoryTransport(broker);
+        ted=new InMemoryTransport(broker);
+        bob.connect();
+        ted.connect();
+    }
+
+    @After
+    public void closeConnection(){
+        bob.closeConnection();
+        ted.closeConnection();
+        assertFalse("Connection closed",bob.isConnected());
+    }
+
+    @Test
+    public void queue() throws Exception {
+        Listener listener=new Listener();
+
+        bob.addQueue("BobTed");
+        ted.addQueue("BobTed",listener);
+
+        for(int i=0;i<100;i++){
+            bob.sendMessage("BobTed",message(i));
+        }
+
+        //the messages arrive in order, on the thread of the receiver
+        for(int i=0;i<100;i++){
+            JSONObject json=listener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS);
+
+            assertNotNull("Message "+i,json);
+            assertEquals("Message "+i,i,json.getInt("number"));
+        }
+
+        assertEquals("Queue of the message","BobTed",listener.queue);
+        assertNotSame("Thread of the receiver",Thread.currentThread(),listener.thread);
+    }
+
+    @Test
+    public void frame() throws Exception {
+        Listener listener=new Listener();
+
+        bob.addQueue("BobTed");
+        ted.addQueue("BobTed",listener);
+
+        //the time of the frame is written when it is encoded, after the listener was added
+        byte[] frame=CellsFrame.encode(ADDRESS.getBytes("UTF-8"),7,new long[]{5},3);
+
+        bob.sendMessage("BobTed",frame);
+
+        //the frame is not copied
+        assertSame("Frame",frame,listener.frames.poll(TIMEOUT,TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void broadcast() throws Exception {
+        Listener bobListener=new Listener();
+        Listener tedListener=new Listener();
+
+        bob.addSubscribeQueue("broadcast","fanout",bobListener);
+        ted.addSubscribeQueue("broadcast","fanout",tedListener);
+        bob.sendMessage("broadcast",message(1));
+
+        //the sender receives its own message too
+        assertNotNull("Message to Bob",bobListener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS));
+        assertNotNull("Message to Ted",tedListener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void copies() throws Exception {
+        Listener bobListener=new Listener();
+        Listener tedListener=new Listener();
+        JSONObject message=message(1);
+
+        bob.addSubscribeQueue("broadcast","fanout",bobListener);
+        ted.addSubscribeQueue("broadcast","fanout",tedListener);
+        bob.sendMessage("broadcast",message);
+
+        JSONObject toBob=bobListener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS);
+        JSONObject toTed=tedListener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS);
+
+        //every receiver has its own message, and the one sent is not changed
+        assertNotSame("Message sent",message,toBob);
+        assertNotSame("Messages received",toBob,toTed);
+        assertFalse("Time of the message sent",message.has("timestampMessage"));
+        assertTrue("Time of the message received",toTed.has("timestampMessage"));
+        assertEquals("Message received",1,toTed.getInt("number"));
+    }
+
+    @Test
+    public void reconnect() throws Exception {
+        int consumers=countConsumers();
+        Listener listener=new Listener();
+
+        ted.closeConnection();
+        ted.connect();
+
+        //the consumer of the closed connection was stopped
+        assertEquals("Consumers",consumers,countConsumers());
+
+        bob.addQueue("BobTed");
+        ted.addQueue("BobTed",listener);
+        bob.sendMessage("BobTed",message(1));
+
+        assertNotNull("Message after the connection",listener.messages.poll(TIMEOUT,TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void closeQueue() throws Exception {
+        Listener listener=new Listener();
+
+        bob.addQueue("BobTed");
+        ted.addQueue("BobTed",listener);
+        ted.close("BobTed");
+        bob.sendMessage("BobTed",message(1));
+
+        assertNull("Queue closed",listener.messages.poll(200,TimeUnit.MILLISECONDS));
+
+        //a queue that was not added by the sender is unknown
+        ted.addQueue("BobTed",listener);
+        bob.close("BobTed");
+        bob.sendMessage("BobTed",message(2));
+
+        assertNull("Queue not added",listener.messages.poll(200,TimeUnit.MILLISECONDS));
+    }
+
+    private static int countConsumers(){
+        int count=0;
+
+        for(Thread thread:Thread.getAllStackTraces().keySet()){
+            if(thread.getName().startsWith("InMemoryTransport-") && thread.isAlive()){
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static JSONObject message(int number) throws JSONException {
+        JSONObject message=new JSONObject();
+
+        message.put("type","test");
+        message.put("number",number);
+
+        return message;
+    }
+
+    private static class Listener implements MessageListener,FrameListener {
+
+        private LinkedBlockingQueue<JSONObject> messages=new LinkedBlockingQueue<>();
+        private LinkedBlockingQueue<byte[]> frames=new LinkedBlockingQueue<>();
+        private volatile String queue;
+        private volatile Thread thread;
+
+        @Override
+        public void handleMessage(String queue, JSONObject json) {
+            this.queue=queue;
+            thread=Thread.currentThread();
+            messages.offer(json);
+        }
+
+        @Override
+        public void handleFrame(byte[] frame) {
+            frames.offer(frame);
+        }
+    }
+}
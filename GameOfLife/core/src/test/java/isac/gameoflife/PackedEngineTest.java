@@ -0,0 +1,151 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class PackedEngineTest {
+
+    @Test
+    public void blinker(){
+        PackedEngine engine=new PackedEngine(5,5);
+
+        engine.setCell(3,2,true);
+        engine.setCell(3,3,true);
+        engine.setCell(3,4,true);
+
+        engine.calculateNextGen();
+        engine.swap();
+
+        assertTrue(engine.getCell(2,3));
+        assertTrue(engine.getCell(3,3));
+        assertTrue(engine.getCell(4,3));
+        assertFalse(engine.getCell(3,2));
+        assertFalse(engine.getCell(3,4));
+
+        engine.calculateNextGen();
+        engine.swap();
+
+        assertTrue(engine.getCell(3,2));
+        assertTrue(engine.getCell(3,4));
+        assertFalse(engine.getCell(2,3));
+    }
+
+    @Test
+    public void sameGenerationsOfArrayEngine(){
+        //sizes across the boundaries of the words
+        int[][] sizes={{10,10},{30,62},{17,63},{40,64},{25,130}};
+
+        for(int[] size : sizes){
+            ArrayEngine array=new ArrayEngine(size[0],size[1]);
+            PackedEngine packed=new PackedEngine(size[0],size[1]);
+            Random random=new Random(size[0]*1000+size[1]);
+
+            for(int i=0;i<size[0]+2;i++){
+                for(int j=0;j<size[1]+2;j++){
+                    boolean value=random.nextInt(3)==0;
+                    array.setCell(i,j,value);
+                    packed.setCell(i,j,value);
+                }
+            }
+
+            for(int generation=0;generation<20;generation++){
+                array.calculateNextGen();
+                array.swap();
+                packed.calculateNextGen();
+                packed.swap();
+
+                for(int i=0;i<size[0]+2;i++){
+                    for(int j=0;j<size[1]+2;j++){
+                        assertTrue("Cell "+i+","+j+" of generation "+generation,array.getCell(i,j)==packed.getCell(i,j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resetGhostCells(){
+        PackedEngine engine=new PackedEngine(4,63);
+
+        for(int i=0;i<6;i++){
+            for(int j=0;j<65;j++){
+                engine.setCell(i,j,true);
+            }
+        }
+
+        engine.resetGhostCells();
+
+        boolean[][] cells=engine.getCells();
+
+        for(int i=0;i<6;i++){
+            for(int j=0;j<65;j++){
+                boolean ghost=i==0 || i==5 || j==0 || j==64;
+                assertTrue(cells[i][j]==!ghost);
+            }
+        }
+    }
+
+    @Test
+    public void setRun(){
+        PackedEngine engine=new PackedEngine(40,200);
+        ArrayEngine array=new ArrayEngine(40,200);
+
+        //runs inside a word, across two words and across three words
+        int[][] runs={{20,3,10},{20,60,8},{21,50,100}};
+
+        //the tiles have to be calculated, so the empty grid is calculated first
+        engine.calculateNextGen();
+        engine.swap();
+
+        for(int[] run : runs){
+            engine.setRun(run[0],run[1],run[2]);
+
+            for(int j=run[1];j<run[1]+run[2];j++){
+                array.setCell(run[0],j,true);
+            }
+        }
+
+        for(int generation=0;generation<5;generation++){
+            for(int i=0;i<42;i++){
+                for(int j=0;j<202;j++){
+                    assertTrue("Cell "+i+","+j+" of generation "+generation,array.getCell(i,j)==engine.getCell(i,j));
+                }
+            }
+
+            array.calculateNextGen();
+            array.swap();
+            engine.calculateNextGen();
+            engine.swap();
+        }
+    }
+
+    @Test
+    public void pixels(){
+        //the grid of 30x130 cells inside an engine with a halo of 2 cells
+        int row=30,column=130,offset=2;
+        PackedEngine engine=new PackedEngine(row+2*offset,column+2*offset);
+        int[] pixels=new int[row*column];
+        Random random=new Random(3);
+
+        for(int i=0;i<row+2*offset+2;i++){
+            for(int j=0;j<column+2*offset+2;j++){
+                engine.setCell(i,j,random.nextInt(3)==0);
+            }
+        }
+
+        //only the rows from 5 to 20
+        engine.getPixels(offset,5,20,column,pixels,0xFFFFFFFF,0xFF000000);
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                int expected=i<5 || i>20?0:engine.getCell(i+offset,j+offset)?0xFFFFFFFF:0xFF000000;
+
+                assertTrue("Pixel "+i+","+j,pixels[(i-1)*column+j-1]==expected);
+            }
+        }
+    }
+}
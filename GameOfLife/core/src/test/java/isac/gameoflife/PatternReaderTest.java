@@ -0,0 +1,174 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+public class PatternReaderTest {
+
+    private final static String GLIDER_RLE="#N Glider\n#C A comment\nx = 3, y = 3, rule = B3/S23\nbob$2bo$3o!\n";
+    private final static String GLIDER_PLAINTEXT="!Name: Glider\n!\n.O.\n..O\nOOO\n";
+
+    @Test
+    public void rleHeader() throws IOException {
+        PatternReader pattern=new PatternReader(new StringReader(GLIDER_RLE));
+
+        assertEquals("Format",PatternReader.Format.RLE,pattern.getFormat());
+        assertEquals("Width",3,pattern.getWidth());
+        assertEquals("Height",3,pattern.getHeight());
+        assertEquals("Rule",Rule.CONWAY,pattern.getRule());
+    }
+
+    @Test
+    public void rleGlider() throws IOException {
+        assertEquals("Glider",".O.\n..O\nOOO\n",draw(GLIDER_RLE,3,3));
+    }
+
+    @Test
+    public void rleCounts() throws IOException {
+        //the counts of the dead cells, of the ends of the rows and a count broken by the end of the line
+        String rle="x = 12, y = 4\n10bo$o2$1\n1o!";
+
+        assertEquals("Counts","..........O.\nO...........\n............\nOOOOOOOOOOO.\n",draw(rle,4,12));
+    }
+
+    @Test
+    public void rleStates() throws IOException {
+        String rle="x = 4, y = 1, rule = B2/S/C26\nA.pAB!";
+
+        assertEquals("States","O.OO\n",draw(rle,1,4));
+    }
+
+    @Test
+    public void plaintext() throws IOException {
+        PatternReader pattern=new PatternReader(new StringReader(GLIDER_PLAINTEXT));
+
+        assertEquals("Format",PatternReader.Format.PLAINTEXT,pattern.getFormat());
+        assertEquals("Width",-1,pattern.getWidth());
+        assertNull("Rule",pattern.getRule());
+        assertEquals("Glider",".O.\n..O\nOOO\n",draw(GLIDER_PLAINTEXT,3,3));
+    }
+
+    @Test
+    public void bounds() throws IOException {
+        PatternReader.Bounds bounds=new PatternReader.Bounds();
+
+        new PatternReader(new StringReader(GLIDER_PLAINTEXT)).read(bounds);
+
+        assertEquals("Width",3,bounds.getWidth());
+        assertEquals("Height",3,bounds.getHeight());
+    }
+
+    @Test
+    public void invalidPattern() throws IOException {
+        PatternReader pattern=new PatternReader(new StringReader("x = 3, y = 1\nbzo!"));
+
+        try{
+            pattern.read(new PatternReader.Bounds());
+            fail("z is not a tag");
+        }catch(IOException e){
+            //expected
+        }
+
+        try{
+            new PatternReader(new StringReader("x = 3, y = 1, rule = B9/S23\n3o!"));
+            fail("The rule is not valid");
+        }catch(IOException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void importClipped() throws IOException {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(5,5,null);
+        final StringBuilder outside=new StringBuilder();
+
+        //the glider with the upper left corner in (4,4)
+        calculateGeneration.importPattern(new PatternReader(new StringReader(GLIDER_RLE)),3,3,new PatternReader.Target() {
+            @Override
+            public void setRun(int row,int column,int length){
+                outside.append(row).append(',').append(column).append(',').append(length).append(' ');
+            }
+        });
+
+        for(int i=1;i<=5;i++){
+            for(int j=1;j<=5;j++){
+                boolean alive=i==4 && j==5;
+
+                assertEquals("Cell "+i+","+j,alive,calculateGeneration.getCell(i,j));
+            }
+        }
+
+        assertEquals("Cells outside","5,6,1 6,4,3 ",outside.toString());
+    }
+
+    @Test
+    public void importOnNeighbour() throws IOException {
+        //two grids of 10x10 cells side by side, swiped at the same height
+        CalculateGeneration left=new CalculateGeneration(10,10,null);
+        CalculateGeneration right=new CalculateGeneration(10,10,null);
+        final ConnectedDeviceInfo rightInfo=new ConnectedDeviceInfo(0.5f,PinchInfo.Direction.LEFT,PinchInfo.Direction.RIGHT,
+                0,2,5,5,5,5,5,2,"","",left,1,1,1,1);
+        ConnectedDeviceInfo leftInfo=new ConnectedDeviceInfo(0.5f,PinchInfo.Direction.RIGHT,PinchInfo.Direction.LEFT,
+                5,2,5,5,5,5,0,2,"","",right,1,1,1,1);
+        final StringBuilder runs=new StringBuilder();
+
+        rightInfo.calculateInfo();
+        leftInfo.calculateInfo();
+
+        //a run from the column 9 to the column 12 of the left grid
+        left.importPattern(new PatternReader(new StringReader("x = 4, y = 1\n4o!")),2,8,new PatternReader.Target() {
+            @Override
+            public void setRun(int row,int column,int length){
+                rightInfo.addPatternRun(row,column,length,runs);
+            }
+        });
+        leftInfo.setPatternRuns(runs.toString(),rightInfo.isPatternAcross());
+
+        assertTrue("Across",rightInfo.isPatternAcross());
+        assertTrue("Left grid",left.getCell(3,9) && left.getCell(3,10));
+
+        for(int i=1;i<=10;i++){
+            for(int j=1;j<=10;j++){
+                assertEquals("Cell "+i+","+j+" of the right grid",i==3 && j<=2,right.getCell(i,j));
+            }
+        }
+    }
+
+    /**
+     *
+     * @param pattern
+     * @param row
+     * @param column
+     * @return the pattern in the plaintext format
+     * @throws IOException
+     */
+    private static String draw(String pattern,int row,int column) throws IOException {
+        final char[][] cells=new char[row][column];
+        StringBuilder tmp=new StringBuilder();
+
+        for(char[] line : cells){
+            Arrays.fill(line,'.');
+        }
+
+        new PatternReader(new StringReader(pattern)).read(new PatternReader.Target() {
+            @Override
+            public void setRun(int row,int column,int length){
+                for(int j=column;j<column+length;j++){
+                    cells[row][j]='O';
+                }
+            }
+        });
+
+        for(char[] line : cells){
+            tmp.append(line).append('\n');
+        }
+
+        return tmp.toString();
+    }
+}
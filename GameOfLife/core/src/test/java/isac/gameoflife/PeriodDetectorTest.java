@@ -0,0 +1,161 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class PeriodDetectorTest {
+
+    @Test
+    public void stillLifeAndOscillator(){
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+
+        calculateGeneration.setPeriodDetection(true);
+
+        //block
+        setCells(calculateGeneration,new int[][]{{2,2},{2,3},{3,2},{3,3}});
+        //blinker
+        setCells(calculateGeneration,new int[][]{{7,6},{7,7},{7,8}});
+
+        calculateGeneration.calculateNextGen();
+        calculateGeneration.calculateNextGen();
+        assertEquals("The period of the blinker is unknown",0,calculateGeneration.getPeriod());
+
+        calculateGeneration.calculateNextGen();
+        assertEquals("Period of block and blinker",2,calculateGeneration.getPeriod());
+
+        //the blinker is removed while it is vertical
+        setCells(calculateGeneration,new int[][]{{6,7},{7,7},{8,7}});
+
+        calculateGeneration.calculateNextGen();
+        assertEquals("The grid has changed",0,calculateGeneration.getPeriod());
+
+        calculateGeneration.calculateNextGen();
+        assertEquals("Period of the block",1,calculateGeneration.getPeriod());
+        assertTrue("The block is still alive",calculateGeneration.getCell(2,2));
+    }
+
+    @Test
+    public void sameGenerationsOfEngine(){
+        for(int seed=0;seed<5;seed++){
+            CalculateGeneration calculateGeneration=new CalculateGeneration(16,16,null);
+            PackedEngine reference=new PackedEngine(16,16);
+            Random random=new Random(seed);
+            boolean replayed=false;
+
+            calculateGeneration.setPeriodDetection(true);
+
+            for(int i=1;i<=16;i++){
+                for(int j=1;j<=16;j++){
+                    if(random.nextInt(3)==0){
+                        calculateGeneration.setCell(i,j);
+                        reference.setCell(i,j,true);
+                    }
+                }
+            }
+
+            for(int generation=0;generation<300;generation++){
+                calculateGeneration.calculateNextGen();
+                calculateGeneration.resetGhostCells();
+                reference.calculateNextGen();
+                reference.swap();
+                replayed|=calculateGeneration.getPeriod()>0;
+
+                for(int i=1;i<=16;i++){
+                    for(int j=1;j<=16;j++){
+                        assertEquals("Seed "+seed+", generation "+generation+", cell "+i+","+j,
+                                reference.getCell(i,j),calculateGeneration.getCell(i,j));
+                    }
+                }
+            }
+
+            assertTrue("Seed "+seed+" never repeats itself",replayed);
+        }
+    }
+
+    @Test
+    public void ruleChangeForgetsGenerations(){
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+
+        calculateGeneration.setPeriodDetection(true);
+
+        setCells(calculateGeneration,new int[][]{{2,2},{2,3},{3,2},{3,3}});
+
+        calculateGeneration.calculateNextGen();
+        calculateGeneration.calculateNextGen();
+        assertEquals("Period of the block",1,calculateGeneration.getPeriod());
+
+        //without survival the block dies
+        calculateGeneration.setRule(Rule.parse("B3/S"));
+        calculateGeneration.calculateNextGen();
+
+        assertEquals("The rule has changed",0,calculateGeneration.getPeriod());
+        assertFalse("The block is dead",calculateGeneration.getCell(2,2));
+    }
+
+    @Test
+    public void disabledByDefault(){
+        CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null);
+
+        setCells(calculateGeneration,new int[][]{{2,2},{2,3},{3,2},{3,3}});
+
+        calculateGeneration.calculateNextGen();
+        calculateGeneration.calculateNextGen();
+        assertEquals("No detection by default",0,calculateGeneration.getPeriod());
+        assertTrue("The block is still alive",calculateGeneration.getCell(2,2));
+    }
+
+    @Test
+    public void onlyPackedEngine(){
+        //the other engines would need a copy of the whole grid
+        CalculateGeneration.Engine[] engines={CalculateGeneration.Engine.ARRAY,
+                CalculateGeneration.Engine.HASHLIFE,CalculateGeneration.Engine.SPARSE};
+
+        for(CalculateGeneration.Engine engine : engines){
+            CalculateGeneration calculateGeneration=new CalculateGeneration(10,10,null,engine);
+
+            calculateGeneration.setPeriodDetection(true);
+            setCells(calculateGeneration,new int[][]{{2,2},{2,3},{3,2},{3,3}});
+
+            calculateGeneration.calculateNextGen();
+            calculateGeneration.calculateNextGen();
+            assertEquals("Engine "+engine,0,calculateGeneration.getPeriod());
+            assertTrue("Engine "+engine+", the block is still alive",calculateGeneration.getCell(2,2));
+        }
+    }
+
+    @Test
+    public void hugeSparseGrid(){
+        //the whole loop must not allocate the grid: it doesn't fit in memory
+        CalculateGeneration calculateGeneration=new CalculateGeneration(100000,100000,null,
+                CalculateGeneration.Engine.SPARSE);
+
+        calculateGeneration.setPeriodDetection(true);
+        //glider in the middle of the grid
+        setCells(calculateGeneration,new int[][]{{50000,50001},{50001,50002},{50002,50000},{50002,50001},{50002,50002}});
+
+        for(int i=0;i<4;i++){
+            calculateGeneration.calculateNextGen();
+            calculateGeneration.resetGhostCells();
+        }
+
+        //after a period the glider has moved down to the right
+        assertTrue("Glider moved",calculateGeneration.getCell(50003,50003));
+        assertFalse("Glider moved",calculateGeneration.getCell(50000,50001));
+        assertEquals("No detection",0,calculateGeneration.getPeriod());
+    }
+
+    /**
+     * Toggles the cells
+     * @param calculateGeneration
+     * @param cells
+     */
+    private static void setCells(CalculateGeneration calculateGeneration,int[][] cells){
+        for(int[] cell : cells){
+            calculateGeneration.setCell(cell[0],cell[1]);
+        }
+    }
+}
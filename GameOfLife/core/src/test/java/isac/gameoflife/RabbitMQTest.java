@@ -1,8 +1,5 @@
 package isac.gameoflife;
 
-import com.rabbitmq.client.AMQP;
-import com.rabbitmq.client.Envelope;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.After;
@@ -133,7 +130,7 @@ public class RabbitMQTest {
         }
 
         @Override
-        public void handleMessage(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, JSONObject json) {
+        public void handleMessage(String queue, JSONObject json) {
             try {
                 assertTrue("Message received",json.getString("sender").equals(name2));
             } catch (JSONException e) {
@@ -171,7 +168,7 @@ public class RabbitMQTest {
 
         @Override
         @Test
-        public void handleMessage(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, JSONObject json) {
+        public void handleMessage(String queue, JSONObject json) {
             try {
                 assertTrue("Message received",json.getString("sender").equals(name2));
             } catch (JSONException e) {
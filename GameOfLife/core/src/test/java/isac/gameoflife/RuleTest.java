@@ -0,0 +1,150 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class RuleTest {
+
+    @Test
+    public void parseRulestrings(){
+        assertEquals("Conway in B/S notation",Rule.CONWAY,Rule.parse("b3/s23"));
+        assertEquals("Conway in S/B notation",Rule.CONWAY,Rule.parse("23/3"));
+        assertEquals("HighLife","B36/S23",Rule.parse("S23/B36").toString());
+        assertEquals("Day & Night","B3678/S34678",Rule.parse("B3678/S34678").toString());
+        assertEquals("Brian's Brain","B2/S/C3",Rule.parse("/2/3").toString());
+        assertEquals("Generations states",3,Rule.parse("B2/S/C3").getStates());
+        assertTrue("Conway",Rule.parse("B3/S23").isConway());
+        assertFalse("HighLife is not Conway",Rule.parse("B36/S23").isConway());
+
+        String[] invalid={"B3","B9/S23","X3/S23","B3/S23/Cx","B0/S23","B3/S23/C1"};
+
+        for(String rulestring : invalid){
+            try{
+                Rule.parse(rulestring);
+                fail("Rulestring "+rulestring+" should be invalid");
+            }catch(IllegalArgumentException e){
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void enginesFollowTheRule(){
+        String[] rules={"B36/S23","B3678/S34678","B2/S","B3/S012345678","B1357/S1357"};
+        int row=45,column=70;
+
+        for(String rulestring : rules){
+            Rule rule=Rule.parse(rulestring);
+            GenerationEngine[] engines={new ArrayEngine(row,column),new PackedEngine(row,column),
+                    new SparseEngine(row,column),new HashLifeEngine(row,column),new GenerationsEngine(row,column)};
+            boolean[][] reference=new boolean[row+2][column+2];
+            Random random=new Random(rulestring.hashCode());
+
+            for(GenerationEngine engine : engines){
+                engine.setRule(rule);
+            }
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    reference[i][j]=random.nextInt(4)==0;
+
+                    for(GenerationEngine engine : engines){
+                        engine.setCell(i,j,reference[i][j]);
+                    }
+                }
+            }
+
+            for(int generation=0;generation<20;generation++){
+                reference=next(reference,rule);
+
+                for(GenerationEngine engine : engines){
+                    engine.calculateNextGen();
+                    engine.swap();
+
+                    for(int i=0;i<row+2;i++){
+                        for(int j=0;j<column+2;j++){
+                            assertTrue(engine.getClass().getSimpleName()+" with "+rulestring+", cell "+i+","+j,
+                                    engine.getCell(i,j)==reference[i][j]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void generationsRule(){
+        Rule rule=Rule.parse("B2/S/C3");
+        int row=30,column=30;
+        GenerationsEngine engine=new GenerationsEngine(row,column);
+        int[][] reference=new int[row+2][column+2];
+        Random random=new Random(17);
+
+        engine.setRule(rule);
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                boolean value=random.nextInt(3)==0;
+                reference[i][j]=value?1:0;
+                engine.setCell(i,j,value);
+            }
+        }
+
+        for(int generation=0;generation<25;generation++){
+            int[][] tmp=new int[row+2][column+2];
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    int neighbours=0;
+
+                    for(int x=i-1;x<=i+1;x++){
+                        for(int y=j-1;y<=j+1;y++){
+                            if((x!=i || y!=j) && reference[x][y]==1){
+                                neighbours++;
+                            }
+                        }
+                    }
+
+                    tmp[i][j]=rule.nextState(reference[i][j],neighbours);
+                }
+            }
+
+            reference=tmp;
+            engine.calculateNextGen();
+            engine.swap();
+
+            for(int i=0;i<row+2;i++){
+                for(int j=0;j<column+2;j++){
+                    assertEquals("State of cell "+i+","+j,reference[i][j],engine.getState(i,j));
+                    assertTrue("Only the state 1 is alive",engine.getCell(i,j)==(reference[i][j]==1));
+                }
+            }
+        }
+    }
+
+    private static boolean[][] next(boolean[][] cells,Rule rule){
+        boolean[][] tmp=new boolean[cells.length][cells[0].length];
+
+        for(int i=1;i<cells.length-1;i++){
+            for(int j=1;j<cells[0].length-1;j++){
+                int neighbours=0;
+
+                for(int x=i-1;x<=i+1;x++){
+                    for(int y=j-1;y<=j+1;y++){
+                        if((x!=i || y!=j) && cells[x][y]){
+                            neighbours++;
+                        }
+                    }
+                }
+
+                tmp[i][j]=rule.isAlive(cells[i][j],neighbours);
+            }
+        }
+
+        return tmp;
+    }
+}
@@ -0,0 +1,122 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class SnapshotExchangeTest {
+
+    @Test
+    public void nothingPublished() {
+        SnapshotExchange snapshots=new SnapshotExchange(4,4);
+
+        assertNull("Nothing was published",snapshots.consume());
+        assertEquals("Sequence of the empty snapshot",0,snapshots.getConsumed().getSequence());
+    }
+
+    @Test
+    public void latestWins() {
+        SnapshotExchange snapshots=new SnapshotExchange(4,4);
+
+        for(int i=1;i<=3;i++){
+            snapshots.beginPublish();
+            snapshots.publish(i);
+        }
+
+        SnapshotExchange.Snapshot snapshot=snapshots.consume();
+
+        //the first two generations were replaced before being drawn
+        assertEquals("Generation",3,snapshot.getGeneration());
+        assertEquals("Sequence",3,snapshot.getSequence());
+        assertNull("The snapshot was already consumed",snapshots.consume());
+        assertSame("Consumed snapshot",snapshot,snapshots.getConsumed());
+    }
+
+    @Test
+    public void snapshotsRecycled() {
+        SnapshotExchange snapshots=new SnapshotExchange(4,4);
+        SnapshotExchange.Snapshot consumed=null;
+
+        for(int i=1;i<=10;i++){
+            SnapshotExchange.Snapshot snapshot=snapshots.beginPublish();
+
+            //the producer never writes the snapshot read by the consumer
+            assertNotSame("Snapshot "+i,consumed,snapshot);
+            snapshots.publish(i);
+
+            if(i%3==0){
+                consumed=snapshots.consume();
+                assertEquals("Generation "+i,i,consumed.getGeneration());
+            }
+        }
+    }
+
+    @Test
+    public void publishGeneration() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(5,70,null);
+        SnapshotExchange snapshots=new SnapshotExchange(5,70);
+
+        calculateGeneration.setSnapshotExchange(snapshots);
+        calculateGeneration.setCell(2,3);
+        calculateGeneration.setCell(5,70);
+        calculateGeneration.publishSnapshot();
+
+        SnapshotExchange.Snapshot snapshot=snapshots.consume();
+
+        for(int i=1;i<=5;i++){
+            for(int j=1;j<=70;j++){
+                assertEquals("Cell "+i+","+j,calculateGeneration.getCell(i,j),snapshot.getCell(i,j));
+            }
+        }
+
+        assertTrue("Cell in the second word",snapshot.getCell(5,70));
+    }
+
+    @Test
+    public void populations() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(40,150,null);
+        SnapshotExchange snapshots=new SnapshotExchange(40,150);
+
+        calculateGeneration.setSnapshotExchange(snapshots);
+        //two cells in the block (0,0) of 8x8 cells, one in the block (1,8) and one in the last block
+        calculateGeneration.setCell(1,1);
+        calculateGeneration.setCell(7,7);
+        calculateGeneration.setCell(8,64);
+        calculateGeneration.setCell(40,150);
+        calculateGeneration.publishSnapshot();
+
+        SnapshotExchange.Snapshot snapshot=snapshots.consume();
+
+        assertEquals("Single cell",1,snapshot.getPopulation(0,7,7));
+        assertEquals("Block of 2x2 cells",1,snapshot.getPopulation(1,3,3));
+        assertEquals("Block of 4x4 cells",1,snapshot.getPopulation(2,2,16));
+        assertEquals("Block (0,0) of 8x8 cells",2,snapshot.getPopulation(3,0,0));
+        assertEquals("Block (1,8) of 8x8 cells",1,snapshot.getPopulation(3,1,8));
+        assertEquals("Last block of 8x8 cells",1,snapshot.getPopulation(3,5,18));
+        assertEquals("Block of 64x64 cells",2,snapshot.getPopulation(6,0,0));
+        assertEquals("Whole grid",4,snapshot.getPopulation(8,0,0));
+        assertEquals("Block larger than the grid",4,snapshot.getPopulation(12,0,0));
+        assertEquals("Block outside the grid",0,snapshot.getPopulation(3,6,0));
+    }
+
+    @Test
+    public void blockPixels() {
+        CalculateGeneration calculateGeneration=new CalculateGeneration(8,8,null);
+        SnapshotExchange snapshots=new SnapshotExchange(8,8);
+        int[] pixels=new int[4];
+
+        calculateGeneration.setSnapshotExchange(snapshots);
+        calculateGeneration.setCell(1,1);
+        calculateGeneration.setCell(4,4);
+        calculateGeneration.setCell(4,5);
+        calculateGeneration.publishSnapshot();
+
+        //blocks of 4x4 cells: the block (0,0) has the rows and the columns from 1 to 3
+        snapshots.consume().getPixels(2,0,0,2,2,pixels,0xFFFFFFFF,0xFF000000);
+
+        assertEquals("Sparse block",0xFF6F6F6F,pixels[0]);
+        assertEquals("Empty block",0xFF000000,pixels[2]);
+        assertEquals("Block with two cells",0xFF9F9F9F,pixels[3]);
+    }
+}
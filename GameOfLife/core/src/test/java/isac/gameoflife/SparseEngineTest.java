@@ -0,0 +1,145 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class SparseEngineTest {
+
+    @Test
+    public void sameGenerationsOfPackedEngine(){
+        int row=53,column=70;
+        SparseEngine sparse=new SparseEngine(row,column);
+        PackedEngine packed=new PackedEngine(row,column);
+        Random random=new Random(5);
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                boolean value=random.nextInt(3)==0;
+                sparse.setCell(i,j,value);
+                packed.setCell(i,j,value);
+            }
+        }
+
+        for(int generation=0;generation<60;generation++){
+            //ghost cells on the upper and left borders
+            for(int j=0;j<column+2;j++){
+                boolean value=random.nextInt(2)==0;
+                sparse.setCell(0,j,value);
+                packed.setCell(0,j,value);
+            }
+
+            for(int i=0;i<row+2;i++){
+                boolean value=random.nextInt(2)==0;
+                sparse.setCell(i,0,value);
+                packed.setCell(i,0,value);
+            }
+
+            sparse.calculateNextGen();
+            sparse.swap();
+            sparse.resetGhostCells();
+            packed.calculateNextGen();
+            packed.swap();
+            packed.resetGhostCells();
+
+            for(int i=0;i<row+2;i++){
+                for(int j=0;j<column+2;j++){
+                    assertTrue("Cell "+i+","+j+" of generation "+generation,packed.getCell(i,j)==sparse.getCell(i,j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resetGhostCells(){
+        int row=30,column=30;
+        SparseEngine sparse=new SparseEngine(row,column);
+
+        //many cells on the border, so the removal has to move the keys of the other cells
+        for(int i=0;i<row+2;i++){
+            sparse.setCell(i,0,true);
+            sparse.setCell(i,column+1,true);
+            sparse.setCell(i,(i*7)%column+1,true);
+        }
+
+        sparse.resetGhostCells();
+
+        assertEquals("Only the cells inside the grid",row,sparse.getPopulation());
+
+        for(int i=0;i<row+2;i++){
+            assertFalse("Left ghost cell",sparse.getCell(i,0));
+            assertFalse("Right ghost cell",sparse.getCell(i,column+1));
+            assertTrue("Cell inside the grid",sparse.getCell(i,(i*7)%column+1)==(i>=1 && i<=row));
+        }
+    }
+
+    @Test
+    public void gliderInHugeGrid(){
+        int size=1000000;
+        SparseEngine sparse=new SparseEngine(size,size);
+        int[][] glider={{0,1},{1,2},{2,0},{2,1},{2,2}};
+        int start=size/2;
+
+        for(int[] cell : glider){
+            sparse.setCell(start+cell[0],start+cell[1],true);
+        }
+
+        for(int generation=0;generation<400;generation++){
+            sparse.calculateNextGen();
+            sparse.swap();
+        }
+
+        //every 4 generations the glider moves one cell down and one to the right
+        assertEquals("The glider has 5 cells",5,sparse.getPopulation());
+
+        for(int[] cell : glider){
+            assertTrue("Cell of the glider",sparse.getCell(start+100+cell[0],start+100+cell[1]));
+        }
+    }
+
+    @Test
+    public void afterPeakOfPopulation(){
+        int row=200,column=200;
+        SparseEngine sparse=new SparseEngine(row,column);
+        PackedEngine packed=new PackedEngine(row,column);
+
+        //the tables grow with the full grid, then the cells die but a blinker
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                sparse.setCell(i,j,true);
+            }
+        }
+
+        sparse.calculateNextGen();
+        sparse.swap();
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                sparse.setCell(i,j,false);
+            }
+        }
+
+        for(int j=10;j<=12;j++){
+            sparse.setCell(10,j,true);
+            packed.setCell(10,j,true);
+        }
+
+        for(int generation=0;generation<5;generation++){
+            sparse.calculateNextGen();
+            sparse.swap();
+            packed.calculateNextGen();
+            packed.swap();
+
+            assertEquals("Population of generation "+generation,3,sparse.getPopulation());
+
+            for(int i=9;i<=11;i++){
+                for(int j=9;j<=13;j++){
+                    assertTrue("Cell "+i+","+j+" of generation "+generation,packed.getCell(i,j)==sparse.getCell(i,j));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class TiledEngineTest {
+
+    @Test
+    public void sameGenerationsWithGhostCells(){
+        int row=50,column=140;
+        GenerationEngine[] engines={new ArrayEngine(row,column),new PackedEngine(row,column)};
+
+        for(GenerationEngine engine : engines){
+            boolean[][] expected=new boolean[row+2][column+2];
+            Random random=new Random(7);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    expected[i][j]=random.nextInt(4)==0;
+                    engine.setCell(i,j,expected[i][j]);
+                }
+            }
+
+            for(int generation=0;generation<60;generation++){
+                //some generations receive ghost cells, some the user changes a cell
+                if(generation%3==0){
+                    for(int i=0;i<row+2;i++){
+                        expected[i][0]=random.nextBoolean();
+                        engine.setCell(i,0,expected[i][0]);
+                    }
+                }
+
+                if(generation%7==0){
+                    int i=1+random.nextInt(row),j=1+random.nextInt(column);
+                    expected[i][j]=!expected[i][j];
+                    engine.setCell(i,j,expected[i][j]);
+                }
+
+                expected=next(expected,row,column);
+                engine.calculateNextGen();
+                engine.swap();
+                engine.resetGhostCells();
+
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        assertTrue("Cell "+i+","+j+" of generation "+generation,expected[i][j]==engine.getCell(i,j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stillLifeIsSkipped(){
+        PackedEngine engine=new PackedEngine(64,256);
+
+        //block
+        engine.setCell(10,10,true);
+        engine.setCell(10,11,true);
+        engine.setCell(11,10,true);
+        engine.setCell(11,11,true);
+
+        engine.calculateNextGen();
+        engine.swap();
+        assertEquals(0,engine.getSkippedTiles());
+
+        engine.calculateNextGen();
+        engine.swap();
+
+        //nothing changed in the first generation
+        assertEquals(5*5,engine.getSkippedTiles());
+        assertTrue(engine.getCell(10,10) && engine.getCell(11,11));
+
+        //a cell far from the block wakes up only the tiles around it
+        engine.setCell(40,200,true);
+        engine.calculateNextGen();
+        engine.swap();
+
+        assertEquals(5*5-1,engine.getSkippedTiles());
+        assertFalse(engine.getCell(40,200));
+    }
+
+    @Test
+    public void parallelSameGenerationsOfSequential(){
+        int row=300,column=500;
+        TiledEngine[] sequential={new ArrayEngine(row,column),new PackedEngine(row,column)};
+        TiledEngine[] parallel={new ArrayEngine(row,column),new PackedEngine(row,column)};
+        Random random=new Random(11);
+
+        for(int k=0;k<sequential.length;k++){
+            parallel[k].setParallel(true,0,1);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    boolean value=random.nextInt(3)==0;
+                    sequential[k].setCell(i,j,value);
+                    parallel[k].setCell(i,j,value);
+                }
+            }
+
+            for(int generation=0;generation<20;generation++){
+                sequential[k].calculateNextGen();
+                sequential[k].swap();
+                parallel[k].calculateNextGen();
+                parallel[k].swap();
+
+                assertEquals("Same skipped tiles",sequential[k].getSkippedTiles(),parallel[k].getSkippedTiles());
+
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        assertTrue("Same cell",sequential[k].getCell(i,j)==parallel[k].getCell(i,j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void borderBeforeInterior(){
+        int row=70,column=150,depth=3;
+        TiledEngine[] engines={new ArrayEngine(row,column),new PackedEngine(row,column),new GenerationsEngine(row,column)};
+
+        for(TiledEngine engine : engines){
+            boolean[][] expected=new boolean[row+2][column+2];
+            Random random=new Random(11);
+
+            for(int i=1;i<=row;i++){
+                for(int j=1;j<=column;j++){
+                    expected[i][j]=random.nextInt(3)==0;
+                    engine.setCell(i,j,expected[i][j]);
+                }
+            }
+
+            for(int generation=0;generation<30;generation++){
+                for(int j=0;j<column+2;j++){
+                    expected[row+1][j]=random.nextBoolean();
+                    engine.setCell(row+1,j,expected[row+1][j]);
+                }
+
+                expected=next(expected,row,column);
+                engine.calculateBorder(depth);
+
+                //the border is ready before the interior is calculated
+                for(int i=1;i<=row;i++){
+                    for(int j=1;j<=column;j++){
+                        if(i<=depth || i>row-depth || j<=depth || j>column-depth){
+                            assertTrue(engine.getClass().getSimpleName()+", border cell "+i+","+j+" of generation "+generation,
+                                    expected[i][j]==engine.getNextCell(i,j));
+                        }
+                    }
+                }
+
+                engine.calculateInterior(depth);
+                engine.swap();
+                engine.resetGhostCells();
+
+                for(int i=0;i<row+2;i++){
+                    for(int j=0;j<column+2;j++){
+                        assertTrue(engine.getClass().getSimpleName()+", cell "+i+","+j+" of generation "+generation,
+                                expected[i][j]==engine.getCell(i,j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void changedRegions(){
+        PackedEngine engine=new PackedEngine(64,256);
+        int[] regions=new int[8];
+
+        //a blinker in the tile (2,1) and a block in the tile (0,3)
+        engine.setCell(40,100,true);
+        engine.setCell(40,101,true);
+        engine.setCell(40,102,true);
+        engine.setCell(5,200,true);
+        engine.setCell(5,201,true);
+        engine.setCell(6,200,true);
+        engine.setCell(6,201,true);
+
+        engine.calculateNextGen();
+        engine.swap();
+
+        assertEquals("Only the blinker changes",1,engine.getChangedRegions(regions));
+        assertEquals("First row",32,regions[0]);
+        assertEquals("First column",64,regions[1]);
+        assertEquals("Last row",47,regions[2]);
+        assertEquals("Last column",127,regions[3]);
+        assertEquals("Too many regions",-1,engine.getChangedRegions(new int[2]));
+
+        //with a halo of 3 cells the regions are moved of 2 cells and limited to the grid
+        CalculateGeneration calculateGeneration=new CalculateGeneration(60,60,null);
+
+        calculateGeneration.setHaloDepth(3);
+        calculateGeneration.updateHaloDepth();
+        calculateGeneration.setCell(1,10);
+        calculateGeneration.setCell(1,11);
+        calculateGeneration.setCell(1,12);
+        calculateGeneration.calculateNextGen();
+
+        assertEquals("Regions of the grid",1,calculateGeneration.getChangedRegions(regions));
+        assertEquals("First row",1,regions[0]);
+        assertEquals("First column",1,regions[1]);
+        assertEquals("Last row",13,regions[2]);
+        assertEquals("Last column",60,regions[3]);
+    }
+
+    private static boolean[][] next(boolean[][] cells,int row,int column){
+        boolean[][] tmp=new boolean[row+2][column+2];
+
+        for(int i=1;i<=row;i++){
+            for(int j=1;j<=column;j++){
+                int neighbours=0;
+
+                for(int x=i-1;x<=i+1;x++){
+                    for(int y=j-1;y<=j+1;y++){
+                        if((x!=i || y!=j) && cells[x][y]){
+                            neighbours++;
+                        }
+                    }
+                }
+
+                tmp[i][j]=neighbours==3 || (cells[i][j] && neighbours==2);
+            }
+        }
+
+        return tmp;
+    }
+}
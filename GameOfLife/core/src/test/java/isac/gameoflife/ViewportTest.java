@@ -0,0 +1,61 @@
+package isac.gameoflife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class ViewportTest {
+
+    private final static float DELTA=1e-3f;
+
+    @Test
+    public void fit() {
+        //a grid of 1000x500 cells on a screen of 500x500 pixels
+        Viewport viewport=Viewport.fit(500,1000,500,500,80);
+
+        assertEquals("Cell's size",0.5f,viewport.getCellSize(),DELTA);
+        assertEquals("Level",1,viewport.getLevel());
+        assertEquals("Left",0,viewport.getLeft(),DELTA);
+        //the grid is shorter than the screen, it is centred
+        assertEquals("Top",-250,viewport.getTop(),DELTA);
+        assertEquals("Column under the point",1000,viewport.getColumn(499.9f));
+    }
+
+    @Test
+    public void centred() {
+        //the grid is narrower than the screen
+        Viewport viewport=Viewport.fit(100,50,200,100,80);
+
+        assertEquals("Cell's size",1,viewport.getCellSize(),DELTA);
+        assertEquals("Left",-75,viewport.getLeft(),DELTA);
+        assertEquals("Column outside the grid",0,viewport.getColumn(74));
+        assertEquals("First column",1,viewport.getColumn(75));
+    }
+
+    @Test
+    public void zoom() {
+        Viewport viewport=Viewport.fit(1000,1000,100,100,80).zoom(10,50,50);
+
+        assertEquals("Cell's size",1,viewport.getCellSize(),DELTA);
+        assertEquals("Level",0,viewport.getLevel());
+        //the cell under the focus does not move
+        assertEquals("Left",450,viewport.getLeft(),DELTA);
+        assertEquals("Column under the focus",501,viewport.getColumn(50));
+
+        assertEquals("Maximum zoom",80,viewport.zoom(1000,0,0).getCellSize(),DELTA);
+        assertEquals("Minimum zoom",0.1f,viewport.zoom(0.001f,0,0).getCellSize(),DELTA);
+        assertEquals("Level of the minimum zoom",4,viewport.zoom(0.001f,0,0).getLevel());
+    }
+
+    @Test
+    public void pan() {
+        Viewport viewport=Viewport.fit(1000,1000,100,100,80).zoom(10,0,0);
+
+        assertEquals("Left",10,viewport.pan(-10,0).getLeft(),DELTA);
+        assertEquals("Top",10,viewport.pan(0,-10).getTop(),DELTA);
+        //the viewport can't leave the grid
+        assertEquals("Left side",0,viewport.pan(10,0).getLeft(),DELTA);
+        assertEquals("Right side",900,viewport.pan(-5000,0).getLeft(),DELTA);
+    }
+}